@@ -0,0 +1,82 @@
+package com.evans.consultations.benchmark;
+
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Each validator through the record-based {@code validate} and the packed form used by the evaluation plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AnswerValidatorBenchmark {
+
+    // non-final, so the JIT cannot constant-fold the validations away
+    private AnswerValidator<BooleanAnswer> mustBeTrue = new MustBeTrueValidator();
+    private AnswerValidator<BooleanAnswer> mustBeFalse = new MustBeFalseValidator();
+    private AnswerValidator<IntegerAnswer> mustBeLessThan = new MustBeLessThanValidator(3);
+    private AnswerValidator<IntegerAnswer> mustBeGreaterThan = new MustBeGreaterThanValidator(3);
+
+    private BooleanAnswer booleanAnswer = new BooleanAnswer(1L, true);
+    private IntegerAnswer integerAnswer = new IntegerAnswer(3L, 1);
+    private long packedBoolean = 1L;
+    private long packedInteger = 1L;
+
+    @Benchmark
+    public boolean mustBeTrue() {
+        return mustBeTrue.validate(booleanAnswer);
+    }
+
+    @Benchmark
+    public boolean mustBeTruePacked() {
+        return mustBeTrue.validatePacked(packedBoolean);
+    }
+
+    @Benchmark
+    public boolean mustBeFalse() {
+        return mustBeFalse.validate(booleanAnswer);
+    }
+
+    @Benchmark
+    public boolean mustBeFalsePacked() {
+        return mustBeFalse.validatePacked(packedBoolean);
+    }
+
+    @Benchmark
+    public boolean mustBeLessThan() {
+        return mustBeLessThan.validate(integerAnswer);
+    }
+
+    @Benchmark
+    public boolean mustBeLessThanPacked() {
+        return mustBeLessThan.validatePacked(packedInteger);
+    }
+
+    @Benchmark
+    public boolean mustBeGreaterThan() {
+        return mustBeGreaterThan.validate(integerAnswer);
+    }
+
+    @Benchmark
+    public boolean mustBeGreaterThanPacked() {
+        return mustBeGreaterThan.validatePacked(packedInteger);
+    }
+}
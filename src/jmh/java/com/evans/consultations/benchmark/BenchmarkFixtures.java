@@ -0,0 +1,186 @@
+package com.evans.consultations.benchmark;
+
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.DateAnswerDto;
+import com.evans.consultations.model.DecimalAnswerDto;
+import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.MultiChoiceAnswerDto;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.SingleChoiceAnswerDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Consultations and payloads for the benchmarks, built from the sample requests in
+ * {@code requests/submit_consultation_response}.
+ * <p>
+ * Larger consultations repeat the three questions of the seeded consultation, and larger payloads repeat the answers
+ * of the sample request, so every size keeps the outcome of the fixture it was built from.
+ */
+final class BenchmarkFixtures {
+
+    // configured like the application's, which ignores unknown properties such as the answer "id"
+    static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    static final ObjectMapper CBOR_MAPPER = Jackson2ObjectMapperBuilder.cbor().build();
+
+    private static final Path FIXTURES = Path.of("requests", "submit_consultation_response");
+
+    private BenchmarkFixtures() {
+    }
+
+    static Consultation consultation(int questionCount) {
+        List<Question<? extends Answer<?>>> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            long id = i + 1;
+            questions.add(switch (i % 3) {
+                case 0 -> Question.<BooleanAnswer>builder()
+                    .id(id)
+                    .text("Are you over 18 years old?")
+                    .answerType(AnswerType.BOOLEAN)
+                    .answerValidator(new AnswerValidator.BooleanValidator.MustBeTrueValidator())
+                    .build();
+                case 1 -> Question.<BooleanAnswer>builder()
+                    .id(id)
+                    .text("Have you had a reaction to this medicine before?")
+                    .answerType(AnswerType.BOOLEAN)
+                    .answerValidator(new AnswerValidator.BooleanValidator.MustBeFalseValidator())
+                    .build();
+                default -> Question.<IntegerAnswer>builder()
+                    .id(id)
+                    .text("How many times have you taken this medicine?")
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new AnswerValidator.IntegerValidator.MustBeLessThanValidator(3))
+                    .build();
+            });
+        }
+
+        return Consultation.builder()
+            .id(1L)
+            .title("Genovian Pear Allergy")
+            .questions(questions)
+            .build();
+    }
+
+    // questions cycling through every answer type, answered by everyAnswerType
+    static Consultation everyAnswerTypeConsultation(int questionCount) {
+        List<AnswerOption> options = List.of(new AnswerOption(0, "Never"), new AnswerOption(1, "Sometimes"),
+            new AnswerOption(2, "Often"));
+        List<Question<? extends Answer<?>>> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            long id = i + 1;
+            questions.add(switch (i % 6) {
+                case 0 -> Question.<BooleanAnswer>builder()
+                    .id(id)
+                    .text("Are you over 18 years old?")
+                    .answerType(AnswerType.BOOLEAN)
+                    .answerValidator(new AnswerValidator.BooleanValidator.MustBeTrueValidator())
+                    .build();
+                case 1 -> Question.<IntegerAnswer>builder()
+                    .id(id)
+                    .text("How many times have you taken this medicine?")
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new AnswerValidator.IntegerValidator.MustBeLessThanValidator(3))
+                    .build();
+                case 2 -> Question.<DecimalAnswer>builder()
+                    .id(id)
+                    .text("What is your temperature?")
+                    .answerType(AnswerType.DECIMAL)
+                    .answerValidator(new AnswerValidator.DecimalValidator.MustBeWithinValidator(35.0, 38.0))
+                    .build();
+                case 3 -> Question.<SingleChoiceAnswer>builder()
+                    .id(id)
+                    .text("How often do you eat pears?")
+                    .answerType(AnswerType.SINGLE_CHOICE)
+                    .answerValidator(new AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator(Set.of(0, 1)))
+                    .options(options)
+                    .build();
+                case 4 -> Question.<MultiChoiceAnswer>builder()
+                    .id(id)
+                    .text("When have you had a reaction?")
+                    .answerType(AnswerType.MULTI_CHOICE)
+                    .answerValidator(new AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator(Set.of(1)))
+                    .options(options)
+                    .build();
+                default -> Question.<DateAnswer>builder()
+                    .id(id)
+                    .text("When were you born?")
+                    .answerType(AnswerType.DATE)
+                    .answerValidator(new AnswerValidator.DateValidator.MustBeBeforeValidator(LocalDate.of(2008, 1, 1)))
+                    .build();
+            });
+        }
+
+        return Consultation.builder()
+            .id(1L)
+            .title("Genovian Pear Allergy")
+            .questions(questions)
+            .build();
+    }
+
+    // answers cycling through every answer type, to measure mapping when no one type dominates
+    static List<AnswerDto> everyAnswerType(int questionCount) {
+        List<AnswerDto> answers = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            long id = i + 1;
+            answers.add(switch (i % 6) {
+                case 0 -> BooleanAnswerDto.builder().questionId(id).value(true).build();
+                case 1 -> IntegerAnswerDto.builder().questionId(id).value(1).build();
+                case 2 -> DecimalAnswerDto.builder().questionId(id).value(36.6).build();
+                case 3 -> SingleChoiceAnswerDto.builder().questionId(id).value(0).build();
+                case 4 -> MultiChoiceAnswerDto.builder().questionId(id).value(List.of(0, 2)).build();
+                default -> DateAnswerDto.builder().questionId(id).value(LocalDate.of(1960, 5, 1)).build();
+            });
+        }
+        return answers;
+    }
+
+    // the same payload as CBOR, as sent by high-volume clients
+    static byte[] cborPayload(String fixture, int questionCount) {
+        try {
+            return CBOR_MAPPER.writeValueAsBytes(OBJECT_MAPPER.readTree(payload(fixture, questionCount)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] payload(String fixture, int questionCount) {
+        try {
+            JsonNode sample = OBJECT_MAPPER.readTree(FIXTURES.resolve(fixture + ".json").toFile());
+            JsonNode sampleAnswers = sample.get("answers");
+
+            ObjectNode payload = OBJECT_MAPPER.createObjectNode();
+            ArrayNode answers = payload.putArray("answers");
+            for (int i = 0; i < questionCount; i++) {
+                ObjectNode answer = sampleAnswers.get(i % sampleAnswers.size()).deepCopy();
+                answer.put("id", i + 1);
+                answer.put("questionId", i + 1);
+                answers.add(answer);
+            }
+            return OBJECT_MAPPER.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Benchmarks must be run from the project directory", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.evans.consultations.benchmark;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.transformer.ConsultationMapper;
+import com.evans.consultations.transformer.ConsultationMapperImpl;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConsultationMapperBenchmark {
+
+    @Param({"3", "50", "500"})
+    private int questionCount;
+
+    @Param({"likely_to_prescribe", "every_answer_type"})
+    private String fixture;
+
+    private final ConsultationMapper consultationMapper = new ConsultationMapperImpl();
+
+    private Consultation consultation;
+    private EvaluationPlan evaluationPlan;
+    private List<AnswerDto> answers;
+
+    @Setup
+    public void setUp() throws IOException {
+        boolean everyAnswerType = fixture.equals("every_answer_type");
+        consultation = everyAnswerType
+            ? BenchmarkFixtures.everyAnswerTypeConsultation(questionCount)
+            : BenchmarkFixtures.consultation(questionCount);
+        evaluationPlan = EvaluationPlan.compile(consultation);
+        answers = everyAnswerType
+            ? BenchmarkFixtures.everyAnswerType(questionCount)
+            : BenchmarkFixtures.OBJECT_MAPPER
+                .readValue(BenchmarkFixtures.payload(fixture, questionCount), SurveyResponseDto.class)
+                .getAnswers();
+    }
+
+    @Benchmark
+    public List<Answer<?>> mapToAnswers() {
+        return consultationMapper.mapToAnswers(answers, evaluationPlan);
+    }
+
+    @Benchmark
+    public ConsultationDto mapToConsultation() {
+        return consultationMapper.mapToConsultation(consultation);
+    }
+}
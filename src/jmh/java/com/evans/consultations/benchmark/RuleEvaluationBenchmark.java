@@ -0,0 +1,99 @@
+package com.evans.consultations.benchmark;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.Condition;
+import com.evans.consultations.model.Condition.AnyOf;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Condition.Not;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of a 20 question consultation as cross-question rules and weighted scoring are added to it. Every rule
+ * and weight is evaluated, as all of them hold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RuleEvaluationBenchmark {
+
+    private static final int QUESTION_COUNT = 20;
+
+    @Param({"0", "10", "100"})
+    private int ruleCount;
+
+    private EvaluationPlan plan;
+    private PackedAnswers answers;
+
+    @Setup
+    public void setUp() {
+        List<Question<? extends Answer<?>>> questions = new ArrayList<>();
+        List<Answer<?>> answerList = new ArrayList<>();
+        for (long id = 1; id <= QUESTION_COUNT; id++) {
+            questions.add(Question.<IntegerAnswer>builder()
+                .id(id)
+                .answerType(AnswerType.INTEGER)
+                .answerValidator(new MustBeBetweenValidator(0, 10))
+                .build());
+            answerList.add(new IntegerAnswer(id, (int) id % 10));
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        List<Weight> weights = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            long first = i % QUESTION_COUNT + 1;
+            long second = (i + 7) % QUESTION_COUNT + 1;
+            Condition condition = new Implies(
+                new Matches(first, new MustBeGreaterThanValidator(-1)),
+                new AnyOf(List.of(
+                    new Matches(second, new MustBeOneOfValidator(Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))),
+                    new Not(new Matches(second, new MustBeLessThanValidator(100))))));
+            rules.add(new Rule("rule " + i, condition));
+            weights.add(new Weight(condition, 1));
+        }
+
+        plan = EvaluationPlan.compile(Consultation.builder()
+            .id(1L)
+            .questions(questions)
+            .rules(rules)
+            .scoring(ruleCount == 0 ? null : new Scoring(weights, ruleCount))
+            .build());
+        answers = plan.pack(answerList);
+    }
+
+    @Benchmark
+    public ConsultationResponse evaluate() {
+        return plan.evaluate(answers);
+    }
+}
@@ -0,0 +1,89 @@
+package com.evans.consultations.benchmark;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.transformer.ConsultationMapper;
+import com.evans.consultations.transformer.ConsultationMapperImpl;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The full submitResponse evaluation, from request bytes to ConsultationResponse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SubmissionBenchmark {
+
+    @Param({"3", "50", "500"})
+    private int questionCount;
+
+    @Param({"likely_to_prescribe", "unlikely_to_prescribe"})
+    private String fixture;
+
+    private final ConsultationMapper consultationMapper = new ConsultationMapperImpl();
+    private final SurveyResponseReader surveyResponseReader = new SurveyResponseReader();
+
+    private EvaluationPlan evaluationPlan;
+    private byte[] payload;
+    private byte[] cborPayload;
+    private PackedAnswers packedAnswers;
+
+    @Setup
+    public void setUp() throws IOException {
+        evaluationPlan = EvaluationPlan.compile(BenchmarkFixtures.consultation(questionCount));
+        payload = BenchmarkFixtures.payload(fixture, questionCount);
+        cborPayload = BenchmarkFixtures.cborPayload(fixture, questionCount);
+        packedAnswers = readPayload();
+    }
+
+    // the request path: body streamed into packed answers, then evaluated
+    @Benchmark
+    public ConsultationResponse streamAndEvaluate() throws IOException {
+        return evaluationPlan.evaluate(readPayload());
+    }
+
+    // the request path for clients sending CBOR
+    @Benchmark
+    public ConsultationResponse streamCborAndEvaluate() throws IOException {
+        try (JsonParser parser = BenchmarkFixtures.CBOR_MAPPER.getFactory().createParser(cborPayload)) {
+            return evaluationPlan.evaluate(surveyResponseReader.read(parser, evaluationPlan));
+        }
+    }
+
+    // the DTO path, still used for requests that do not go through the streaming converter
+    @Benchmark
+    public ConsultationResponse bindMapAndEvaluate() throws IOException {
+        SurveyResponseDto surveyResponse = BenchmarkFixtures.OBJECT_MAPPER.readValue(payload, SurveyResponseDto.class);
+        return evaluationPlan.evaluate(consultationMapper.mapToAnswers(surveyResponse.getAnswers(), evaluationPlan));
+    }
+
+    @Benchmark
+    public ConsultationResponse evaluate() {
+        return evaluationPlan.evaluate(packedAnswers);
+    }
+
+    private PackedAnswers readPayload() throws IOException {
+        try (JsonParser parser = BenchmarkFixtures.OBJECT_MAPPER.getFactory().createParser(payload)) {
+            return surveyResponseReader.read(parser, evaluationPlan);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.evans.consultations.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command line arguments given as name=value pairs, with later values for the same name replacing earlier ones so the
+ * build can set defaults that a run overrides.
+ */
+final class Arguments {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Arguments(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    boolean getBoolean(String name) {
+        return Boolean.parseBoolean(values.get(name));
+    }
+
+    // in Spring Boot's duration format, e.g. 30s or 2m
+    Duration getDuration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(get(name, defaultValue));
+    }
+}
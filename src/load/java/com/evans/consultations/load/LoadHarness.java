@@ -0,0 +1,221 @@
+package com.evans.consultations.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+/**
+ * Replays a mix of the submission fixtures in {@code requests/submit_consultation_response} against a running service
+ * at a fixed arrival rate, recording latency in an HDR histogram and the throughput achieved.
+ * <p>
+ * Requests are sent on schedule whether or not earlier ones have been answered, and latency is measured from when a
+ * request was due rather than when it was sent, so a service that falls behind shows up in the percentiles instead of
+ * slowing the load down.
+ * <p>
+ * Arguments are name=value pairs:
+ * <ul>
+ *     <li>{@code url}: base URL of the service, {@code http://localhost:8080} by default</li>
+ *     <li>{@code consultation}: id of the consultation the fixtures answer, 1 by default</li>
+ *     <li>{@code rate}: requests per second, 100 by default</li>
+ *     <li>{@code warmup}: how long to send requests before recording them, 10s by default</li>
+ *     <li>{@code duration}: how long to record requests for, 30s by default</li>
+ *     <li>{@code mix}: fixtures and their relative weights, by default
+ *     {@code likely_to_prescribe:6,unlikely_to_prescribe:2,answers_missing:1,wrong_answer_type:1}</li>
+ *     <li>{@code out}: directory the results are written to, {@code target/load} by default</li>
+ * </ul>
+ */
+public final class LoadHarness {
+
+    private static final Path FIXTURES = Path.of("requests", "submit_consultation_response");
+    // latencies are recorded in microseconds, up to a minute, to three significant digits
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // the settings a result was produced with, which have to match for two results to be compared
+    static final List<String> SETTINGS = List.of("consultation", "rate", "warmup", "duration", "mix");
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Arguments arguments = new Arguments(args);
+        String consultation = arguments.get("consultation", "1");
+        int rate = arguments.getInt("rate", 100);
+        Duration warmup = arguments.getDuration("warmup", "10s");
+        Duration duration = arguments.getDuration("duration", "30s");
+        String mix = arguments.get("mix",
+            "likely_to_prescribe:6,unlikely_to_prescribe:2,answers_missing:1,wrong_answer_type:1");
+        Path out = Path.of(arguments.get("out", "target/load"));
+        URI uri = URI.create(arguments.get("url", "http://localhost:8080") + "/consultations/" + consultation
+            + "/responses");
+
+        List<Fixture> schedule = schedule(uri, mix);
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+        Histogram histogram = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        LongAdder errors = new LongAdder();
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        AtomicInteger outstanding = new AtomicInteger();
+        LongAccumulator lastAnswered = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        System.out.printf("Sending %d requests/s to %s for %s, after a %s warm-up%n", rate, uri, duration, warmup);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long due = start + i * interval;
+            if (due >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Fixture fixture = schedule.get((int) (i % schedule.size()));
+            boolean measured = due >= measureStart;
+            outstanding.incrementAndGet();
+            httpClient.sendAsync(fixture.request(), BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long answered = System.nanoTime();
+                if (measured) {
+                    int status = failure == null ? response.statusCode() : 0;
+                    if (status == 0 || status == 429 || status >= 500) {
+                        errors.increment();
+                    } else {
+                        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(answered - due),
+                            HIGHEST_LATENCY));
+                        lastAnswered.accumulate(answered);
+                    }
+                    String outcome = fixture.name() + " " + (failure == null ? status : failure.getClass().getName());
+                    outcomes.computeIfAbsent(outcome, ignored -> new LongAdder()).increment();
+                }
+                outstanding.decrementAndGet();
+            });
+        }
+        while (outstanding.get() > 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        // over the time it took to answer them, so a service that can't keep up with the rate falls short of it
+        long answered = histogram.getTotalCount();
+        long window = Math.max(lastAnswered.get(), end) - measureStart;
+        double throughput = (double) answered * TimeUnit.SECONDS.toNanos(1) / window;
+
+        Properties result = new Properties();
+        result.setProperty("consultation", consultation);
+        result.setProperty("rate", Integer.toString(rate));
+        result.setProperty("warmup", warmup.toString());
+        result.setProperty("duration", duration.toString());
+        result.setProperty("mix", mix);
+        result.setProperty("requests", Long.toString(answered + errors.sum()));
+        result.setProperty("errors", Long.toString(errors.sum()));
+        result.setProperty("throughput", format(throughput));
+        result.setProperty("p50", millis(histogram.getValueAtPercentile(50)));
+        result.setProperty("p90", millis(histogram.getValueAtPercentile(90)));
+        result.setProperty("p99", millis(histogram.getValueAtPercentile(99)));
+        result.setProperty("p999", millis(histogram.getValueAtPercentile(99.9)));
+        result.setProperty("max", millis(histogram.getMaxValue()));
+
+        report(System.out, histogram, new TreeMap<>(outcomes), result);
+        write(out, histogram, result);
+    }
+
+    // the fixtures in the order they are sent, spread by a fixed seed so every run sends the same sequence
+    private static List<Fixture> schedule(URI uri, String mix) {
+        List<Fixture> schedule = new ArrayList<>();
+        for (String weighted : mix.split(",")) {
+            String[] parts = weighted.trim().split(":");
+            String name = parts[0];
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+
+            byte[] body;
+            try {
+                body = Files.readAllBytes(FIXTURES.resolve(name + ".json"));
+            } catch (IOException e) {
+                throw new UncheckedIOException("The load harness must be run from the project directory", e);
+            }
+            Fixture fixture = new Fixture(name, HttpRequest.newBuilder(uri)
+                .POST(BodyPublishers.ofByteArray(body))
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .build());
+            for (int i = 0; i < weight; i++) {
+                schedule.add(fixture);
+            }
+        }
+        Collections.shuffle(schedule, new Random(42));
+        return schedule;
+    }
+
+    private static void report(PrintStream out, Histogram histogram, Map<String, LongAdder> outcomes,
+        Properties result) {
+        out.println();
+        out.println("Latency (ms), measured from when each request was due:");
+        histogram.outputPercentileDistribution(out, 5, 1000.0);
+        out.println();
+        out.println("Responses by fixture and status:");
+        outcomes.forEach((outcome, count) -> out.printf("  %-40s %d%n", outcome, count.sum()));
+        out.println();
+        out.printf("Throughput: %s requests/s, p50 %s ms, p99 %s ms, p99.9 %s ms, errors %s%n",
+            result.getProperty("throughput"), result.getProperty("p50"), result.getProperty("p99"),
+            result.getProperty("p999"), result.getProperty("errors"));
+    }
+
+    private static void write(Path out, Histogram histogram, Properties result) {
+        try {
+            Files.createDirectories(out);
+            try (Writer writer = Files.newBufferedWriter(out.resolve("result.properties"))) {
+                result.store(writer, "Load harness result");
+            }
+            try (PrintStream log = new PrintStream(Files.newOutputStream(out.resolve("latency.hlog")))) {
+                HistogramLogWriter logWriter = new HistogramLogWriter(log);
+                logWriter.outputLogFormatVersion();
+                logWriter.outputLegend();
+                logWriter.outputIntervalHistogram(histogram);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Results written to " + out.toAbsolutePath());
+    }
+
+    private static String millis(long micros) {
+        return format(micros / 1000.0);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private record Fixture(String name, HttpRequest request) {
+
+    }
+}
@@ -0,0 +1,104 @@
+package com.evans.consultations.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Fails the build when a {@link LoadHarness} result has regressed against the stored baseline: p99 latency above the
+ * baseline's by more than its tolerance, throughput below the baseline's by more than its tolerance, or any errors.
+ * <p>
+ * Arguments are name=value pairs:
+ * <ul>
+ *     <li>{@code result}: the result to check, {@code target/load/result.properties} by default</li>
+ *     <li>{@code baseline}: the baseline to check it against, {@code src/load/baseline.properties} by default</li>
+ *     <li>{@code p99-tolerance}: fraction p99 latency may rise by, 0.25 by default</li>
+ *     <li>{@code throughput-tolerance}: fraction throughput may fall by, 0.05 by default</li>
+ *     <li>{@code update}: when true, the result replaces the baseline instead of being checked against it</li>
+ * </ul>
+ * Baselines only hold for the machine they were recorded on, so they are recorded again whenever it changes.
+ */
+public final class RegressionGate {
+
+    private RegressionGate() {
+    }
+
+    public static void main(String[] args) {
+        Arguments arguments = new Arguments(args);
+        Path resultPath = Path.of(arguments.get("result", "target/load/result.properties"));
+        Path baselinePath = Path.of(arguments.get("baseline", "src/load/baseline.properties"));
+        double p99Tolerance = arguments.getDouble("p99-tolerance", 0.25);
+        double throughputTolerance = arguments.getDouble("throughput-tolerance", 0.05);
+
+        Properties result = read(resultPath);
+        if (arguments.getBoolean("update")) {
+            try (Writer writer = Files.newBufferedWriter(baselinePath)) {
+                result.store(writer, "Load harness baseline");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            System.out.println("Baseline updated: " + baselinePath.toAbsolutePath());
+            return;
+        }
+        if (!Files.exists(baselinePath)) {
+            fail(List.of("No baseline at " + baselinePath + ", record one with update=true"));
+        }
+        Properties baseline = read(baselinePath);
+
+        List<String> regressions = new ArrayList<>();
+        for (String setting : LoadHarness.SETTINGS) {
+            if (!baseline.getProperty(setting, "").equals(result.getProperty(setting, ""))) {
+                regressions.add(String.format("Run with %s=%s but the baseline was recorded with %s", setting,
+                    result.getProperty(setting), baseline.getProperty(setting)));
+            }
+        }
+        long errors = Long.parseLong(result.getProperty("errors"));
+        if (errors > 0) {
+            regressions.add(errors + " requests failed, timed out or were rejected");
+        }
+        double p99 = number(result, "p99");
+        double baselineP99 = number(baseline, "p99");
+        if (p99 > baselineP99 * (1 + p99Tolerance)) {
+            regressions.add(String.format("p99 of %.3f ms is more than %.0f%% above the baseline's %.3f ms", p99,
+                p99Tolerance * 100, baselineP99));
+        }
+        double throughput = number(result, "throughput");
+        double baselineThroughput = number(baseline, "throughput");
+        if (throughput < baselineThroughput * (1 - throughputTolerance)) {
+            regressions.add(String.format("Throughput of %.3f requests/s is more than %.0f%% below the baseline's %.3f",
+                throughput, throughputTolerance * 100, baselineThroughput));
+        }
+
+        if (!regressions.isEmpty()) {
+            fail(regressions);
+        }
+        System.out.printf("No regression: p99 %.3f ms against %.3f ms, throughput %.3f against %.3f requests/s%n",
+            p99, baselineP99, throughput, baselineThroughput);
+    }
+
+    private static Properties read(Path path) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+        return properties;
+    }
+
+    private static double number(Properties properties, String name) {
+        return Double.parseDouble(properties.getProperty(name));
+    }
+
+    private static void fail(List<String> regressions) {
+        System.err.println("Load test failed the regression gate:");
+        regressions.forEach(regression -> System.err.println("  " + regression));
+        System.exit(1);
+    }
+}
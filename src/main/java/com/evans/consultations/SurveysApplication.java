@@ -1,11 +1,16 @@
 package com.evans.consultations;
 
+import com.evans.consultations.config.ConsultationsRuntimeHints;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Slf4j
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(ConsultationsRuntimeHints.class)
 public class SurveysApplication {
 
     public static void main(String[] args) {
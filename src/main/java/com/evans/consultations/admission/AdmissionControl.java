@@ -0,0 +1,100 @@
+package com.evans.consultations.admission;
+
+import com.evans.consultations.exception.TooManyRequestsException;
+import com.evans.consultations.repository.CatalogEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admission decisions shared by the servlet interceptor and the reactive filter: a token bucket per client, a
+ * token bucket per consultation, and a limit on requests in flight that adapts to their latency.
+ */
+class AdmissionControl {
+
+    private static final String CONSULTATION_BUCKET = "admissionBucket";
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    enum Reason {
+        CLIENT,
+        CONSULTATION,
+        CONCURRENCY
+    }
+
+    private final AdmissionProperties admissionProperties;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final Counter[] rejections;
+
+    AdmissionControl(AdmissionProperties admissionProperties, MeterRegistry meterRegistry) {
+        this.admissionProperties = admissionProperties;
+        // a bucket left alone this long has refilled, and a full bucket is the same as no bucket
+        long refillNanos = TimeUnit.SECONDS.toNanos(1) / admissionProperties.clientRate()
+            * admissionProperties.clientBurst();
+        this.clientBuckets = Caffeine.newBuilder()
+            .maximumSize(admissionProperties.maxTrackedClients())
+            .expireAfterAccess(Duration.ofNanos(refillNanos))
+            .build();
+        this.concurrencyLimit = new ConcurrencyLimit(admissionProperties.initialConcurrency(),
+            admissionProperties.minConcurrency(), admissionProperties.maxConcurrency(),
+            admissionProperties.targetLatency().toNanos(), System.nanoTime());
+
+        this.rejections = new Counter[Reason.values().length];
+        for (Reason reason : Reason.values()) {
+            rejections[reason.ordinal()] = Counter.builder("consultations.admission.rejected")
+                .description("Requests shed by admission control")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+        }
+        Gauge.builder("consultations.admission.limit", concurrencyLimit, ConcurrencyLimit::limit)
+            .description("Requests allowed in flight at the same time")
+            .register(meterRegistry);
+        Gauge.builder("consultations.admission.in_flight", concurrencyLimit, ConcurrencyLimit::inFlight)
+            .description("Requests currently in flight")
+            .register(meterRegistry);
+    }
+
+    // when the request was admitted, to be handed back to release once it completes
+    long admit(String clientId, CatalogEntry entry) {
+        long now = System.nanoTime();
+
+        long wait = clientBucket(clientId, now).tryAcquire(now);
+        if (wait > 0) {
+            throw reject(Reason.CLIENT, "Too many requests from this client", Duration.ofNanos(wait));
+        }
+
+        if (entry != null) {
+            TokenBucket bucket = entry.cache().computeIfAbsent(CONSULTATION_BUCKET, () -> new TokenBucket(
+                admissionProperties.consultationRate(), admissionProperties.consultationBurst(), now));
+            wait = bucket.tryAcquire(now);
+            if (wait > 0) {
+                throw reject(Reason.CONSULTATION, "Too many requests for consultation: " + entry.consultation().id(),
+                    Duration.ofNanos(wait));
+            }
+        }
+
+        // taken last, as it is the only permit that has to be given back
+        if (!concurrencyLimit.tryAcquire()) {
+            throw reject(Reason.CONCURRENCY, "Too many requests in flight", CONCURRENCY_RETRY_AFTER);
+        }
+        return now;
+    }
+
+    void release(long admittedAt) {
+        concurrencyLimit.release(admittedAt, System.nanoTime());
+    }
+
+    private TooManyRequestsException reject(Reason reason, String message, Duration retryAfter) {
+        rejections[reason.ordinal()].increment();
+        return new TooManyRequestsException(message, retryAfter);
+    }
+
+    private TokenBucket clientBucket(String clientId, long now) {
+        return clientBuckets.get(clientId,
+            ignored -> new TokenBucket(admissionProperties.clientRate(), admissionProperties.clientBurst(), now));
+    }
+}
@@ -0,0 +1,82 @@
+package com.evans.consultations.admission;
+
+import com.evans.consultations.cluster.ConsultationForwarder;
+import com.evans.consultations.cluster.ShardRouter;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Admits or sheds requests before their body is read, by {@link AdmissionControl}.
+ * <p>
+ * A shed request is answered with 429 by the exception handler, without the request being parsed, mapped or
+ * validated.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+
+    private final AdmissionProperties admissionProperties;
+    private final ConsultationRepository consultationRepository;
+    private final ShardRouter shardRouter;
+    private final AdmissionControl admissionControl;
+
+    public AdmissionInterceptor(
+        AdmissionProperties admissionProperties,
+        ConsultationRepository consultationRepository,
+        ShardRouter shardRouter,
+        MeterRegistry meterRegistry
+    ) {
+        this.admissionProperties = admissionProperties;
+        this.consultationRepository = consultationRepository;
+        this.shardRouter = shardRouter;
+        this.admissionControl = new AdmissionControl(admissionProperties, meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ADMITTED_AT, admissionControl.admit(clientId(request), catalogEntry(request)));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+        Exception ex) {
+        if (request.getAttribute(ADMITTED_AT) instanceof Long admittedAt) {
+            admissionControl.release(admittedAt);
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String header = admissionProperties.clientIdHeader();
+        String clientId = header == null ? null : request.getHeader(header);
+        if (clientId == null && shardRouter.isFromPeer(request)) {
+            // a request forwarded by the node it arrived at is admitted as the client it came from
+            clientId = request.getHeader(ConsultationForwarder.FORWARDED_FOR);
+        }
+        return clientId == null ? request.getRemoteAddr() : clientId;
+    }
+
+    // the consultation being requested, if there is one; anything else is left for the controller to reject
+    private CatalogEntry catalogEntry(HttpServletRequest request) {
+        if (!(request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables)
+            || !(variables.get("id") instanceof String id)) {
+            return null;
+        }
+        try {
+            return consultationRepository.getEntryById(Long.valueOf(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.evans.consultations.admission;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled            whether requests to consultations go through admission control at all
+ * @param clientIdHeader     header identifying the client, set by a trusted gateway; when not set, clients are told
+ *                           apart by their remote address
+ * @param clientRate         requests per second allowed from each client
+ * @param clientBurst        requests a client can make at once after being idle
+ * @param consultationRate   requests per second allowed to each consultation
+ * @param consultationBurst  requests a consultation can take at once after being idle
+ * @param maxTrackedClients  most clients tracked at once, beyond which the least active are forgotten; idle clients
+ *                           are forgotten anyway once their bucket has refilled
+ * @param initialConcurrency requests handled at the same time before any latency has been observed
+ * @param minConcurrency     lowest the concurrency limit is lowered to
+ * @param maxConcurrency     highest the concurrency limit is raised to
+ * @param targetLatency      latency above which the concurrency limit is lowered
+ */
+@ConfigurationProperties(prefix = "consultations.admission")
+public record AdmissionProperties(
+    @DefaultValue("true") boolean enabled,
+    String clientIdHeader,
+    @DefaultValue("100") int clientRate,
+    @DefaultValue("200") int clientBurst,
+    @DefaultValue("2000") int consultationRate,
+    @DefaultValue("4000") int consultationBurst,
+    @DefaultValue("100000") int maxTrackedClients,
+    @DefaultValue("64") int initialConcurrency,
+    @DefaultValue("8") int minConcurrency,
+    @DefaultValue("512") int maxConcurrency,
+    @DefaultValue("100ms") Duration targetLatency
+) {
+
+}
@@ -0,0 +1,101 @@
+package com.evans.consultations.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free limit on requests in flight, adjusted to the latency they are observed to take.
+ * <p>
+ * The limit grows by one for every limit's worth of requests completed within the target latency while it is at
+ * least half used, and shrinks by a tenth when a request takes longer. Only requests admitted after the last decrease
+ * can lower it again, so a burst of slow requests completing together counts once.
+ */
+final class ConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // raw bits of a double, so increases can be spread across a whole limit's worth of requests
+    private final AtomicLong limit;
+    private final AtomicLong lastDecreaseNanos;
+
+    ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos, long nowNanos) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+        this.lastDecreaseNanos = new AtomicLong(nowNanos);
+    }
+
+    boolean tryAcquire() {
+        int currentLimit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long admittedAtNanos, long nowNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        long latencyNanos = nowNanos - admittedAtNanos;
+        if (latencyNanos > targetLatencyNanos) {
+            decrease(admittedAtNanos, nowNanos);
+        } else {
+            increase(inFlightBefore);
+        }
+    }
+
+    int limit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void increase(int inFlightBefore) {
+        while (true) {
+            long bits = limit.get();
+            double current = Double.longBitsToDouble(bits);
+            // nothing learnt about a higher limit while most of this one goes unused
+            if (inFlightBefore * 2 < current || current >= maxLimit) {
+                return;
+            }
+            double next = Math.min(maxLimit, current + 1 / current);
+            if (limit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void decrease(long admittedAtNanos, long nowNanos) {
+        while (true) {
+            long lastDecrease = lastDecreaseNanos.get();
+            if (admittedAtNanos - lastDecrease < 0) {
+                return;
+            }
+            if (lastDecreaseNanos.compareAndSet(lastDecrease, nowNanos)) {
+                break;
+            }
+        }
+
+        while (true) {
+            long bits = limit.get();
+            double next = Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF_RATIO);
+            if (limit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.evans.consultations.admission;
+
+import com.evans.consultations.cluster.ConsultationForwarder;
+import com.evans.consultations.cluster.ShardRouter;
+import com.evans.consultations.converter.ConsultationPath;
+import com.evans.consultations.exception.TooManyRequestsException;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetSocketAddress;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Admits or sheds requests to the reactive handlers before their body is read, by {@link AdmissionControl}, as
+ * {@link AdmissionInterceptor} does for the servlet ones.
+ * <p>
+ * Runs after the other filters, as the interceptor does, so a request forwarded to another node is admitted there.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ReactiveAdmissionFilter implements WebFilter {
+
+    private static final PathPattern CONSULTATIONS = PathPatternParser.defaultInstance.parse("/consultations/**");
+
+    private final AdmissionProperties admissionProperties;
+    private final ConsultationRepository consultationRepository;
+    private final ShardRouter shardRouter;
+    private final AdmissionControl admissionControl;
+
+    public ReactiveAdmissionFilter(
+        AdmissionProperties admissionProperties,
+        ConsultationRepository consultationRepository,
+        ShardRouter shardRouter,
+        MeterRegistry meterRegistry
+    ) {
+        this.admissionProperties = admissionProperties;
+        this.consultationRepository = consultationRepository;
+        this.shardRouter = shardRouter;
+        this.admissionControl = new AdmissionControl(admissionProperties, meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!admissionProperties.enabled() || !CONSULTATIONS.matches(request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        long admittedAt;
+        try {
+            admittedAt = admissionControl.admit(clientId(request), catalogEntry(request));
+        } catch (TooManyRequestsException e) {
+            return Mono.error(e);
+        }
+        return chain.filter(exchange).doFinally(signal -> admissionControl.release(admittedAt));
+    }
+
+    private String clientId(ServerHttpRequest request) {
+        String header = admissionProperties.clientIdHeader();
+        String clientId = header == null ? null : request.getHeaders().getFirst(header);
+        if (clientId == null && shardRouter.isFromPeer(request)) {
+            // a request forwarded by the node it arrived at is admitted as the client it came from
+            clientId = request.getHeaders().getFirst(ConsultationForwarder.FORWARDED_FOR);
+        }
+        if (clientId == null) {
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            clientId = remoteAddress == null ? "" : remoteAddress.getHostString();
+        }
+        return clientId;
+    }
+
+    // the consultation being requested, if there is one; anything else is left for the controller to reject
+    private CatalogEntry catalogEntry(ServerHttpRequest request) {
+        Long consultationId = ConsultationPath.consultationId(request.getPath().pathWithinApplication().value());
+        return consultationId == null ? null : consultationRepository.getEntryById(consultationId);
+    }
+}
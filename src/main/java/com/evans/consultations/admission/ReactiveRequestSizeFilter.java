@@ -0,0 +1,73 @@
+package com.evans.consultations.admission;
+
+import com.evans.consultations.config.RequestProperties;
+import com.evans.consultations.exception.ConsultationsException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rejects request bodies larger than {@link RequestProperties#maxBodySize()} with 413 on the reactive stack, as
+ * {@link RequestSizeFilter} does on the servlet one.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ReactiveRequestSizeFilter implements WebFilter {
+
+    private final long maxBodySize;
+
+    public ReactiveRequestSizeFilter(RequestProperties requestProperties) {
+        this.maxBodySize = requestProperties.maxBodySize().toBytes();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest().getHeaders().getContentLength() > maxBodySize) {
+            return Mono.error(tooLarge());
+        }
+        return chain.filter(exchange.mutate().request(new LimitedRequest(exchange.getRequest(), maxBodySize)).build());
+    }
+
+    private static ConsultationsException tooLarge() {
+        return new ConsultationsException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+    }
+
+    private static final class LimitedRequest extends ServerHttpRequestDecorator {
+
+        private final long maxBodySize;
+
+        private LimitedRequest(ServerHttpRequest request, long maxBodySize) {
+            super(request);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> {
+                long[] remaining = {maxBodySize};
+                return super.getBody().handle((buffer, sink) -> {
+                    remaining[0] -= buffer.readableByteCount();
+                    if (remaining[0] < 0) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(tooLarge());
+                    } else {
+                        sink.next(buffer);
+                    }
+                });
+            });
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.evans.consultations.admission;
+
+import com.evans.consultations.config.RequestProperties;
+import com.evans.consultations.exception.ConsultationsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+/**
+ * Rejects request bodies larger than {@link RequestProperties#maxBodySize()} with 413. A body declaring its length is
+ * rejected before any of it is read; one that doesn't is rejected once it has been read past the limit.
+ * <p>
+ * Runs ahead of forwarding, so a body is bounded the same whichever node handles it.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestSizeFilter extends OncePerRequestFilter {
+
+    private final long maxBodySize;
+    // answers with the same error responses as the controllers
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public RequestSizeFilter(RequestProperties requestProperties,
+        @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.maxBodySize = requestProperties.maxBodySize().toBytes();
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxBodySize) {
+            handlerExceptionResolver.resolveException(request, response, null, tooLarge());
+            return;
+        }
+        filterChain.doFilter(new LimitedRequest(request, maxBodySize), response);
+    }
+
+    private static ConsultationsException tooLarge() {
+        return new ConsultationsException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+    }
+
+    private static final class LimitedRequest extends HttpServletRequestWrapper {
+
+        private final long maxBodySize;
+        private ServletInputStream inputStream;
+
+        private LimitedRequest(HttpServletRequest request, long maxBodySize) {
+            super(request);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream(), maxBodySize);
+            }
+            return inputStream;
+        }
+    }
+
+    private static final class LimitedInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private long remaining;
+
+        private LimitedInputStream(ServletInputStream delegate, long maxBodySize) {
+            this.delegate = delegate;
+            this.remaining = maxBodySize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = delegate.read();
+            if (read >= 0) {
+                consume(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int read) {
+            remaining -= read;
+            if (remaining < 0) {
+                throw tooLarge();
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
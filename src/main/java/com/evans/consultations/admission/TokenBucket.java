@@ -0,0 +1,41 @@
+package com.evans.consultations.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ * <p>
+ * Rather than a token count and a refill time, the bucket only keeps the time at which it would next be full (the
+ * generic cell rate algorithm), so taking a token is a single compare-and-set.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    // time, on the System.nanoTime() clock, at which every token taken so far has been paid back
+    private final AtomicLong fullAt;
+
+    TokenBucket(int tokensPerSecond, int capacity, long nowNanos) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+        this.capacityNanos = intervalNanos * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return zero when a token was taken, otherwise how long until the next token is available, in nanoseconds
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long overdraft = next - nowNanos - capacityNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
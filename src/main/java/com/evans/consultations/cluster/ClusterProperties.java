@@ -0,0 +1,33 @@
+package com.evans.consultations.cluster;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param self           base URL other nodes reach this node on, as it appears in {@code nodes}
+ * @param nodes          base URLs of every node in the cluster, including this one; when empty, this node holds the
+ *                       whole catalog
+ * @param secret         shared by every node and sent with the requests they forward to each other, so only they are
+ *                       trusted to say which node forwarded a request and which client it came from; required when
+ *                       {@code nodes} is set
+ * @param virtualNodes   points each node takes on the hash ring; more points spread consultations more evenly
+ * @param forwardTimeout how long to wait for the owner of a consultation to answer a forwarded request
+ * @param nearCacheSize  bytes of consultations owned by other nodes kept for reads
+ * @param nearCacheTtl   how long a consultation owned by another node is read from the near cache before it is fetched
+ *                       again
+ */
+@ConfigurationProperties(prefix = "consultations.cluster")
+public record ClusterProperties(
+    String self,
+    @DefaultValue List<String> nodes,
+    String secret,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("2s") Duration forwardTimeout,
+    @DefaultValue("16MB") DataSize nearCacheSize,
+    @DefaultValue("30s") Duration nearCacheTtl
+) {
+
+}
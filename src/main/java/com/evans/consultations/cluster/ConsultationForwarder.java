@@ -0,0 +1,239 @@
+package com.evans.consultations.cluster;
+
+import com.evans.consultations.config.RequestProperties;
+import com.evans.consultations.exception.ConsultationsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards requests for consultations owned by other nodes to their owner.
+ * <p>
+ * Reads of a consultation are kept in a near cache, bounded by size and expiring after a while, so a node serving
+ * popular consultations it doesn't own fetches each of them once in a while rather than on every request.
+ */
+@Component
+public class ConsultationForwarder {
+
+    // marks a request as already forwarded, so the node receiving it handles it rather than forwarding it on
+    static final String FORWARDED_BY = "Consultations-Forwarded-By";
+    // the address of the client a request was forwarded for, so the owner admits it as that client
+    public static final String FORWARDED_FOR = "Consultations-Forwarded-For";
+    // proves a request was forwarded by another node, so the headers above can be believed
+    static final String CLUSTER_SECRET = "Consultations-Cluster-Secret";
+
+    // hop-by-hop headers, and the ones the HTTP client sets itself
+    private static final Set<String> UNFORWARDED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+        "upgrade", "keep-alive", "transfer-encoding", "te", "trailer", "proxy-authenticate", "proxy-authorization",
+        "http2-settings");
+    // only ever set by the node forwarding a request, never copied from the client
+    private static final Set<String> CLUSTER_HEADERS = Set.of(FORWARDED_BY.toLowerCase(Locale.ROOT),
+        FORWARDED_FOR.toLowerCase(Locale.ROOT), CLUSTER_SECRET.toLowerCase(Locale.ROOT));
+    // left out of near cache fetches, as conditional requests are answered from the cached copy
+    private static final Set<String> CONDITIONAL_HEADERS = Set.of("if-none-match", "if-modified-since");
+
+    private final ShardRouter shardRouter;
+    private final Duration forwardTimeout;
+    private final long maxBodySize;
+    private final HttpClient httpClient;
+    private final Cache<NearCacheKey, ForwardedResponse> nearCache;
+    private final Counter forwarded;
+
+    public ConsultationForwarder(ShardRouter shardRouter, ClusterProperties clusterProperties,
+        RequestProperties requestProperties, MeterRegistry meterRegistry) {
+        this.shardRouter = shardRouter;
+        this.forwardTimeout = clusterProperties.forwardTimeout();
+        this.maxBodySize = requestProperties.maxBodySize().toBytes();
+        // HTTP/1.1, as an h2c upgrade can't carry a request body
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(clusterProperties.forwardTimeout())
+            .build();
+        this.nearCache = Caffeine.newBuilder()
+            .maximumWeight(clusterProperties.nearCacheSize().toBytes())
+            .weigher((NearCacheKey key, ForwardedResponse response) -> response.body().length)
+            .expireAfterWrite(clusterProperties.nearCacheTtl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "nearCache");
+        this.forwarded = Counter.builder("consultations.cluster.forwarded")
+            .description("Requests forwarded to the node owning their consultation")
+            .register(meterRegistry);
+    }
+
+    // reads a consultation through the near cache
+    public ForwardedResponse read(HttpServletRequest request, long consultationId) {
+        Incoming incoming = Incoming.of(request);
+        NearCacheKey key = NearCacheKey.of(consultationId, incoming);
+        ForwardedResponse cached = nearCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ForwardedResponse response = send(request(incoming, consultationId, BodyPublishers.noBody(),
+            CONDITIONAL_HEADERS));
+        cache(key, response);
+        return response;
+    }
+
+    public ForwardedResponse forward(HttpServletRequest request, long consultationId) {
+        byte[] body;
+        try {
+            // one byte past the limit is enough to tell the body is too large
+            body = request.getInputStream().readNBytes((int) Math.min(maxBodySize + 1, Integer.MAX_VALUE - 8));
+        } catch (IOException e) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Failed to read request body");
+        }
+        if (body.length > maxBodySize) {
+            throw new ConsultationsException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+        }
+        return send(request(Incoming.of(request), consultationId, BodyPublishers.ofByteArray(body), Set.of()));
+    }
+
+    // reads a consultation through the near cache, without waiting on the owner
+    public CompletableFuture<ForwardedResponse> readAsync(ServerHttpRequest request, long consultationId) {
+        Incoming incoming = Incoming.of(request);
+        NearCacheKey key = NearCacheKey.of(consultationId, incoming);
+        ForwardedResponse cached = nearCache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return sendAsync(request(incoming, consultationId, BodyPublishers.noBody(), CONDITIONAL_HEADERS))
+            .thenApply(response -> {
+                cache(key, response);
+                return response;
+            });
+    }
+
+    // the body has already been read, and checked against the size limit, without blocking
+    public CompletableFuture<ForwardedResponse> forwardAsync(ServerHttpRequest request, long consultationId,
+        byte[] body) {
+        return sendAsync(request(Incoming.of(request), consultationId, BodyPublishers.ofByteArray(body), Set.of()));
+    }
+
+    private void cache(NearCacheKey key, ForwardedResponse response) {
+        if (response.status() == HttpStatus.OK.value()) {
+            nearCache.put(key, response);
+        }
+    }
+
+    private HttpRequest request(Incoming incoming, long consultationId, BodyPublisher body,
+        Set<String> skippedHeaders) {
+        URI owner = URI.create(shardRouter.owner(consultationId) + incoming.path());
+        HttpRequest.Builder forwardedRequest = HttpRequest.newBuilder(owner)
+            .method(incoming.method(), body)
+            .timeout(forwardTimeout);
+        incoming.headers().forEach((name, values) -> {
+            String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            if (UNFORWARDED_HEADERS.contains(lowerCaseName) || CLUSTER_HEADERS.contains(lowerCaseName)
+                || skippedHeaders.contains(lowerCaseName)) {
+                return;
+            }
+            for (String value : values) {
+                forwardedRequest.header(name, value);
+            }
+        });
+        forwardedRequest.header(FORWARDED_BY, shardRouter.self());
+        if (incoming.remoteAddress() != null) {
+            forwardedRequest.header(FORWARDED_FOR, incoming.remoteAddress());
+        }
+        forwardedRequest.header(CLUSTER_SECRET, shardRouter.secret());
+        return forwardedRequest.build();
+    }
+
+    private ForwardedResponse send(HttpRequest request) {
+        try {
+            return forwarded(httpClient.send(request, BodyHandlers.ofByteArray()));
+        } catch (IOException e) {
+            throw unreachable();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unreachable();
+        }
+    }
+
+    private CompletableFuture<ForwardedResponse> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, BodyHandlers.ofByteArray())
+            .handle((response, failure) -> {
+                if (failure != null) {
+                    throw unreachable();
+                }
+                return forwarded(response);
+            });
+    }
+
+    private ForwardedResponse forwarded(HttpResponse<byte[]> response) {
+        forwarded.increment();
+        Map<String, List<String>> headers = response.headers().map().entrySet().stream()
+            .filter(header -> !UNFORWARDED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT)))
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        return new ForwardedResponse(response.statusCode(), headers, response.body());
+    }
+
+    private static ConsultationsException unreachable() {
+        return new ConsultationsException(HttpStatus.BAD_GATEWAY, "Owner of consultation could not be reached");
+    }
+
+    public record ForwardedResponse(int status, Map<String, List<String>> headers, byte[] body) {
+
+        public String eTag() {
+            return headers.entrySet().stream()
+                .filter(header -> header.getKey().equalsIgnoreCase(HttpHeaders.ETAG))
+                .map(header -> header.getValue().get(0))
+                .findFirst()
+                .orElse(null);
+        }
+    }
+
+    // representations of a consultation differ by the format and coding the client accepts
+    private record NearCacheKey(long consultationId, String accept, String acceptEncoding) {
+
+        static NearCacheKey of(long consultationId, Incoming incoming) {
+            return new NearCacheKey(consultationId, incoming.headers().getFirst(HttpHeaders.ACCEPT),
+                incoming.headers().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        }
+    }
+
+    // the request being forwarded, whether it arrived at the servlet or the reactive stack
+    private record Incoming(String method, String path, HttpHeaders headers, String remoteAddress) {
+
+        static Incoming of(HttpServletRequest request) {
+            String query = request.getQueryString();
+            return new Incoming(request.getMethod(), request.getRequestURI() + (query == null ? "" : "?" + query),
+                new ServletServerHttpRequest(request).getHeaders(), request.getRemoteAddr());
+        }
+
+        static Incoming of(ServerHttpRequest request) {
+            String query = request.getURI().getRawQuery();
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            return new Incoming(request.getMethod().name(),
+                request.getURI().getRawPath() + (query == null ? "" : "?" + query), request.getHeaders(),
+                remoteAddress == null ? null : remoteAddress.getHostString());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.evans.consultations.cluster;
+
+import com.evans.consultations.cluster.ConsultationForwarder.ForwardedResponse;
+import com.evans.consultations.converter.ConsultationPath;
+import com.evans.consultations.exception.ConsultationsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+/**
+ * Sends requests for consultations owned by another node to their owner, before they reach admission control or are
+ * parsed, and answers with the owner's response.
+ * <p>
+ * A request that has already been forwarded is always handled where it lands, so nodes briefly disagreeing about the
+ * ring can't forward a request back and forth.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ForwardingFilter extends OncePerRequestFilter {
+
+    private final ShardRouter shardRouter;
+    private final ConsultationForwarder consultationForwarder;
+    // answers with the same error responses as the controllers
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public ForwardingFilter(ShardRouter shardRouter, ConsultationForwarder consultationForwarder,
+        @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.shardRouter = shardRouter;
+        this.consultationForwarder = consultationForwarder;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // a client claiming to be another node is routed like any other client
+        return !shardRouter.isClustered()
+            || request.getHeader(ConsultationForwarder.FORWARDED_BY) != null && shardRouter.isFromPeer(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // anything other than a consultation, or one with an invalid id, is left for the controller
+        Long consultationId = ConsultationPath.consultationId(path);
+        if (consultationId == null || shardRouter.owns(consultationId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            boolean read = ConsultationPath.isConsultation(path) && "GET".equals(request.getMethod());
+            write(read
+                ? consultationForwarder.read(request, consultationId)
+                : consultationForwarder.forward(request, consultationId), request, response);
+        } catch (ConsultationsException e) {
+            handlerExceptionResolver.resolveException(request, response, null, e);
+        }
+    }
+
+    private static void write(ForwardedResponse forwarded, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        // a near cached consultation still answers conditional requests
+        String eTag = forwarded.eTag();
+        if (eTag != null && "GET".equals(request.getMethod())
+            && new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        response.setStatus(forwarded.status());
+        for (Map.Entry<String, List<String>> header : forwarded.headers().entrySet()) {
+            for (String value : header.getValue()) {
+                response.addHeader(header.getKey(), value);
+            }
+        }
+        response.setContentLength(forwarded.body().length);
+        response.getOutputStream().write(forwarded.body());
+    }
+}
@@ -0,0 +1,69 @@
+package com.evans.consultations.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hash ring assigning each consultation to a node.
+ * <p>
+ * Each node takes a number of points on the ring, and a consultation is owned by the node at the first point at or
+ * after its hash. Adding or removing a node only moves the consultations between its points and the ones before
+ * them, so the rest of the catalog stays where it is.
+ */
+final class HashRing {
+
+    // sorted points on the ring, and the node at each
+    private final long[] points;
+    private final String[] nodes;
+
+    HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+
+        long[][] placed = new long[nodes.size() * virtualNodes][];
+        int i = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int virtualNode = 0; virtualNode < virtualNodes; virtualNode++) {
+                placed[i++] = new long[] {hash(nodes.get(node) + "#" + virtualNode), node};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.points = new long[placed.length];
+        this.nodes = new String[placed.length];
+        for (i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            this.nodes[i] = nodes.get((int) placed[i][1]);
+        }
+    }
+
+    String owner(long consultationId) {
+        int index = Arrays.binarySearch(points, mix(consultationId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes[index == points.length ? 0 : index];
+    }
+
+    // FNV-1a, mixed so that similar node names land far apart
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3's finalizer, so sequential consultation ids are spread around the ring
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.evans.consultations.cluster;
+
+import com.evans.consultations.cluster.ConsultationForwarder.ForwardedResponse;
+import com.evans.consultations.converter.ConsultationPath;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Routes requests for consultations owned by other nodes to their owner on the reactive stack, as
+ * {@link ForwardingFilter} does on the servlet one, without holding a thread while the owner answers.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Order(0)
+public class ReactiveForwardingFilter implements WebFilter {
+
+    private final ShardRouter shardRouter;
+    private final ConsultationForwarder consultationForwarder;
+
+    public ReactiveForwardingFilter(ShardRouter shardRouter, ConsultationForwarder consultationForwarder) {
+        this.shardRouter = shardRouter;
+        this.consultationForwarder = consultationForwarder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        // a client claiming to be another node is routed like any other client
+        if (!shardRouter.isClustered()
+            || request.getHeaders().getFirst(ConsultationForwarder.FORWARDED_BY) != null
+            && shardRouter.isFromPeer(request)) {
+            return chain.filter(exchange);
+        }
+
+        String path = request.getPath().pathWithinApplication().value();
+        // anything other than a consultation, or one with an invalid id, is left for the controller
+        Long consultationId = ConsultationPath.consultationId(path);
+        if (consultationId == null || shardRouter.owns(consultationId)) {
+            return chain.filter(exchange);
+        }
+
+        if (ConsultationPath.isConsultation(path) && HttpMethod.GET.equals(request.getMethod())) {
+            return write(Mono.defer(() -> fromFuture(consultationForwarder.readAsync(request, consultationId))),
+                exchange);
+        }
+        // the body was bounded by the request size filter, which runs ahead of this one
+        Mono<ForwardedResponse> forwarded = DataBufferUtils.join(request.getBody())
+            .map(buffer -> {
+                byte[] body = new byte[buffer.readableByteCount()];
+                buffer.read(body);
+                DataBufferUtils.release(buffer);
+                return body;
+            })
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> fromFuture(consultationForwarder.forwardAsync(request, consultationId, body)));
+        return write(forwarded, exchange);
+    }
+
+    // a forward already sent isn't cancelled, so the owner never sees half a submission
+    private static Mono<ForwardedResponse> fromFuture(CompletableFuture<ForwardedResponse> future) {
+        return Mono.fromFuture(future, true);
+    }
+
+    private static Mono<Void> write(Mono<ForwardedResponse> forwarded, ServerWebExchange exchange) {
+        return forwarded.flatMap(response -> {
+            // a near cached consultation still answers conditional requests
+            String eTag = response.eTag();
+            if (eTag != null && HttpMethod.GET.equals(exchange.getRequest().getMethod())
+                && exchange.checkNotModified(eTag)) {
+                return exchange.getResponse().setComplete();
+            }
+
+            ServerHttpResponse serverResponse = exchange.getResponse();
+            serverResponse.setStatusCode(HttpStatusCode.valueOf(response.status()));
+            response.headers().forEach((name, values) -> serverResponse.getHeaders().addAll(name, values));
+            serverResponse.getHeaders().setContentLength(response.body().length);
+            return serverResponse.writeWith(Mono.just(serverResponse.bufferFactory().wrap(response.body())));
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.evans.consultations.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Routing table of which node owns each consultation, computed locally from the configured nodes so routing a request
+ * never needs a lookup.
+ * <p>
+ * Each node only holds the consultations it owns, so its memory grows with its shard rather than the whole catalog.
+ */
+@Component
+public class ShardRouter {
+
+    private final String self;
+    private final String secret;
+    // null when this node holds the whole catalog
+    private final HashRing ring;
+
+    public ShardRouter(ClusterProperties clusterProperties) {
+        if (clusterProperties.nodes().isEmpty()) {
+            this.self = null;
+            this.secret = null;
+            this.ring = null;
+            return;
+        }
+        if (!clusterProperties.nodes().contains(clusterProperties.self())) {
+            throw new IllegalStateException(
+                "consultations.cluster.self must be one of consultations.cluster.nodes: " + clusterProperties.self());
+        }
+        if (!StringUtils.hasText(clusterProperties.secret())) {
+            throw new IllegalStateException(
+                "consultations.cluster.secret must be set when consultations.cluster.nodes is");
+        }
+        this.self = clusterProperties.self();
+        this.secret = clusterProperties.secret();
+        this.ring = new HashRing(clusterProperties.nodes(), clusterProperties.virtualNodes());
+    }
+
+    public boolean isClustered() {
+        return ring != null;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    String secret() {
+        return secret;
+    }
+
+    /**
+     * Whether a request was forwarded by another node, rather than sent by a client. Only then are the headers nodes
+     * forward requests with to be believed; anyone can send them.
+     */
+    public boolean isFromPeer(HttpServletRequest request) {
+        return isFromPeer(request.getHeader(ConsultationForwarder.CLUSTER_SECRET));
+    }
+
+    public boolean isFromPeer(ServerHttpRequest request) {
+        return isFromPeer(request.getHeaders().getFirst(ConsultationForwarder.CLUSTER_SECRET));
+    }
+
+    private boolean isFromPeer(String presented) {
+        return secret != null && presented != null && MessageDigest.isEqual(
+            secret.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String owner(long consultationId) {
+        return ring == null ? self : ring.owner(consultationId);
+    }
+
+    public boolean owns(long consultationId) {
+        return ring == null || self.equals(ring.owner(consultationId));
+    }
+}
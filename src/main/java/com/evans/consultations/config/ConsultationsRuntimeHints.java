@@ -0,0 +1,61 @@
+package com.evans.consultations.config;
+
+import com.evans.consultations.definitions.ConsultationDefinition;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.RegexPatternTypeFilter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reflection hints for a native image, for the types Jackson binds that Spring's AOT processing can't find on its
+ * own.
+ * <p>
+ * The generated API models are found by scanning at build time, so models added to the API are covered without
+ * listing them here. Polymorphic models are registered along with each of their subtypes, as Jackson only reaches
+ * them through the discriminator.
+ */
+public class ConsultationsRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String MODEL_PACKAGE = "com.evans.consultations.model";
+    private static final Pattern GENERATED_MODEL = Pattern.compile(".*Dto");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+        bindingHints.registerReflectionHints(hints.reflection(), generatedModels(classLoader).toArray(Class<?>[]::new));
+        // definition files are bound from YAML and JSON
+        bindingHints.registerReflectionHints(hints.reflection(), ConsultationDefinition.class);
+    }
+
+    private static Set<Class<?>> generatedModels(ClassLoader classLoader) {
+        // the default provider only finds concrete classes, and the polymorphic models are interfaces
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter(new RegexPatternTypeFilter(GENERATED_MODEL));
+
+        Set<Class<?>> models = new LinkedHashSet<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(MODEL_PACKAGE)) {
+            Class<?> model = ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader);
+            models.add(model);
+            JsonSubTypes subTypes = model.getAnnotation(JsonSubTypes.class);
+            if (subTypes != null) {
+                for (JsonSubTypes.Type subType : subTypes.value()) {
+                    models.add(subType.value());
+                }
+            }
+        }
+        return models;
+    }
+}
@@ -0,0 +1,85 @@
+package com.evans.consultations.config;
+
+import com.evans.consultations.converter.SerializedConsultationMessageWriter;
+import com.evans.consultations.converter.SurveyResponseMessageReader;
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.converter.WireMappers;
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+
+/**
+ * The reactive counterpart of {@link WebConfig}, used when the application runs with the {@code reactive} profile.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final WireMappers wireMappers;
+    private final ConsultationRepository consultationRepository;
+    private final SurveyResponseReader surveyResponseReader;
+    private final ConsultationMetrics consultationMetrics;
+    private final RequestProperties requestProperties;
+
+    // Tomcat is on the classpath for the servlet stack, and would otherwise be preferred
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // bodies decoded by Spring are held to the same limit as the ones read by the request size filter
+        configurer.defaultCodecs().maxInMemorySize((int) Math.min(requestProperties.maxBodySize().toBytes(),
+            Integer.MAX_VALUE));
+
+        // ahead of the Jackson decoder, which would otherwise bind the polymorphic DTO tree
+        configurer.customCodecs().register(new SurveyResponseMessageReader(
+            objectMapper.getFactory(), consultationRepository, surveyResponseReader, consultationMetrics,
+            requestProperties.maxBatchSize(), MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        configurer.customCodecs().register(new SurveyResponseMessageReader(
+            wireMappers.mapper(WireFormat.CBOR).getFactory(), consultationRepository, surveyResponseReader,
+            consultationMetrics, requestProperties.maxBatchSize(), WireFormat.CBOR.mediaType()));
+        configurer.customCodecs().register(new SerializedConsultationMessageWriter());
+        // for every other body a CBOR client exchanges, configured like the JSON codecs; without their media type
+        // named, these would claim JSON too
+        configurer.customCodecs().register(new Jackson2CborDecoder(wireMappers.mapper(WireFormat.CBOR),
+            WireFormat.CBOR.mediaType()));
+        configurer.customCodecs().register(new CborEncoder(wireMappers.mapper(WireFormat.CBOR)));
+    }
+
+    // Spring's CBOR encoder refuses to encode a stream, even one of a single value, which is all a handler returns here
+    private static final class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder(ObjectMapper mapper) {
+            super(mapper, WireFormat.CBOR.mediaType());
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+            ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.evans.consultations.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param maxBodySize  largest request body accepted, whether it is handled here or forwarded to another node; larger
+ *                     bodies are answered with 413
+ * @param maxBatchSize most responses accepted in a single batch; larger batches are answered with 413
+ */
+@ConfigurationProperties(prefix = "consultations.requests")
+public record RequestProperties(
+    @DefaultValue("10MB") DataSize maxBodySize,
+    @DefaultValue("1000") int maxBatchSize
+) {
+
+}
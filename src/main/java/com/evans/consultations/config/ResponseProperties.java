@@ -0,0 +1,19 @@
+package com.evans.consultations.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param minCompressedSize smallest consultation body answered compressed to clients that accept it; smaller bodies
+ *                          barely shrink, and are sent as they are
+ * @param directBuffers     whether Tomcat writes responses through its pooled direct socket buffers, saving a copy of
+ *                          every body into a temporary direct buffer on its way to the socket
+ */
+@ConfigurationProperties(prefix = "consultations.responses")
+public record ResponseProperties(
+    @DefaultValue("1KB") DataSize minCompressedSize,
+    @DefaultValue("true") boolean directBuffers
+) {
+
+}
@@ -0,0 +1,19 @@
+package com.evans.consultations.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TomcatConfig {
+
+    // each connection's socket buffers are taken from, and returned to, the endpoint's channel cache
+    @Bean
+    @ConditionalOnProperty(prefix = "consultations.responses", name = "direct-buffers", matchIfMissing = true)
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> directBufferCustomizer() {
+        return factory -> factory.addConnectorCustomizers(
+            connector -> connector.setProperty("socket.directBuffer", "true"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.evans.consultations.config;
+
+import com.evans.consultations.admission.AdmissionInterceptor;
+import com.evans.consultations.admission.AdmissionProperties;
+import com.evans.consultations.converter.SerializedConsultationMessageConverter;
+import com.evans.consultations.converter.SurveyResponseBatchMessageConverter;
+import com.evans.consultations.converter.SurveyResponseMessageConverter;
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.converter.WireMappers;
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final WireMappers wireMappers;
+    private final ConsultationRepository consultationRepository;
+    private final SurveyResponseReader surveyResponseReader;
+    private final ConsultationMetrics consultationMetrics;
+    private final AdmissionProperties admissionProperties;
+    private final AdmissionInterceptor admissionInterceptor;
+    private final RequestProperties requestProperties;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // ahead of the Jackson converter, which would otherwise bind the polymorphic DTO tree
+        converters.add(0, new SurveyResponseMessageConverter(
+            objectMapper.getFactory(), consultationRepository, surveyResponseReader, consultationMetrics,
+            MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        converters.add(1, new SurveyResponseMessageConverter(
+            wireMappers.mapper(WireFormat.CBOR).getFactory(), consultationRepository, surveyResponseReader,
+            consultationMetrics, WireFormat.CBOR.mediaType()));
+        converters.add(2, new SurveyResponseBatchMessageConverter(
+            objectMapper.getFactory(), consultationRepository, surveyResponseReader, consultationMetrics,
+            requestProperties.maxBatchSize()));
+        converters.add(3, new SerializedConsultationMessageConverter());
+        // for every other body a CBOR client is answered with, configured like the JSON converter
+        converters.add(4, new MappingJackson2CborHttpMessageConverter(wireMappers.mapper(WireFormat.CBOR)));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionProperties.enabled()) {
+            registry.addInterceptor(admissionInterceptor).addPathPatterns("/consultations/**");
+        }
+    }
+}
@@ -1,190 +1,144 @@
 package com.evans.consultations.controller;
 
 import com.evans.consultations.api.ConsultationsApi;
-import com.evans.consultations.exception.ConsultationsException;
-import com.evans.consultations.model.Answer;
-import com.evans.consultations.model.Answer.BooleanAnswer;
-import com.evans.consultations.model.Answer.IntegerAnswer;
-import com.evans.consultations.model.AnswerType;
-import com.evans.consultations.model.AnswerValidator;
-import com.evans.consultations.model.Consultation;
+import com.evans.consultations.controller.ConsultationOperations.Evaluation;
+import com.evans.consultations.converter.ContentCoding;
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.idempotency.SubmissionDeduplicator;
+import com.evans.consultations.journal.ResponseJournal;
+import com.evans.consultations.logging.LogSampler;
+import com.evans.consultations.logging.LogSampler.Endpoint;
+import com.evans.consultations.model.BatchSubmissionResponseDto;
 import com.evans.consultations.model.ConsultationDto;
 import com.evans.consultations.model.ConsultationResponse;
-import com.evans.consultations.model.ConsultationResponse.Status;
 import com.evans.consultations.model.ConsultationResponseDto;
-import com.evans.consultations.model.Question;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.SessionPageDto;
+import com.evans.consultations.model.SessionProgressDto;
 import com.evans.consultations.model.SurveyResponseDto;
-import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.session.ResponseSession;
+import com.evans.consultations.session.SessionStore;
+import com.evans.consultations.stats.SubmissionStatistics;
 import com.evans.consultations.transformer.ConsultationMapper;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationListener;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RestController;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RequiredArgsConstructor
 public class ConsultationController implements ConsultationsApi {
 
-    private final ConsultationRepository consultationRepository;
+    private final ConsultationOperations consultationOperations;
     private final ConsultationMapper consultationMapper;
+    private final LogSampler logSampler;
+    private final ResponseJournal responseJournal;
+    private final SubmissionStatistics submissionStatistics;
+    private final SubmissionDeduplicator submissionDeduplicator;
+    private final SessionStore sessionStore;
 
     @Override
     public ResponseEntity<ConsultationDto> getConsultationById(Long id) {
-        log.info("Received request to get consultation by Id: {}", id);
-        Consultation consultation = consultationRepository.getById(id);
-
-        if (consultation == null) {
-            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Consultation not found");
+        if (log.isInfoEnabled() && logSampler.sample(Endpoint.GET_CONSULTATION)) {
+            log.atInfo()
+                .setMessage("Received request to get consultation")
+                .addKeyValue("consultationId", id)
+                .log();
         }
+        CatalogEntry entry = consultationOperations.catalogEntry(id);
 
-        ConsultationDto consultationDto = consultationMapper.mapToConsultation(consultation);
-
-        return ResponseEntity.ok(consultationDto);
+        return consultationOperations.consultation(entry, WireFormat.accepted(), ContentCoding.accepted());
     }
 
     @Override
-    public ResponseEntity<ConsultationResponseDto> submitResponse(Long id, SurveyResponseDto surveyResponse) {
-        log.info("Received answers for consultation with Id: {}, {}", id, surveyResponse);
-
-        Consultation consultation = consultationRepository.getById(id);
-        if (consultation == null) {
-            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Consultation not found");
-        }
-
-        List<Answer<?>> answers = consultationMapper.mapToAnswers(surveyResponse.getAnswers());
-
-        Map<Long, Answer<?>> answersByQuestionId = answers.stream()
-            .collect(Collectors.toMap(Answer::questionId, Function.identity()));
+    public ResponseEntity<ConsultationStatsDto> getConsultationStats(Long id) {
+        CatalogEntry entry = consultationOperations.catalogEntry(id);
 
-        List<Long> missingQuestionIds = consultation.questions()
-            .stream()
-            .map(Question::id)
-            .filter(questionId -> !answersByQuestionId.containsKey(questionId))
-            .toList();
+        return ResponseEntity.ok(consultationMapper.mapToConsultationStats(submissionStatistics.statsFor(entry)));
+    }
 
-        if (!missingQuestionIds.isEmpty()) {
-            log.error("Missing answers for questions: {}", missingQuestionIds);
-            // could return some custom error code so the UI can know what to display
-            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Missing answers for questions: " + missingQuestionIds);
+    @Override
+    public ResponseEntity<ConsultationResponseDto> submitResponse(Long id, SurveyResponseDto surveyResponse,
+        String idempotencyKey) {
+        if (log.isInfoEnabled() && logSampler.sample(Endpoint.SUBMIT_RESPONSE)) {
+            log.atInfo()
+                .setMessage("Received answers for consultation")
+                .addKeyValue("consultationId", id)
+                .log();
         }
+        // payloads are only ever dumped at DEBUG, and rendered by the appender rather than on this thread
+        log.atDebug()
+            .setMessage("Survey response payload")
+            .addKeyValue("consultationId", id)
+            .addKeyValue("surveyResponse", surveyResponse)
+            .log();
 
-        record QuestionAndAnswer<T extends Answer<?>>(Question<T> question, T answer) {}
-
-        @SuppressWarnings("unchecked")
-        List<QuestionAndAnswer<Answer<?>>> questionAndAnswers = consultation.questions()
-            .stream()
-            .map(question -> new QuestionAndAnswer<>((Question<Answer<?>>) question, answersByQuestionId.get(question.id())))
-            .toList();
+        CatalogEntry entry = surveyResponse instanceof ParsedSurveyResponse parsedSurveyResponse
+            ? parsedSurveyResponse.getCatalogEntry()
+            : consultationOperations.catalogEntry(id);
 
-        // verify that all answers match the answerType that the question expects
-        List<QuestionAndAnswer<Answer<?>>> questionAndAnswersWithNonMatchingType = questionAndAnswers.stream()
-            .filter(questionAndAnswer -> questionAndAnswer.answer().type() != questionAndAnswer.question().answerType())
-            .toList();
+        // a retry is answered with the outcome of the first attempt, without being evaluated or recorded again
+        ConsultationResponseDto responseDto = submissionDeduplicator.submit(id, idempotencyKey, surveyResponse,
+            () -> consultationOperations.respond(journal(consultationOperations.evaluate(entry, surveyResponse))));
 
-        if (!questionAndAnswersWithNonMatchingType.isEmpty()) {
-            log.error("Answers with non-matching types: {}", questionAndAnswersWithNonMatchingType);
-
-            List<Long> questionIds = questionAndAnswersWithNonMatchingType.stream()
-                .map(QuestionAndAnswer::answer)
-                .map(Answer::questionId)
-                .toList();
+        return ResponseEntity.ok(responseDto);
+    }
 
-            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Wrong answer type for following question ids: " + questionIds);
+    @Override
+    public ResponseEntity<BatchSubmissionResponseDto> submitResponses(Long id, List<SurveyResponseDto> surveyResponses) {
+        if (log.isInfoEnabled() && logSampler.sample(Endpoint.SUBMIT_RESPONSES)) {
+            log.atInfo()
+                .setMessage("Received batch of answers for consultation")
+                .addKeyValue("consultationId", id)
+                .addKeyValue("batchSize", surveyResponses.size())
+                .log();
         }
 
-        record QuestionAnswerValidationResult<T extends Answer<?>>(Question<T> question, T answer, boolean valid) {}
+        // resolved once for the whole batch
+        CatalogEntry entry = consultationOperations.catalogEntry(id);
 
-        List<QuestionAnswerValidationResult<Answer<?>>> validationResults = questionAndAnswers.stream()
-            .map(questionAndAnswer -> {
-                Question<Answer<?>> question = questionAndAnswer.question();
-                Answer<?> answer = questionAndAnswer.answer();
-                boolean valid = validateAnswer(question, answer);
-                return new QuestionAnswerValidationResult<>(question, answer, valid);
-            })
-            .toList();
+        return ResponseEntity.ok(consultationOperations.submitBatch(entry, surveyResponses, this::journal));
+    }
 
-        List<QuestionAnswerValidationResult<Answer<?>>> invalidAnswers = validationResults.stream()
-            .filter(questionAnswerValidationResult -> !questionAnswerValidationResult.valid())
-            .toList();
+    @Override
+    public ResponseEntity<SessionProgressDto> startSession(Long id) {
+        // tied to the current version, so a consultation republished mid-session doesn't change under its answers
+        ResponseSession session = sessionStore.start(consultationOperations.catalogEntry(id));
 
-        if (!invalidAnswers.isEmpty()) {
-            // logging of invalid answers, but not returning to user yet
-            log.error("Invalid answers: {}", invalidAnswers);
-        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(consultationMapper.mapToSessionProgress(session.progress(null)));
+    }
 
-        ConsultationResponse response = new ConsultationResponse(invalidAnswers.isEmpty() ? Status.REFERRED : ConsultationResponse.Status.FAILED);
-        ConsultationResponseDto responseDto = consultationMapper.mapToConsultationResponse(response);
+    @Override
+    public ResponseEntity<SessionProgressDto> submitSessionAnswers(Long id, String sessionId, SessionPageDto page) {
+        ResponseSession session = sessionStore.get(id, sessionId);
+        ValidationReport validation = session.answer(
+            consultationMapper.mapToAnswers(page.getAnswers(), session.entry().evaluationPlan()));
 
-        return ResponseEntity.ok(responseDto);
+        return ResponseEntity.ok(consultationMapper.mapToSessionProgress(session.progress(validation)));
     }
 
-    private <T extends Answer<?>> boolean validateAnswer(Question<T> question, T answer) {
-        AnswerValidator<T> answerValidator = question.answerValidator();
-
-        // need to check if the validator is of the correct answerType for the answer
-        boolean validatorIsApplicableType = answerValidator.isApplicableType(answer);
-
-        if (validatorIsApplicableType) {
-            boolean validationResponse = answerValidator.validate(answer);
-            log.info("Validation result for question: {} is: {}", question.text(), validationResponse);
-            return validationResponse;
-        } else {
-            // Should never reach this state, so actually an exception would make more sense
-            // boolean for now as it's within Stream and exception handling is too painful given time constraints
-            // we would validate the answerType of the Validator at the point of creation of the Question
-            log.error("Validator is not of the correct answerType for question: {}", question.text());
-            return false;
-        }
-    }
+    @Override
+    public ResponseEntity<ConsultationResponseDto> finishSession(Long id, String sessionId) {
+        ResponseSession session = sessionStore.get(id, sessionId);
+        ConsultationResponse response = session.finish(
+            (answers, outcome) -> journal(consultationOperations.record(session.entry(), answers, outcome)));
 
-    @Component
-    class StartupApplicationListener implements ApplicationListener<ContextRefreshedEvent> {
-
-        @Override
-        public void onApplicationEvent(ContextRefreshedEvent event) {
-            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
-                .id(1L)
-                .text("Are you over 18 years old?")
-                .answerType(AnswerType.BOOLEAN)
-                .answerValidator(new AnswerValidator.BooleanValidator.MustBeTrueValidator())
-                .build();
-
-            Question<BooleanAnswer> previousReactionCheck = Question.<BooleanAnswer>builder()
-                .id(2L)
-                .text("Have you had a reaction to this medicine before?")
-                .answerType(AnswerType.BOOLEAN)
-                .answerValidator(new AnswerValidator.BooleanValidator.MustBeFalseValidator())
-                .build();
-
-            // Arbitrary example to demonstrate validation of an integer answer
-            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
-                .id(3L)
-                .text("How many times have you taken this medicine?")
-                .answerType(AnswerType.INTEGER)
-                .answerValidator(new AnswerValidator.IntegerValidator.MustBeLessThanValidator(3))
-                .build();
-
-            List<Question<? extends Answer<?>>> questions = List.of(ageCheck, previousReactionCheck, previousMedicineCount);
-
-            Consultation consultation = Consultation.builder()
-                .id(1L)
-                .title("Genovian Pear Allergy")
-                .questions(questions)
-                .build();
-
-            List<Consultation> consultations = List.of(consultation);
-
-            consultations.forEach(consultationRepository::save);
-        }
+        return ResponseEntity.ok(consultationMapper.mapToConsultationResponse(response));
     }
 
+    // waits for room if the journal's writer has fallen a whole queue behind
+    private ConsultationResponse journal(Evaluation evaluation) {
+        responseJournal.append(evaluation.entry(), evaluation.answers(), evaluation.response());
+        return evaluation.response();
+    }
 }
@@ -0,0 +1,239 @@
+package com.evans.consultations.controller;
+
+import com.evans.consultations.config.ResponseProperties;
+import com.evans.consultations.converter.ContentCoding;
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.converter.WireMappers;
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.metrics.ConsultationMetrics.Phase;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.BatchSubmissionResponseDto;
+import com.evans.consultations.model.BatchSubmissionResultDto;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.stats.SubmissionStatistics;
+import com.evans.consultations.transformer.ConsultationMapper;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
+import com.evans.consultations.transformer.RejectedSurveyResponse;
+import com.evans.consultations.transformer.SerializedConsultation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * What the servlet and reactive controllers do alike once a request has been read: resolving and serializing
+ * consultations, and evaluating and recording submissions.
+ * <p>
+ * Nothing here waits on I/O. Journaling a submission can, when the journal's writer has fallen behind, so it is left
+ * to each controller: the servlet one waits on its own thread, the reactive one off its event loop.
+ */
+@Component
+@RequiredArgsConstructor
+class ConsultationOperations {
+
+    private static final String SERIALIZED_CONSULTATION = "serializedConsultation";
+    // what a referral is recorded with, only ever read
+    private static final BitSet NO_INVALID_POSITIONS = new BitSet(0);
+    private static final CacheControl CONSULTATION_CACHE_CONTROL =
+        CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic().mustRevalidate();
+
+    private final ConsultationRepository consultationRepository;
+    private final ConsultationMapper consultationMapper;
+    private final ConsultationMetrics consultationMetrics;
+    private final SubmissionStatistics submissionStatistics;
+    private final WireMappers wireMappers;
+    private final ResponseProperties responseProperties;
+
+    // a submission that has been evaluated and recorded, still to be journaled
+    record Evaluation(CatalogEntry entry, PackedAnswers answers, ConsultationResponse response) {
+
+    }
+
+    CatalogEntry catalogEntry(Long id) {
+        CatalogEntry entry = consultationRepository.getEntryById(id);
+        if (entry == null) {
+            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Consultation not found");
+        }
+        return entry;
+    }
+
+    // a matching If-None-Match is answered with 304 by Spring
+    ResponseEntity<ConsultationDto> consultation(CatalogEntry entry, WireFormat format, ContentCoding coding) {
+        SerializedConsultation consultation = serialized(entry, format, coding);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format.mediaType())
+            .eTag(consultation.getETag())
+            .cacheControl(CONSULTATION_CACHE_CONTROL)
+            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (consultation.getContentCoding() != ContentCoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, consultation.getContentCoding().token());
+        }
+        return response.body(consultation);
+    }
+
+    // serialized once per catalog entry and format, and compressed once per coding
+    private SerializedConsultation serialized(CatalogEntry entry, WireFormat format, ContentCoding coding) {
+        SerializedConsultation identity = entry.cache().computeIfAbsent(SERIALIZED_CONSULTATION + format,
+            () -> serialize(entry, format));
+        if (coding == ContentCoding.IDENTITY
+            || identity.getBody().length < responseProperties.minCompressedSize().toBytes()) {
+            return identity;
+        }
+        return entry.cache().computeIfAbsent(SERIALIZED_CONSULTATION + format + coding, () -> {
+            byte[] body = coding.encode(identity.getBody());
+            return new SerializedConsultation(body, coding, DigestUtils.md5DigestAsHex(body));
+        });
+    }
+
+    private SerializedConsultation serialize(CatalogEntry entry, WireFormat format) {
+        try {
+            byte[] body = wireMappers.mapper(format)
+                .writeValueAsBytes(consultationMapper.mapToConsultation(entry.consultation()));
+            return new SerializedConsultation(body, ContentCoding.IDENTITY, DigestUtils.md5DigestAsHex(body));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Evaluation evaluate(CatalogEntry entry, SurveyResponseDto surveyResponse) {
+        if (surveyResponse instanceof RejectedSurveyResponse rejectedSurveyResponse) {
+            throw rejectedSurveyResponse.getRejection();
+        }
+
+        CatalogEntry evaluatedEntry;
+        PackedAnswers answers;
+        if (surveyResponse instanceof ParsedSurveyResponse parsedSurveyResponse) {
+            // already read straight into the packed answers of the consultation version it was submitted to
+            evaluatedEntry = parsedSurveyResponse.getCatalogEntry();
+            answers = parsedSurveyResponse.getPackedAnswers();
+        } else {
+            long mapStart = System.nanoTime();
+            evaluatedEntry = entry;
+            EvaluationPlan evaluationPlan = entry.evaluationPlan();
+            answers = evaluationPlan.pack(consultationMapper.mapToAnswers(surveyResponse.getAnswers(), evaluationPlan));
+            consultationMetrics.recordPhase(Phase.MAP, mapStart);
+        }
+
+        long validateStart = System.nanoTime();
+        try {
+            ConsultationResponse response = evaluatedEntry.evaluationPlan().evaluate(answers);
+            return record(evaluatedEntry, answers, response);
+        } finally {
+            consultationMetrics.recordPhase(Phase.VALIDATE, validateStart);
+        }
+    }
+
+    // records the outcome of a submission, and explains it if it failed
+    Evaluation record(CatalogEntry entry, PackedAnswers answers, ConsultationResponse response) {
+        // only failures are explained, so a referral is still answered without checking its answers again
+        boolean failed = response.status() == Status.FAILED;
+        BitSet invalidPositions = failed ? entry.evaluationPlan().invalidPositions(answers) : NO_INVALID_POSITIONS;
+
+        consultationMetrics.recordOutcome(entry, response, invalidPositions);
+        submissionStatistics.record(entry, answers, response, invalidPositions);
+
+        return new Evaluation(entry, answers, failed
+            ? new ConsultationResponse(Status.FAILED, entry.evaluationPlan().validate(answers, invalidPositions))
+            : response);
+    }
+
+    ConsultationResponseDto respond(ConsultationResponse response) {
+        long respondStart = System.nanoTime();
+        ConsultationResponseDto mapped = consultationMapper.mapToConsultationResponse(response);
+        consultationMetrics.recordPhase(Phase.RESPOND, respondStart);
+        return mapped;
+    }
+
+    // each response is evaluated on its own, so one that is rejected doesn't fail the rest
+    BatchSubmissionResponseDto submitBatch(CatalogEntry entry, List<SurveyResponseDto> surveyResponses,
+        Consumer<Evaluation> journal) {
+        List<BatchSubmissionResultDto> results = new ArrayList<>(surveyResponses.size());
+        for (int index = 0; index < surveyResponses.size(); index++) {
+            BatchSubmissionResultDto result = new BatchSubmissionResultDto().index(index);
+            try {
+                Evaluation evaluation = evaluate(entry, surveyResponses.get(index));
+                journal.accept(evaluation);
+                result.response(consultationMapper.mapToConsultationResponse(evaluation.response()));
+            } catch (ConsultationsException e) {
+                result.error(consultationMapper.mapToError(e));
+            }
+            results.add(result);
+        }
+        return new BatchSubmissionResponseDto().results(results);
+    }
+
+    // the example consultation, served by whichever stack the application runs on
+    @Component
+    class StartupApplicationListener implements ApplicationListener<ContextRefreshedEvent> {
+
+        @Override
+        public void onApplicationEvent(ContextRefreshedEvent event) {
+            // already there when restarted against a persisted catalog
+            if (consultationRepository.existsById(1L)) {
+                return;
+            }
+
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18 years old?")
+                .answerType(AnswerType.BOOLEAN)
+                .answerValidator(new AnswerValidator.BooleanValidator.MustBeTrueValidator())
+                .build();
+
+            Question<BooleanAnswer> previousReactionCheck = Question.<BooleanAnswer>builder()
+                .id(2L)
+                .text("Have you had a reaction to this medicine before?")
+                .answerType(AnswerType.BOOLEAN)
+                .answerValidator(new AnswerValidator.BooleanValidator.MustBeFalseValidator())
+                .build();
+
+            // Arbitrary example to demonstrate validation of an integer answer
+            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+                .id(3L)
+                .text("How many times have you taken this medicine?")
+                .answerType(AnswerType.INTEGER)
+                .answerValidator(new AnswerValidator.IntegerValidator.MustBeLessThanValidator(3))
+                .build();
+
+            List<Question<? extends Answer<?>>> questions = List.of(ageCheck, previousReactionCheck, previousMedicineCount);
+
+            Consultation consultation = Consultation.builder()
+                .id(1L)
+                .title("Genovian Pear Allergy")
+                .questions(questions)
+                .build();
+
+            List<Consultation> consultations = List.of(consultation);
+
+            consultationRepository.saveAll(consultations);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.evans.consultations.controller;
+
+import com.evans.consultations.api.reactive.ConsultationsApi;
+import com.evans.consultations.controller.ConsultationOperations.Evaluation;
+import com.evans.consultations.converter.ContentCoding;
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.idempotency.SubmissionDeduplicator;
+import com.evans.consultations.journal.ResponseJournal;
+import com.evans.consultations.logging.LogSampler;
+import com.evans.consultations.logging.LogSampler.Endpoint;
+import com.evans.consultations.model.BatchSubmissionResponseDto;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.SessionPageDto;
+import com.evans.consultations.model.SessionProgressDto;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.session.ResponseSession;
+import com.evans.consultations.session.SessionStore;
+import com.evans.consultations.stats.SubmissionStatistics;
+import com.evans.consultations.transformer.ConsultationMapper;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The API served from Netty's event loops, when the application runs with the {@code reactive} profile. Requests are
+ * answered as {@link ConsultationController} answers them, by the same {@link ConsultationOperations}.
+ * <p>
+ * Nothing here blocks an event loop. A submission is journaled without waiting, unless the journal's writer has
+ * fallen a whole queue behind, when it waits for room on a thread that may block; a retry of a submission still
+ * being evaluated is answered once the first attempt completes, without holding a thread meanwhile.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveConsultationController implements ConsultationsApi {
+
+    private final ConsultationOperations consultationOperations;
+    private final ConsultationMapper consultationMapper;
+    private final LogSampler logSampler;
+    private final ResponseJournal responseJournal;
+    private final SubmissionStatistics submissionStatistics;
+    private final SubmissionDeduplicator submissionDeduplicator;
+    private final SessionStore sessionStore;
+
+    @Override
+    public Mono<ResponseEntity<ConsultationDto>> getConsultationById(Long id, ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> {
+            if (log.isInfoEnabled() && logSampler.sample(Endpoint.GET_CONSULTATION)) {
+                log.atInfo()
+                    .setMessage("Received request to get consultation")
+                    .addKeyValue("consultationId", id)
+                    .log();
+            }
+            CatalogEntry entry = consultationOperations.catalogEntry(id);
+
+            HttpHeaders headers = exchange.getRequest().getHeaders();
+            return consultationOperations.consultation(entry,
+                WireFormat.preferred(headers.getFirst(HttpHeaders.ACCEPT)),
+                ContentCoding.preferred(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<ConsultationStatsDto>> getConsultationStats(Long id, ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> {
+            CatalogEntry entry = consultationOperations.catalogEntry(id);
+
+            return ResponseEntity.ok(consultationMapper.mapToConsultationStats(submissionStatistics.statsFor(entry)));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<ConsultationResponseDto>> submitResponse(Long id,
+        Mono<SurveyResponseDto> surveyResponseDto, String idempotencyKey, ServerWebExchange exchange) {
+        return surveyResponseDto.flatMap(surveyResponse -> {
+            if (log.isInfoEnabled() && logSampler.sample(Endpoint.SUBMIT_RESPONSE)) {
+                log.atInfo()
+                    .setMessage("Received answers for consultation")
+                    .addKeyValue("consultationId", id)
+                    .log();
+            }
+            // payloads are only ever dumped at DEBUG, and rendered by the appender rather than on this thread
+            log.atDebug()
+                .setMessage("Survey response payload")
+                .addKeyValue("consultationId", id)
+                .addKeyValue("surveyResponse", surveyResponse)
+                .log();
+
+            CatalogEntry entry = surveyResponse instanceof ParsedSurveyResponse parsedSurveyResponse
+                ? parsedSurveyResponse.getCatalogEntry()
+                : consultationOperations.catalogEntry(id);
+
+            // a retry is answered with the outcome of the first attempt, without being evaluated or recorded again,
+            // and a submission already being journaled isn't abandoned when its client goes away
+            return Mono.fromFuture(submissionDeduplicator.submitAsync(id, idempotencyKey, surveyResponse, () -> {
+                Evaluation evaluation = consultationOperations.evaluate(entry, surveyResponse);
+                ConsultationResponseDto mapped = consultationOperations.respond(evaluation.response());
+                return journal(List.of(evaluation)).thenReturn(mapped).toFuture();
+            }), true);
+        }).map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<BatchSubmissionResponseDto>> submitResponses(Long id,
+        Flux<SurveyResponseDto> surveyResponseDto, ServerWebExchange exchange) {
+        return surveyResponseDto.collectList().flatMap(surveyResponses -> {
+            if (log.isInfoEnabled() && logSampler.sample(Endpoint.SUBMIT_RESPONSES)) {
+                log.atInfo()
+                    .setMessage("Received batch of answers for consultation")
+                    .addKeyValue("consultationId", id)
+                    .addKeyValue("batchSize", surveyResponses.size())
+                    .log();
+            }
+
+            // resolved once for the whole batch
+            CatalogEntry entry = consultationOperations.catalogEntry(id);
+
+            List<Evaluation> evaluations = new ArrayList<>(surveyResponses.size());
+            BatchSubmissionResponseDto batch = consultationOperations.submitBatch(entry, surveyResponses,
+                evaluations::add);
+            return journal(evaluations).thenReturn(ResponseEntity.ok(batch));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<SessionProgressDto>> startSession(Long id, ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> {
+            // tied to the current version, so a consultation republished mid-session doesn't change under its answers
+            ResponseSession session = sessionStore.start(consultationOperations.catalogEntry(id));
+
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(consultationMapper.mapToSessionProgress(session.progress(null)));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<SessionProgressDto>> submitSessionAnswers(Long id, String sessionId,
+        Mono<SessionPageDto> sessionPageDto, ServerWebExchange exchange) {
+        return sessionPageDto.map(page -> {
+            ResponseSession session = sessionStore.get(id, sessionId);
+            ValidationReport validation = session.answer(
+                consultationMapper.mapToAnswers(page.getAnswers(), session.entry().evaluationPlan()));
+
+            return ResponseEntity.ok(consultationMapper.mapToSessionProgress(session.progress(validation)));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<ConsultationResponseDto>> finishSession(Long id, String sessionId,
+        ServerWebExchange exchange) {
+        return Mono.defer(() -> {
+            ResponseSession session = sessionStore.get(id, sessionId);
+            // journaled once the session has been let go, as journaling may have to wait
+            List<Evaluation> recorded = new ArrayList<>(1);
+            ConsultationResponse response = session.finish((answers, outcome) -> {
+                Evaluation evaluation = consultationOperations.record(session.entry(), answers, outcome);
+                recorded.add(evaluation);
+                return evaluation.response();
+            });
+
+            return journal(recorded)
+                .thenReturn(ResponseEntity.ok(consultationMapper.mapToConsultationResponse(response)));
+        });
+    }
+
+    // only a journal whose writer has fallen a whole queue behind is waited for, off the event loop
+    private Mono<Void> journal(List<Evaluation> evaluations) {
+        List<Evaluation> unqueued = new ArrayList<>(0);
+        for (Evaluation evaluation : evaluations) {
+            if (!responseJournal.offer(evaluation.entry(), evaluation.answers(), evaluation.response())) {
+                unqueued.add(evaluation);
+            }
+        }
+        if (unqueued.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> {
+            for (Evaluation evaluation : unqueued) {
+                responseJournal.append(evaluation.entry(), evaluation.answers(), evaluation.response());
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
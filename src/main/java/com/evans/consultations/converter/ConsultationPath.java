@@ -0,0 +1,31 @@
+package com.evans.consultations.converter;
+
+/**
+ * The consultation a request path names, for what has to know it before the request is mapped to its handler, when
+ * the {@code id} path variable can't be read yet: the filters, and the reactive body readers.
+ */
+public final class ConsultationPath {
+
+    private static final String CONSULTATIONS_PATH = "/consultations/";
+
+    private ConsultationPath() {
+    }
+
+    // null when the path doesn't name a consultation, or names it by an invalid id, which is left for the handler
+    public static Long consultationId(String path) {
+        if (!path.startsWith(CONSULTATIONS_PATH)) {
+            return null;
+        }
+        int end = path.indexOf('/', CONSULTATIONS_PATH.length());
+        try {
+            return Long.valueOf(path.substring(CONSULTATIONS_PATH.length(), end < 0 ? path.length() : end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // the consultation itself, rather than its responses, sessions or stats
+    public static boolean isConsultation(String path) {
+        return path.startsWith(CONSULTATIONS_PATH) && path.indexOf('/', CONSULTATIONS_PATH.length()) < 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+final class ConsultationPathVariable {
+
+    private ConsultationPathVariable() {
+    }
+
+    // the handler has been mapped by the time its body is read, so the path variables are already available
+    @SuppressWarnings("unchecked")
+    static CatalogEntry resolveCatalogEntry(ConsultationRepository consultationRepository) {
+        Map<String, String> pathVariables = (Map<String, String>) RequestContextHolder.currentRequestAttributes()
+            .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        Long consultationId;
+        try {
+            consultationId = Long.valueOf(pathVariables.get("id"));
+        } catch (RuntimeException e) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Invalid consultation id");
+        }
+
+        CatalogEntry catalogEntry = consultationRepository.getEntryById(consultationId);
+        if (catalogEntry == null) {
+            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Consultation not found");
+        }
+        return catalogEntry;
+    }
+}
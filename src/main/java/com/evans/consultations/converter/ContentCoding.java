@@ -0,0 +1,104 @@
+package com.evans.consultations.converter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * The content codings consultations are answered with. Compressed variants are encoded once per catalog entry, so they
+ * are compressed as tightly as possible rather than as quickly as possible.
+ */
+public enum ContentCoding {
+
+    IDENTITY("identity"),
+    GZIP("gzip");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    // as it appears in the Content-Encoding header
+    public String token() {
+        return token;
+    }
+
+    public byte[] encode(byte[] body) {
+        if (this == IDENTITY) {
+            return body;
+        }
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new BestGzipOutputStream(encoded)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    // the coding the current servlet request's Accept-Encoding header allows
+    public static ContentCoding accepted() {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+            .getRequest();
+        return preferred(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * The coding an Accept-Encoding header allows. Gzip is used whenever it is accepted, as the compressed variant
+     * costs nothing to produce once cached.
+     */
+    public static ContentCoding preferred(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return IDENTITY;
+        }
+
+        // a coding named explicitly overrides the wildcard, whichever comes first
+        Double gzip = null;
+        Double wildcard = null;
+        for (String range : acceptEncoding.split(",")) {
+            String[] parameters = range.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parameters);
+            if (coding.equals(GZIP.token) || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        double gzipQuality = gzip != null ? gzip : wildcard != null ? wildcard : 0;
+        return gzipQuality > 0 ? GZIP : IDENTITY;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+
+        private BestGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.transformer.SerializedConsultation;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+/**
+ * Writes the cached bytes of a {@link SerializedConsultation}, skipping serialization entirely. The controller has
+ * already serialized it in the {@link WireFormat} the request accepts, and encoded it in the {@link ContentCoding} it
+ * allows, setting the content type and encoding to match.
+ */
+public class SerializedConsultationMessageConverter extends AbstractHttpMessageConverter<SerializedConsultation> {
+
+    public SerializedConsultationMessageConverter() {
+        super(WireFormat.JSON.mediaType(), WireFormat.CBOR.mediaType());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedConsultation.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Long getContentLength(SerializedConsultation consultation, MediaType contentType) {
+        return (long) consultation.getBody().length;
+    }
+
+    @Override
+    protected SerializedConsultation readInternal(Class<? extends SerializedConsultation> clazz,
+        HttpInputMessage inputMessage) {
+        throw new UnsupportedOperationException("Consultations are only ever written");
+    }
+
+    @Override
+    protected void writeInternal(SerializedConsultation consultation, HttpOutputMessage outputMessage)
+        throws IOException {
+        outputMessage.getBody().write(consultation.getBody());
+    }
+}
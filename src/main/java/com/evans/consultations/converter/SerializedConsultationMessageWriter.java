@@ -0,0 +1,42 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.transformer.SerializedConsultation;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes the cached bytes of a {@link SerializedConsultation} for the reactive handlers, as
+ * {@link SerializedConsultationMessageConverter} does for the servlet ones.
+ */
+public class SerializedConsultationMessageWriter implements HttpMessageWriter<SerializedConsultation> {
+
+    private static final List<MediaType> MEDIA_TYPES =
+        List.of(WireFormat.JSON.mediaType(), WireFormat.CBOR.mediaType());
+
+    @Override
+    public List<MediaType> getWritableMediaTypes() {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType elementType, MediaType mediaType) {
+        return SerializedConsultation.class == elementType.toClass()
+            && (mediaType == null || MEDIA_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mediaType)));
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends SerializedConsultation> inputStream, ResolvableType elementType,
+        MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+        return Mono.from(inputStream).flatMap(consultation -> {
+            // the content type and encoding have already been set by the controller
+            message.getHeaders().setContentLength(consultation.getBody().length);
+            return message.writeWith(Mono.just(message.bufferFactory().wrap(consultation.getBody())));
+        });
+    }
+}
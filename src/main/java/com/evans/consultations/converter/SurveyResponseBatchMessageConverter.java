@@ -0,0 +1,88 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.metrics.ConsultationMetrics.Phase;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+
+/**
+ * Reads a JSON array of SurveyResponses with {@link SurveyResponseReader#readBatch}, all against the one consultation
+ * named in the path.
+ */
+public class SurveyResponseBatchMessageConverter extends AbstractGenericHttpMessageConverter<List<SurveyResponseDto>> {
+
+    private final JsonFactory jsonFactory;
+    private final ConsultationRepository consultationRepository;
+    private final SurveyResponseReader surveyResponseReader;
+    private final ConsultationMetrics consultationMetrics;
+    private final int maxBatchSize;
+
+    public SurveyResponseBatchMessageConverter(
+        JsonFactory jsonFactory,
+        ConsultationRepository consultationRepository,
+        SurveyResponseReader surveyResponseReader,
+        ConsultationMetrics consultationMetrics,
+        int maxBatchSize
+    ) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = jsonFactory;
+        this.consultationRepository = consultationRepository;
+        this.surveyResponseReader = surveyResponseReader;
+        this.consultationMetrics = consultationMetrics;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return type instanceof ParameterizedType parameterizedType
+            && parameterizedType.getRawType() == List.class
+            && parameterizedType.getActualTypeArguments()[0] == SurveyResponseDto.class
+            && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public List<SurveyResponseDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+        throws IOException {
+        return readInternal(null, inputMessage);
+    }
+
+    @Override
+    protected List<SurveyResponseDto> readInternal(Class<? extends List<SurveyResponseDto>> clazz,
+        HttpInputMessage inputMessage) throws IOException {
+        CatalogEntry catalogEntry = ConsultationPathVariable.resolveCatalogEntry(consultationRepository);
+
+        long parseStart = System.nanoTime();
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            return surveyResponseReader.readBatch(parser, catalogEntry, maxBatchSize);
+        } finally {
+            consultationMetrics.recordPhase(Phase.PARSE, parseStart);
+        }
+    }
+
+    @Override
+    protected void writeInternal(List<SurveyResponseDto> surveyResponses, Type type, HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("SurveyResponse batches are only ever read");
+    }
+}
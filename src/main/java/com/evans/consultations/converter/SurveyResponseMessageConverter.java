@@ -0,0 +1,73 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.metrics.ConsultationMetrics.Phase;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+
+/**
+ * Reads SurveyResponse request bodies with {@link SurveyResponseReader} instead of binding the polymorphic DTO tree.
+ * One is registered for each {@link WireFormat}, with that format's parser factory.
+ * <p>
+ * The consultation is resolved from the {@code id} path variable before the body is read, so answers are validated
+ * against it while streaming.
+ */
+public class SurveyResponseMessageConverter extends AbstractHttpMessageConverter<SurveyResponseDto> {
+
+    private final JsonFactory jsonFactory;
+    private final ConsultationRepository consultationRepository;
+    private final SurveyResponseReader surveyResponseReader;
+    private final ConsultationMetrics consultationMetrics;
+
+    public SurveyResponseMessageConverter(
+        JsonFactory jsonFactory,
+        ConsultationRepository consultationRepository,
+        SurveyResponseReader surveyResponseReader,
+        ConsultationMetrics consultationMetrics,
+        MediaType... supportedMediaTypes
+    ) {
+        super(supportedMediaTypes);
+        this.jsonFactory = jsonFactory;
+        this.consultationRepository = consultationRepository;
+        this.surveyResponseReader = surveyResponseReader;
+        this.consultationMetrics = consultationMetrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SurveyResponseDto.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SurveyResponseDto readInternal(Class<? extends SurveyResponseDto> clazz, HttpInputMessage inputMessage)
+        throws IOException {
+        CatalogEntry catalogEntry = ConsultationPathVariable.resolveCatalogEntry(consultationRepository);
+
+        long parseStart = System.nanoTime();
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            return new ParsedSurveyResponse(catalogEntry, surveyResponseReader.read(parser, catalogEntry.evaluationPlan()));
+        } finally {
+            consultationMetrics.recordPhase(Phase.PARSE, parseStart);
+        }
+    }
+
+    @Override
+    protected void writeInternal(SurveyResponseDto surveyResponse, HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("SurveyResponse is only ever read");
+    }
+}
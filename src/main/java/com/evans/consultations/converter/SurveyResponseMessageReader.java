@@ -0,0 +1,136 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.metrics.ConsultationMetrics;
+import com.evans.consultations.metrics.ConsultationMetrics.Phase;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
+import com.evans.consultations.transformer.SurveyResponseReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads SurveyResponse request bodies for the reactive handlers with {@link SurveyResponseReader}, as
+ * {@link SurveyResponseMessageConverter} and {@link SurveyResponseBatchMessageConverter} do for the servlet ones. One
+ * is registered for each {@link WireFormat}, with that format's parser factory; a single response is read as a
+ * {@code Mono}, and a batch as a {@code Flux}.
+ * <p>
+ * The body is gathered before it is parsed, so parsing never waits for the rest of it to arrive, and is already
+ * bounded by the request size filter.
+ */
+public class SurveyResponseMessageReader implements HttpMessageReader<SurveyResponseDto> {
+
+    private final JsonFactory jsonFactory;
+    private final ConsultationRepository consultationRepository;
+    private final SurveyResponseReader surveyResponseReader;
+    private final ConsultationMetrics consultationMetrics;
+    private final int maxBatchSize;
+    private final List<MediaType> supportedMediaTypes;
+
+    public SurveyResponseMessageReader(
+        JsonFactory jsonFactory,
+        ConsultationRepository consultationRepository,
+        SurveyResponseReader surveyResponseReader,
+        ConsultationMetrics consultationMetrics,
+        int maxBatchSize,
+        MediaType... supportedMediaTypes
+    ) {
+        this.jsonFactory = jsonFactory;
+        this.consultationRepository = consultationRepository;
+        this.surveyResponseReader = surveyResponseReader;
+        this.consultationMetrics = consultationMetrics;
+        this.maxBatchSize = maxBatchSize;
+        this.supportedMediaTypes = List.of(supportedMediaTypes);
+    }
+
+    @Override
+    public List<MediaType> getReadableMediaTypes() {
+        return supportedMediaTypes;
+    }
+
+    @Override
+    public boolean canRead(ResolvableType elementType, MediaType mediaType) {
+        return SurveyResponseDto.class == elementType.toClass()
+            && (mediaType == null || supportedMediaTypes.stream().anyMatch(supported -> supported.includes(mediaType)));
+    }
+
+    @Override
+    public Mono<SurveyResponseDto> readMono(ResolvableType actualType, ResolvableType elementType,
+        ServerHttpRequest request, ServerHttpResponse response, Map<String, Object> hints) {
+        return Mono.defer(() -> {
+            CatalogEntry catalogEntry = catalogEntry(request);
+            return parse(request, parser -> new ParsedSurveyResponse(catalogEntry,
+                surveyResponseReader.read(parser, catalogEntry.evaluationPlan())));
+        });
+    }
+
+    @Override
+    public Flux<SurveyResponseDto> read(ResolvableType actualType, ResolvableType elementType,
+        ServerHttpRequest request, ServerHttpResponse response, Map<String, Object> hints) {
+        return Mono.defer(() -> {
+            CatalogEntry catalogEntry = catalogEntry(request);
+            return parse(request, parser -> surveyResponseReader.readBatch(parser, catalogEntry, maxBatchSize));
+        }).flatMapIterable(surveyResponses -> surveyResponses);
+    }
+
+    @Override
+    public Mono<SurveyResponseDto> readMono(ResolvableType elementType, ReactiveHttpInputMessage message,
+        Map<String, Object> hints) {
+        throw new UnsupportedOperationException("SurveyResponse is only ever read from a request to a consultation");
+    }
+
+    @Override
+    public Flux<SurveyResponseDto> read(ResolvableType elementType, ReactiveHttpInputMessage message,
+        Map<String, Object> hints) {
+        throw new UnsupportedOperationException("SurveyResponse is only ever read from a request to a consultation");
+    }
+
+    // the consultation is named in the path, which has already been matched to a handler taking its id as a Long
+    private CatalogEntry catalogEntry(ServerHttpRequest request) {
+        Long consultationId = ConsultationPath.consultationId(request.getPath().pathWithinApplication().value());
+        if (consultationId == null) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Invalid consultation id");
+        }
+        CatalogEntry catalogEntry = consultationRepository.getEntryById(consultationId);
+        if (catalogEntry == null) {
+            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Consultation not found");
+        }
+        return catalogEntry;
+    }
+
+    private <T> Mono<T> parse(ServerHttpRequest request, Parse<T> parse) {
+        return DataBufferUtils.join(request.getBody()).map(body -> {
+            long parseStart = System.nanoTime();
+            try (JsonParser parser = jsonFactory.createParser(body.asInputStream(true))) {
+                return parse.apply(parser);
+            } catch (IOException e) {
+                // answered with 400, as the servlet converters' failures are
+                throw new DecodingException("Failed to read survey response", e);
+            } finally {
+                consultationMetrics.recordPhase(Phase.PARSE, parseStart);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Parse<T> {
+
+        T apply(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,72 @@
+package com.evans.consultations.converter;
+
+import com.evans.consultations.exception.ConsultationsException;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * The formats consultations and submissions are exchanged in. JSON is the default; CBOR carries the same structure in
+ * fewer bytes, and is cheaper to parse, for clients that submit in volume.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    // the format the current servlet request's Accept header prefers
+    public static WireFormat accepted() {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+            .getRequest();
+        return preferred(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * The format an Accept header prefers, by quality and then specificity. JSON wins ties, and requests without an
+     * Accept header, so CBOR is only answered to clients that ask for it. A header that accepts neither is answered
+     * with 406.
+     */
+    public static WireFormat preferred(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return JSON;
+        }
+        List<MediaType> ranges = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        MimeTypeUtils.sortBySpecificity(ranges);
+        for (MediaType range : ranges) {
+            for (WireFormat format : values()) {
+                if (range.getQualityValue() > 0 && range.includes(format.mediaType) && !refuses(ranges, format)) {
+                    return format;
+                }
+            }
+        }
+        throw new ConsultationsException(HttpStatus.NOT_ACCEPTABLE, "Consultations can only be answered as "
+            + JSON.mediaType + " or " + CBOR.mediaType);
+    }
+
+    // a format is refused by naming it with a quality of zero
+    private static boolean refuses(List<MediaType> ranges, WireFormat format) {
+        for (MediaType range : ranges) {
+            if (range.getQualityValue() == 0 && range.equalsTypeAndSubtype(format.mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.evans.consultations.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * An object mapper for each {@link WireFormat}, all configured like the application's JSON mapper, so a body reads the
+ * same whichever format it is sent in.
+ * <p>
+ * Not exposed as ObjectMapper beans, which would stand in for the application's own.
+ */
+@Component
+public class WireMappers {
+
+    // indexed by WireFormat ordinal
+    private final ObjectMapper[] mappers = new ObjectMapper[WireFormat.values().length];
+
+    public WireMappers(ObjectMapper objectMapper) {
+        mappers[WireFormat.JSON.ordinal()] = objectMapper;
+        mappers[WireFormat.CBOR.ordinal()] = objectMapper.copyWith(new CBORFactory());
+    }
+
+    public ObjectMapper mapper(WireFormat format) {
+        return mappers[format.ordinal()];
+    }
+}
@@ -0,0 +1,246 @@
+package com.evans.consultations.definitions;
+
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeAfterValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
+import com.evans.consultations.model.Condition;
+import com.evans.consultations.model.Condition.AllOf;
+import com.evans.consultations.model.Condition.AnyOf;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Condition.Not;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File format of a consultation definition, for example:
+ * <pre>
+ * id: 1
+ * title: Genovian Pear Allergy
+ * questions:
+ *   - id: 3
+ *     text: How many times have you taken this medicine?
+ *     answerType: INTEGER
+ *     validator: { type: MustBeLessThan, threshold: 3 }
+ *   - id: 4
+ *     text: How old are you?
+ *     answerType: INTEGER
+ *     validator: { type: MustBeGreaterThan, threshold: 17 }
+ *   - id: 5
+ *     text: Which of these symptoms do you have?
+ *     answerType: MULTI_CHOICE
+ *     options: [ { id: 0, text: Rash }, { id: 1, text: Swelling } ]
+ *     validator: { type: MustNotChooseAnyOf, values: [ 1 ] }
+ * rules:
+ *   - name: Under 65 after previous use
+ *     condition:
+ *       when: { questionId: 3, validator: { type: MustBeGreaterThan, threshold: 0 } }
+ *       then: { questionId: 4, validator: { type: MustBeLessThan, threshold: 65 } }
+ * </pre>
+ */
+public record ConsultationDefinition(
+    Long id,
+    String title,
+    List<QuestionDefinition> questions,
+    List<RuleDefinition> rules,
+    ScoringDefinition scoring
+) {
+
+    Consultation toConsultation() {
+        require(id != null, "Consultation must have an id");
+        require(questions != null && !questions.isEmpty(), "Consultation must have questions");
+
+        return Consultation.builder()
+            .id(id)
+            .title(title)
+            .questions(questions.stream().<Question<? extends Answer<?>>>map(QuestionDefinition::toQuestion).toList())
+            .rules(rules == null ? null : rules.stream().map(RuleDefinition::toRule).toList())
+            .scoring(scoring == null ? null : scoring.toScoring())
+            .build();
+    }
+
+    public record QuestionDefinition(
+        Long id,
+        String text,
+        AnswerType answerType,
+        List<AnswerOption> options,
+        ValidatorDefinition validator
+    ) {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Question<? extends Answer<?>> toQuestion() {
+            require(id != null, "Questions must have an id");
+            require(answerType != null, "Question " + id + " must have an answerType");
+            require(validator != null, "Question " + id + " must have a validator");
+
+            AnswerValidator<?> answerValidator = validator.toValidator();
+            if (answerValidator.applicableType() != answerType) {
+                throw new IllegalArgumentException("Validator " + validator.type() + " does not apply to "
+                    + answerType + " answers, for question " + id);
+            }
+
+            return Question.builder()
+                .id(id)
+                .text(text)
+                .answerType(answerType)
+                .answerValidator((AnswerValidator) answerValidator)
+                .options(options)
+                .build();
+        }
+    }
+
+    public record ValidatorDefinition(
+        String type,
+        BigDecimal threshold,
+        BigDecimal min,
+        BigDecimal max,
+        Set<Integer> values,
+        String date
+    ) {
+
+        AnswerValidator<?> toValidator() {
+            require(type != null, "Validators must have a type");
+            return switch (type) {
+                case "MustBeTrue" -> new MustBeTrueValidator();
+                case "MustBeFalse" -> new MustBeFalseValidator();
+                case "MustBeLessThan" -> new MustBeLessThanValidator(parameter(threshold, "threshold"));
+                case "MustBeGreaterThan" -> new MustBeGreaterThanValidator(parameter(threshold, "threshold"));
+                case "MustBeBetween" -> new MustBeBetweenValidator(parameter(min, "min"), parameter(max, "max"));
+                case "MustBeOneOf" -> new MustBeOneOfValidator(requireValues());
+                case "MustBeWithin" -> new MustBeWithinValidator(decimal(min, "min"), decimal(max, "max"));
+                case "MustChooseOneOf" -> new MustChooseOneOfValidator(requireValues());
+                case "MustNotChooseAnyOf" -> new MustNotChooseAnyOfValidator(requireValues());
+                case "MustBeBefore" -> new MustBeBeforeValidator(requireDate());
+                case "MustBeAfter" -> new MustBeAfterValidator(requireDate());
+                default -> throw new IllegalArgumentException("Unknown validator type: " + type);
+            };
+        }
+
+        private int parameter(BigDecimal value, String name) {
+            require(value != null, type + " needs a " + name);
+            try {
+                return value.intValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(type + " needs a whole number " + name + ", not " + value);
+            }
+        }
+
+        private double decimal(BigDecimal value, String name) {
+            require(value != null, type + " needs a " + name);
+            return value.doubleValue();
+        }
+
+        private Set<Integer> requireValues() {
+            require(values != null && !values.isEmpty(), type + " needs values");
+            return values;
+        }
+
+        private LocalDate requireDate() {
+            require(date != null, type + " needs a date");
+            try {
+                return LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(type + " needs an ISO date, not " + date);
+            }
+        }
+    }
+
+    public record RuleDefinition(
+        String name,
+        ConditionDefinition condition
+    ) {
+
+        Rule toRule() {
+            require(condition != null, "Rule " + name + " must have a condition");
+            return new Rule(name, condition.toCondition());
+        }
+    }
+
+    public record ScoringDefinition(
+        Integer referralThreshold,
+        List<WeightDefinition> weights
+    ) {
+
+        Scoring toScoring() {
+            require(referralThreshold != null, "Scoring must have a referralThreshold");
+            require(weights != null, "Scoring must have weights");
+            return new Scoring(weights.stream().map(WeightDefinition::toWeight).toList(), referralThreshold);
+        }
+    }
+
+    public record WeightDefinition(
+        Integer points,
+        ConditionDefinition condition
+    ) {
+
+        Weight toWeight() {
+            require(points != null && condition != null, "Weights must have points and a condition");
+            return new Weight(condition.toCondition(), points);
+        }
+    }
+
+    /**
+     * Exactly one of: a validator applied to the answer of a question, {@code allOf}, {@code anyOf}, {@code not}, or
+     * {@code when} and {@code then}.
+     */
+    public record ConditionDefinition(
+        Long questionId,
+        ValidatorDefinition validator,
+        List<ConditionDefinition> allOf,
+        List<ConditionDefinition> anyOf,
+        ConditionDefinition not,
+        ConditionDefinition when,
+        ConditionDefinition then
+    ) {
+
+        Condition toCondition() {
+            int forms = (questionId != null || validator != null ? 1 : 0) + (allOf != null ? 1 : 0)
+                + (anyOf != null ? 1 : 0) + (not != null ? 1 : 0) + (when != null || then != null ? 1 : 0);
+            require(forms == 1, "Conditions must be exactly one of a questionId and validator, allOf, anyOf, not, "
+                + "or when and then");
+
+            if (allOf != null) {
+                return new AllOf(allOf.stream().map(ConditionDefinition::toCondition).toList());
+            }
+            if (anyOf != null) {
+                return new AnyOf(anyOf.stream().map(ConditionDefinition::toCondition).toList());
+            }
+            if (not != null) {
+                return new Not(not.toCondition());
+            }
+            if (when != null || then != null) {
+                require(when != null && then != null, "Conditions with when must also have then");
+                return new Implies(when.toCondition(), then.toCondition());
+            }
+
+            require(questionId != null && validator != null, "Conditions on an answer need a questionId and validator");
+            return new Matches(questionId, validator.toValidator());
+        }
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.evans.consultations.definitions;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param directory   directory of consultation definitions, as {@code .yaml}, {@code .yml} or {@code .json} files;
+ *                    when not set, no definitions are loaded
+ * @param settleDelay how long to wait for further changes after a definition changes, so files saved together are
+ *                    published together
+ */
+@ConfigurationProperties(prefix = "consultations.definitions")
+public record DefinitionProperties(
+    Path directory,
+    @DefaultValue("250ms") Duration settleDelay
+) {
+
+}
@@ -0,0 +1,216 @@
+package com.evans.consultations.definitions;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads consultation definitions from a directory, and publishes them again whenever they change.
+ * <p>
+ * Definitions are loaded before the web server starts, and afterwards on a watcher thread of their own, so requests
+ * never wait on parsing or compiling them. Definitions changed together are published to the
+ * {@link ConsultationRepository} in one atomic save. A definition that fails to parse or validate is logged and left
+ * out, keeping the version already published. Submissions in flight carry on against the catalog entry they started
+ * with.
+ * <p>
+ * Deleting a definition file does not remove its consultation.
+ */
+@Slf4j
+@Component
+public class DefinitionWatcher implements SmartLifecycle {
+
+    private final DefinitionProperties definitionProperties;
+    private final ConsultationRepository consultationRepository;
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper yamlMapper = new YAMLMapper();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DefinitionWatcher(DefinitionProperties definitionProperties, ConsultationRepository consultationRepository) {
+        this.definitionProperties = definitionProperties;
+        this.consultationRepository = consultationRepository;
+    }
+
+    @Override
+    public void start() {
+        Path directory = definitionProperties.directory();
+        if (directory == null) {
+            return;
+        }
+
+        try {
+            // registered before the initial load, so a change made during it is not missed
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            publish(definitionFiles(directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch consultation definitions: " + directory, e);
+        }
+
+        watcher = new Thread(this::watch, "definition-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+            watcher.join();
+        } catch (IOException e) {
+            log.warn("Failed to stop watching consultation definitions", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            watchService = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    // ahead of the web server, so consultations are there for the first request
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void watch() {
+        Path directory = definitionProperties.directory();
+        long settleDelayMillis = definitionProperties.settleDelay().toMillis();
+        try {
+            while (true) {
+                Set<Path> changed = new TreeSet<>();
+                WatchKey key = watchService.take();
+                do {
+                    collectChanges(directory, key, changed);
+                    key = watchService.poll(settleDelayMillis, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                if (!changed.isEmpty()) {
+                    publish(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Stopped watching consultation definitions");
+        } catch (IOException | RuntimeException e) {
+            log.error("Stopped watching consultation definitions in {}", directory, e);
+        }
+    }
+
+    private void collectChanges(Path directory, WatchKey key, Set<Path> changed) throws IOException {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(definitionFiles(directory));
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+            if (!isDefinition(file)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                log.info("Consultation definition {} was deleted, its consultation is left published", file);
+                changed.remove(file);
+            } else {
+                changed.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    private void publish(Collection<Path> files) {
+        Map<Long, Path> filesById = new HashMap<>();
+        List<Consultation> changed = new ArrayList<>();
+        for (Path file : files) {
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+
+            Consultation consultation;
+            try {
+                consultation = read(file).toConsultation();
+                // the same checks as when saving, so one bad definition can't hold back the rest
+                EvaluationPlan.compile(consultation);
+            } catch (IOException | RuntimeException e) {
+                log.atError()
+                    .setMessage("Invalid consultation definition, keeping the published version")
+                    // a Path is Iterable, so the structured encoder would write it as a nested array of its names
+                    .addKeyValue("file", file.toString())
+                    .addKeyValue("reason", e.getMessage())
+                    .log();
+                continue;
+            }
+
+            Path duplicate = filesById.putIfAbsent(consultation.id(), file);
+            if (duplicate != null) {
+                log.error("Consultation {} is defined by both {} and {}, ignoring {}",
+                    consultation.id(), duplicate, file, file);
+                continue;
+            }
+            // owned by another node, which publishes it from its own copy of the directory
+            if (!consultationRepository.owns(consultation.id())) {
+                continue;
+            }
+            // republishing an unchanged definition would only bump its version, and invalidate cached copies
+            if (!consultation.equals(consultationRepository.getById(consultation.id()))) {
+                changed.add(consultation);
+            }
+        }
+
+        if (changed.isEmpty()) {
+            return;
+        }
+        consultationRepository.saveAll(changed);
+        log.atInfo()
+            .setMessage("Published consultation definitions")
+            .addKeyValue("consultationIds", changed.stream().map(Consultation::id).toList())
+            .addKeyValue("version", consultationRepository.version())
+            .log();
+    }
+
+    private ConsultationDefinition read(Path file) throws IOException {
+        ObjectMapper mapper = file.getFileName().toString().endsWith(".json") ? jsonMapper : yamlMapper;
+        return mapper.readValue(file.toFile(), ConsultationDefinition.class);
+    }
+
+    private static List<Path> definitionFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(DefinitionWatcher::isDefinition).sorted().toList();
+        }
+    }
+
+    private static boolean isDefinition(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.endsWith(".yaml") || fileName.endsWith(".yml") || fileName.endsWith(".json");
+    }
+}
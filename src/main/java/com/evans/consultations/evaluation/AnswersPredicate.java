@@ -0,0 +1,12 @@
+package com.evans.consultations.evaluation;
+
+/**
+ * A compiled check of a submission's packed answers, indexed by question position.
+ */
+@FunctionalInterface
+interface AnswersPredicate {
+
+    AnswersPredicate ALWAYS = values -> true;
+
+    boolean test(long[] values);
+}
@@ -0,0 +1,334 @@
+package com.evans.consultations.evaluation;
+
+import com.evans.consultations.exception.InvalidSubmissionException;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.model.ValidationReport.InvalidAnswer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable, pre-compiled form of a {@link Consultation}, built once when the consultation is saved.
+ * <p>
+ * Questions are flattened into arrays indexed by their position in the consultation. Answers are packed into
+ * {@link PackedAnswers} buffers of the same shape, so a submission is checked for missing answers, answer types and
+ * validator results in a single pass over primitive arrays.
+ * <p>
+ * Validators, cross-question rules and weighted scoring are compiled by the {@link RuleCompiler} into predicates over
+ * those arrays. A submission is referred only when every validator and rule passes and, if the consultation is
+ * scored, its score reaches the referral threshold.
+ */
+@Slf4j
+public final class EvaluationPlan {
+
+    private static final ConsultationResponse REFERRED = new ConsultationResponse(Status.REFERRED);
+    private static final ConsultationResponse FAILED = new ConsultationResponse(Status.FAILED);
+
+    private final long[] questionIds;
+    private final String[] questionTexts;
+    private final AnswerType[] answerTypes;
+    private final AnswerValidator<Answer<?>>[] validators;
+    private final QuestionIndex questionIndex;
+    private final AnswersPredicate[] validatorChecks;
+    private final String[] ruleNames;
+    private final AnswersPredicate[] rules;
+    // null when the consultation is not scored
+    private final AnswersPredicate[] scoredConditions;
+    private final int[] points;
+    private final int referralThreshold;
+
+    private EvaluationPlan(
+        long[] questionIds,
+        String[] questionTexts,
+        AnswerType[] answerTypes,
+        AnswerValidator<Answer<?>>[] validators,
+        QuestionIndex questionIndex,
+        AnswersPredicate[] validatorChecks,
+        String[] ruleNames,
+        AnswersPredicate[] rules,
+        AnswersPredicate[] scoredConditions,
+        int[] points,
+        int referralThreshold
+    ) {
+        this.questionIds = questionIds;
+        this.questionTexts = questionTexts;
+        this.answerTypes = answerTypes;
+        this.validators = validators;
+        this.questionIndex = questionIndex;
+        this.validatorChecks = validatorChecks;
+        this.ruleNames = ruleNames;
+        this.rules = rules;
+        this.scoredConditions = scoredConditions;
+        this.points = points;
+        this.referralThreshold = referralThreshold;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static EvaluationPlan compile(Consultation consultation) {
+        List<Question<? extends Answer<?>>> questions = consultation.questions();
+        int size = questions.size();
+
+        long[] questionIds = new long[size];
+        String[] questionTexts = new String[size];
+        AnswerType[] answerTypes = new AnswerType[size];
+        AnswerValidator<Answer<?>>[] validators = new AnswerValidator[size];
+        AnswersPredicate[] validatorChecks = new AnswersPredicate[size];
+        long[] offeredOptions = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            Question<? extends Answer<?>> question = questions.get(i);
+            AnswerValidator<? extends Answer<?>> validator = question.answerValidator();
+
+            // a validator for the wrong answer type can never pass, so reject it when the consultation is saved
+            if (validator == null || validator.applicableType() != question.answerType()) {
+                throw new IllegalArgumentException(
+                    "Validator is not of the correct answerType for question: " + question.id());
+            }
+
+            questionIds[i] = question.id();
+            questionTexts[i] = question.text();
+            answerTypes[i] = question.answerType();
+            validators[i] = (AnswerValidator<Answer<?>>) validator;
+            offeredOptions[i] = offeredOptions(question);
+            RuleCompiler.checkOptions(validator, offeredOptions[i], question.id());
+
+            // choosing an option that isn't offered fails the same check as the validator
+            AnswersPredicate validatorCheck = RuleCompiler.compile(validator, i);
+            AnswersPredicate offered = RuleCompiler.offered(question.answerType(), offeredOptions[i], i);
+            validatorChecks[i] = offered == null ? validatorCheck : RuleCompiler.and(offered, validatorCheck);
+        }
+
+        QuestionIndex questionIndex = new QuestionIndex(questionIds);
+        RuleCompiler ruleCompiler = new RuleCompiler(questionIndex, answerTypes, offeredOptions);
+
+        List<Rule> ruleDefinitions = consultation.rules() == null ? List.of() : consultation.rules();
+        String[] ruleNames = new String[ruleDefinitions.size()];
+        AnswersPredicate[] rules = new AnswersPredicate[ruleDefinitions.size()];
+        for (int i = 0; i < rules.length; i++) {
+            ruleNames[i] = ruleDefinitions.get(i).name();
+            rules[i] = ruleCompiler.compile(ruleDefinitions.get(i).condition());
+        }
+
+        Scoring scoring = consultation.scoring();
+        AnswersPredicate[] scoredConditions = null;
+        int[] points = null;
+        if (scoring != null) {
+            scoredConditions = new AnswersPredicate[scoring.weights().size()];
+            points = new int[scoredConditions.length];
+            for (int i = 0; i < scoredConditions.length; i++) {
+                Weight weight = scoring.weights().get(i);
+                scoredConditions[i] = ruleCompiler.compile(weight.condition());
+                points[i] = weight.points();
+            }
+        }
+
+        return new EvaluationPlan(questionIds, questionTexts, answerTypes, validators, questionIndex, validatorChecks,
+            ruleNames, rules, scoredConditions, points, scoring == null ? 0 : scoring.referralThreshold());
+    }
+
+    // a bit per offered option id; choice questions must offer options, and only choice questions can
+    private static long offeredOptions(Question<? extends Answer<?>> question) {
+        boolean choice = question.answerType() == AnswerType.SINGLE_CHOICE
+            || question.answerType() == AnswerType.MULTI_CHOICE;
+        List<AnswerOption> options = question.options() == null ? List.of() : question.options();
+        if (choice == options.isEmpty()) {
+            throw new IllegalArgumentException(choice
+                ? "Choice question must offer options: " + question.id()
+                : "Only choice questions can offer options: " + question.id());
+        }
+
+        long offered = 0L;
+        for (AnswerOption option : options) {
+            if (option.id() < 0 || option.id() > AnswerOption.MAX_ID || (offered >>> option.id() & 1L) != 0L) {
+                throw new IllegalArgumentException("Option ids must be unique and between 0 and " + AnswerOption.MAX_ID
+                    + ", for question: " + question.id());
+            }
+            offered |= 1L << option.id();
+        }
+        return offered;
+    }
+
+    public PackedAnswers newAnswers() {
+        return new PackedAnswers(questionIndex, questionIds.length);
+    }
+
+    public PackedAnswers pack(List<Answer<?>> answers) {
+        PackedAnswers packedAnswers = newAnswers();
+        for (int i = 0, answerCount = answers.size(); i < answerCount; i++) {
+            Answer<?> answer = answers.get(i);
+            // answers to questions outside of the consultation are ignored
+            if (answer != null) {
+                packedAnswers.put(answer.questionId(), answer.type(), answer.packedValue());
+            }
+        }
+        return packedAnswers;
+    }
+
+    public ConsultationResponse evaluate(List<Answer<?>> answers) {
+        return evaluate(pack(answers));
+    }
+
+    public ConsultationResponse evaluate(PackedAnswers answers) {
+        int size = questionIds.length;
+
+        // an incomplete submission is rare enough that a second pass to report everything wrong with it costs little
+        if (answers.answeredCount() != size) {
+            throw invalidSubmission(answers);
+        }
+
+        long[] values = answers.values();
+        boolean allValid = true;
+        for (int position = 0; position < size; position++) {
+            if (answers.type(position) != answerTypes[position]) {
+                throw invalidSubmission(answers);
+            }
+
+            if (allValid && !validatorChecks[position].test(values)) {
+                log.debug("Invalid answer for question: {}", questionTexts[position]);
+                allValid = false;
+            }
+        }
+
+        // rules and scoring only ever look at answers of the right type
+        return allValid && rulesHold(values) && reachesReferralThreshold(values) ? REFERRED : FAILED;
+    }
+
+    /**
+     * Evaluates a complete set of answers of the right types whose validators have already been checked, such as the
+     * answers to a session checked page by page, so only the rules and scoring across questions are left.
+     */
+    public ConsultationResponse evaluateValidated(PackedAnswers answers, boolean allValid) {
+        long[] values = answers.values();
+        return allValid && rulesHold(values) && reachesReferralThreshold(values) ? REFERRED : FAILED;
+    }
+
+    /**
+     * Gathers every problem with a submission in a single pass, rather than stopping at the first one.
+     */
+    public ValidationReport validate(PackedAnswers answers) {
+        return validate(answers, invalidPositions(answers));
+    }
+
+    /**
+     * As {@link #validate(PackedAnswers)}, for a submission whose answers have already been checked against their
+     * validators by {@link #invalidPositions}.
+     */
+    public ValidationReport validate(PackedAnswers answers, BitSet invalidPositions) {
+        List<Long> missing = new ArrayList<>();
+        List<Long> wrongType = new ArrayList<>();
+        List<InvalidAnswer> invalid = new ArrayList<>();
+        long[] values = answers.values();
+
+        for (int position = 0; position < questionIds.length; position++) {
+            if (!answers.isAnswered(position)) {
+                missing.add(questionIds[position]);
+            } else if (answers.type(position) != answerTypes[position]) {
+                wrongType.add(questionIds[position]);
+            } else if (invalidPositions.get(position)) {
+                invalid.add(new InvalidAnswer(questionIds[position], validatorName(position)));
+            }
+        }
+
+        if (!missing.isEmpty() || !wrongType.isEmpty()) {
+            return new ValidationReport(missing, wrongType, invalid, List.of(), null);
+        }
+
+        List<String> unmetRules = new ArrayList<>();
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].test(values)) {
+                unmetRules.add(ruleNames[i]);
+            }
+        }
+        int score = score(values);
+        return new ValidationReport(missing, wrongType, invalid, unmetRules,
+            scoredConditions != null && score < referralThreshold ? score : null);
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public long questionId(int position) {
+        return questionIds[position];
+    }
+
+    public AnswerType answerType(int position) {
+        return answerTypes[position];
+    }
+
+    // only meaningful for an answer of the question's answer type
+    public boolean isValid(PackedAnswers answers, int position) {
+        return validatorChecks[position].test(answers.values());
+    }
+
+    /**
+     * The positions whose answer fails its validator, so a failed submission is only checked once however many times
+     * its failures are recorded and reported. Only meaningful for answers of the right types.
+     */
+    public BitSet invalidPositions(PackedAnswers answers) {
+        long[] values = answers.values();
+        BitSet invalid = new BitSet(validatorChecks.length);
+        for (int position = 0; position < validatorChecks.length; position++) {
+            if (!validatorChecks[position].test(values)) {
+                invalid.set(position);
+            }
+        }
+        return invalid;
+    }
+
+    public String validatorName(int position) {
+        return validators[position].getClass().getSimpleName();
+    }
+
+    public int positionOf(long questionId) {
+        return questionIndex.positionOf(questionId);
+    }
+
+    private boolean rulesHold(long[] values) {
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].test(values)) {
+                log.debug("Rule not met: {}", ruleNames[i]);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean reachesReferralThreshold(long[] values) {
+        if (scoredConditions == null) {
+            return true;
+        }
+
+        int score = score(values);
+        log.debug("Scored {} against referral threshold {}", score, referralThreshold);
+        return score >= referralThreshold;
+    }
+
+    private int score(long[] values) {
+        int score = 0;
+        for (int i = 0; scoredConditions != null && i < scoredConditions.length; i++) {
+            if (scoredConditions[i].test(values)) {
+                score += points[i];
+            }
+        }
+        return score;
+    }
+
+    private InvalidSubmissionException invalidSubmission(PackedAnswers answers) {
+        ValidationReport report = validate(answers);
+        log.debug("Submission could not be evaluated: {}", report.summary());
+        return new InvalidSubmissionException(report);
+    }
+}
@@ -0,0 +1,79 @@
+package com.evans.consultations.evaluation;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.model.AnswerType;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Answers of a single submission, stored by question position as packed primitive values.
+ * <p>
+ * Created through {@link EvaluationPlan#newAnswers()}, so the buffers always match the plan they are evaluated
+ * against.
+ */
+public final class PackedAnswers {
+
+    private final QuestionIndex questionIndex;
+    // null where the question has not been answered
+    private final AnswerType[] types;
+    private final long[] values;
+    private int answeredCount;
+
+    PackedAnswers(QuestionIndex questionIndex, int size) {
+        this.questionIndex = questionIndex;
+        this.types = new AnswerType[size];
+        this.values = new long[size];
+    }
+
+    /**
+     * @return the position of the answered question, or -1 if the question is not part of the consultation
+     */
+    public int put(long questionId, AnswerType type, long packedValue) {
+        int position = questionIndex.positionOf(questionId);
+        if (position < 0) {
+            return -1;
+        }
+
+        if (types[position] != null) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Duplicate answer for question: " + questionId);
+        }
+
+        types[position] = type;
+        values[position] = packedValue;
+        answeredCount++;
+        return position;
+    }
+
+    // for answers that arrive over several requests, where a question can be answered again
+    public void replace(int position, AnswerType type, long packedValue) {
+        if (types[position] == null) {
+            answeredCount++;
+        }
+        types[position] = type;
+        values[position] = packedValue;
+    }
+
+    public boolean isAnswered(int position) {
+        return types[position] != null;
+    }
+
+    public AnswerType type(int position) {
+        return types[position];
+    }
+
+    public long value(int position) {
+        return values[position];
+    }
+
+    // for compiled checks, which read the values by position directly
+    long[] values() {
+        return values;
+    }
+
+    public int answeredCount() {
+        return answeredCount;
+    }
+
+    public int size() {
+        return types.length;
+    }
+}
@@ -0,0 +1,54 @@
+package com.evans.consultations.evaluation;
+
+/**
+ * Open-addressing map from question id to the question's position in its consultation, keyed by primitive longs so
+ * lookups never box.
+ */
+final class QuestionIndex {
+
+    private final long[] keys;
+    // position + 1, so that 0 marks an empty slot
+    private final int[] slots;
+    private final int mask;
+
+    QuestionIndex(long[] questionIds) {
+        int capacity = Integer.highestOneBit(Math.max(2, questionIds.length) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int position = 0; position < questionIds.length; position++) {
+            long questionId = questionIds[position];
+            int slot = slotOf(questionId);
+            while (slots[slot] != 0) {
+                if (keys[slot] == questionId) {
+                    throw new IllegalArgumentException("Duplicate question id: " + questionId);
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = questionId;
+            slots[slot] = position + 1;
+        }
+    }
+
+    int positionOf(long questionId) {
+        int slot = slotOf(questionId);
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[slot] == questionId) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotOf(long questionId) {
+        // murmur3 finalizer, so sequential ids spread over the table
+        long hash = questionId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
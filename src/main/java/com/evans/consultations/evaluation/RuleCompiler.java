@@ -0,0 +1,220 @@
+package com.evans.consultations.evaluation;
+
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeAfterValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
+import com.evans.consultations.model.Condition;
+import com.evans.consultations.model.Condition.AllOf;
+import com.evans.consultations.model.Condition.AnyOf;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Condition.Not;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles validators and conditions into {@link AnswersPredicate}s over packed answers.
+ * <p>
+ * Question ids are resolved to positions and validator parameters are captured as primitives once, at compile time.
+ * Each kind of check gets its own lambda, so evaluating a condition is a tree of small, monomorphic calls rather than
+ * an interpretation of the condition's data.
+ */
+final class RuleCompiler {
+
+    private final QuestionIndex questionIndex;
+    private final AnswerType[] answerTypes;
+    // a bit per option id offered by each choice question
+    private final long[] offeredOptions;
+
+    RuleCompiler(QuestionIndex questionIndex, AnswerType[] answerTypes, long[] offeredOptions) {
+        this.questionIndex = questionIndex;
+        this.answerTypes = answerTypes;
+        this.offeredOptions = offeredOptions;
+    }
+
+    AnswersPredicate compile(Condition condition) {
+        if (condition instanceof Matches matches) {
+            int position = questionIndex.positionOf(matches.questionId());
+            if (position < 0) {
+                throw new IllegalArgumentException("Condition refers to unknown question: " + matches.questionId());
+            }
+            if (matches.validator().applicableType() != answerTypes[position]) {
+                throw new IllegalArgumentException(
+                    "Condition is not of the correct answerType for question: " + matches.questionId());
+            }
+            checkOptions(matches.validator(), offeredOptions[position], matches.questionId());
+            return compile(matches.validator(), position);
+        }
+
+        if (condition instanceof AllOf allOf) {
+            AnswersPredicate[] predicates = compileAll(allOf.conditions());
+            return switch (predicates.length) {
+                case 0 -> AnswersPredicate.ALWAYS;
+                case 1 -> predicates[0];
+                case 2 -> and(predicates[0], predicates[1]);
+                default -> values -> {
+                    for (AnswersPredicate predicate : predicates) {
+                        if (!predicate.test(values)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+            };
+        }
+
+        if (condition instanceof AnyOf anyOf) {
+            AnswersPredicate[] predicates = compileAll(anyOf.conditions());
+            return switch (predicates.length) {
+                case 0 -> values -> false;
+                case 1 -> predicates[0];
+                case 2 -> or(predicates[0], predicates[1]);
+                default -> values -> {
+                    for (AnswersPredicate predicate : predicates) {
+                        if (predicate.test(values)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            };
+        }
+
+        if (condition instanceof Not not) {
+            AnswersPredicate predicate = compile(not.condition());
+            return values -> !predicate.test(values);
+        }
+
+        if (condition instanceof Implies implies) {
+            AnswersPredicate when = compile(implies.when());
+            AnswersPredicate then = compile(implies.then());
+            return values -> !when.test(values) || then.test(values);
+        }
+
+        throw new IllegalArgumentException("Unsupported condition: " + condition);
+    }
+
+    static AnswersPredicate compile(AnswerValidator<?> validator, int position) {
+        // would use switch pattern matching here in newer versions of java
+        if (validator instanceof MustBeTrueValidator) {
+            return values -> values[position] != 0L;
+        }
+
+        if (validator instanceof MustBeFalseValidator) {
+            return values -> values[position] == 0L;
+        }
+
+        if (validator instanceof MustBeLessThanValidator lessThan) {
+            int threshold = lessThan.threshold();
+            return values -> (int) values[position] < threshold;
+        }
+
+        if (validator instanceof MustBeGreaterThanValidator greaterThan) {
+            int threshold = greaterThan.threshold();
+            return values -> (int) values[position] > threshold;
+        }
+
+        if (validator instanceof MustBeBetweenValidator between) {
+            int min = between.min();
+            int max = between.max();
+            return values -> {
+                int value = (int) values[position];
+                return value >= min && value <= max;
+            };
+        }
+
+        if (validator instanceof MustBeOneOfValidator oneOf) {
+            int[] allowed = oneOf.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            return values -> Arrays.binarySearch(allowed, (int) values[position]) >= 0;
+        }
+
+        if (validator instanceof MustBeWithinValidator within) {
+            double min = within.min();
+            double max = within.max();
+            return values -> {
+                double value = Double.longBitsToDouble(values[position]);
+                return value >= min && value <= max;
+            };
+        }
+
+        if (validator instanceof MustChooseOneOfValidator chooseOneOf) {
+            long allowed = mask(chooseOneOf.optionIds());
+            return values -> isOneOf(values[position], allowed);
+        }
+
+        if (validator instanceof MustNotChooseAnyOfValidator notChooseAnyOf) {
+            long disallowed = notChooseAnyOf.mask();
+            return values -> (values[position] & disallowed) == 0L;
+        }
+
+        if (validator instanceof MustBeBeforeValidator before) {
+            long epochDay = before.date().toEpochDay();
+            return values -> values[position] < epochDay;
+        }
+
+        if (validator instanceof MustBeAfterValidator after) {
+            long epochDay = after.date().toEpochDay();
+            return values -> values[position] > epochDay;
+        }
+
+        return values -> validator.validatePacked(values[position]);
+    }
+
+    /**
+     * @return a check that a choice answer only chooses offered options, or null for other answer types
+     */
+    static AnswersPredicate offered(AnswerType answerType, long offered, int position) {
+        return switch (answerType) {
+            case SINGLE_CHOICE -> values -> isOneOf(values[position], offered);
+            case MULTI_CHOICE -> values -> (values[position] & ~offered) == 0L;
+            default -> null;
+        };
+    }
+
+    // a validator choosing options the question doesn't offer would be certain to pass or fail
+    static void checkOptions(AnswerValidator<?> validator, long offered, long questionId) {
+        Set<Integer> optionIds = validator instanceof MustChooseOneOfValidator chooseOneOf ? chooseOneOf.optionIds()
+            : validator instanceof MustNotChooseAnyOfValidator notChooseAnyOf ? notChooseAnyOf.optionIds()
+            : Set.of();
+        if ((mask(optionIds) & ~offered) != 0L) {
+            throw new IllegalArgumentException("Validator refers to options not offered by question: " + questionId);
+        }
+    }
+
+    static AnswersPredicate and(AnswersPredicate first, AnswersPredicate second) {
+        return values -> first.test(values) && second.test(values);
+    }
+
+    private static long mask(Set<Integer> optionIds) {
+        return new MultiChoiceAnswer(0L, optionIds).packedValue();
+    }
+
+    private static boolean isOneOf(long optionId, long optionIds) {
+        return optionId >= 0 && optionId <= AnswerOption.MAX_ID && (optionIds >>> optionId & 1L) != 0L;
+    }
+
+    private AnswersPredicate[] compileAll(List<Condition> conditions) {
+        AnswersPredicate[] predicates = new AnswersPredicate[conditions.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = compile(conditions.get(i));
+        }
+        return predicates;
+    }
+
+    private static AnswersPredicate or(AnswersPredicate first, AnswersPredicate second) {
+        return values -> first.test(values) || second.test(values);
+    }
+}
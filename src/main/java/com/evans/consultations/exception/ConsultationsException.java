@@ -14,4 +14,11 @@ public class ConsultationsException extends RuntimeException {
         this.status = status;
         this.message = message;
     }
+
+    // for exceptions thrown often enough that filling in the stack trace would cost more than handling them
+    protected ConsultationsException(HttpStatus status, String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.status = status;
+        this.message = message;
+    }
 }
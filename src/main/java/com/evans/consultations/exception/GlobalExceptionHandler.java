@@ -1,7 +1,13 @@
 package com.evans.consultations.exception;
 
+import com.evans.consultations.logging.LogRateLimiter;
+import com.evans.consultations.logging.LoggingProperties;
 import com.evans.consultations.model.ErrorDto;
+import com.evans.consultations.transformer.ConsultationMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,20 +16,53 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @Slf4j
 @ControllerAdvice
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    // a burst of bad requests must not turn into a burst of synchronous error logging
+    private final LogRateLimiter logRateLimiter;
+    private final ConsultationMapper consultationMapper;
+
+    public GlobalExceptionHandler(LoggingProperties loggingProperties, ConsultationMapper consultationMapper) {
+        this.logRateLimiter = new LogRateLimiter(loggingProperties.errorsPerSecond());
+        this.consultationMapper = consultationMapper;
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDto> handleException(Exception e) {
-        log.error("Unexpected exception: ", e);
+        if (logRateLimiter.tryAcquire()) {
+            log.atError()
+                .setMessage("Unexpected exception")
+                .addKeyValue("suppressed", logRateLimiter.drainSuppressed())
+                .setCause(e)
+                .log();
+        }
 
         return createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error occurred");
     }
 
     @ExceptionHandler(ConsultationsException.class)
     public ResponseEntity<ErrorDto> handleConsultationsException(ConsultationsException e) {
-        log.error("Consultations exception: {}", e.getMessage());
+        if (logRateLimiter.tryAcquire()) {
+            log.atError()
+                .setMessage("Consultations exception: {}")
+                .addArgument(e.getMessage())
+                .addKeyValue("status", e.getStatus().value())
+                .addKeyValue("suppressed", logRateLimiter.drainSuppressed())
+                .log();
+        }
+
+        // includes the validation report of a submission that could not be evaluated
+        return ResponseEntity.status(e.getStatus()).body(consultationMapper.mapToError(e));
+    }
 
-        return createErrorResponse(e.getStatus(), e.getMessage());
+    // shed load is expected under overload, and is counted by admission control rather than logged
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorDto> handleTooManyRequestsException(TooManyRequestsException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(e.getStatus())
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body(new ErrorDto().message(e.getMessage()));
     }
 
     private ResponseEntity<ErrorDto> createErrorResponse(HttpStatus status, String message) {
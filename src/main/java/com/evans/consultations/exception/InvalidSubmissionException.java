@@ -0,0 +1,19 @@
+package com.evans.consultations.exception;
+
+import com.evans.consultations.model.ValidationReport;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A submission that could not be evaluated, with the report of everything wrong with it.
+ */
+@Getter
+public class InvalidSubmissionException extends ConsultationsException {
+
+    private final ValidationReport validationReport;
+
+    public InvalidSubmissionException(ValidationReport validationReport) {
+        super(HttpStatus.BAD_REQUEST, validationReport.summary(), false);
+        this.validationReport = validationReport;
+    }
+}
@@ -0,0 +1,120 @@
+package com.evans.consultations.exception;
+
+import com.evans.consultations.converter.WireFormat;
+import com.evans.consultations.converter.WireMappers;
+import com.evans.consultations.logging.LogRateLimiter;
+import com.evans.consultations.logging.LoggingProperties;
+import com.evans.consultations.model.ErrorDto;
+import com.evans.consultations.transformer.ConsultationMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers errors raised by the reactive handlers and filters as {@link GlobalExceptionHandler} answers the servlet
+ * ones, in the wire format the request accepts. Spring's own errors, about requests that can't be read or mapped, are
+ * answered with their problem details, as on the servlet stack.
+ * <p>
+ * Ordered ahead of Spring Boot's error handler, which renders errors differently.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Order(-2)
+public class ReactiveExceptionHandler implements WebExceptionHandler {
+
+    // a burst of bad requests must not turn into a burst of synchronous error logging
+    private final LogRateLimiter logRateLimiter;
+    private final ConsultationMapper consultationMapper;
+    private final WireMappers wireMappers;
+
+    public ReactiveExceptionHandler(LoggingProperties loggingProperties, ConsultationMapper consultationMapper,
+        WireMappers wireMappers) {
+        this.logRateLimiter = new LogRateLimiter(loggingProperties.errorsPerSecond());
+        this.consultationMapper = consultationMapper;
+        this.wireMappers = wireMappers;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable e) {
+        if (exchange.getResponse().isCommitted()) {
+            return Mono.error(e);
+        }
+
+        // shed load is expected under overload, and is counted by admission control rather than logged
+        if (e instanceof TooManyRequestsException tooManyRequests) {
+            long retryAfterSeconds = Math.max(1, (tooManyRequests.getRetryAfter().toMillis() + 999) / 1000);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return write(exchange, tooManyRequests.getStatus(), new ErrorDto().message(tooManyRequests.getMessage()));
+        }
+
+        if (e instanceof ConsultationsException consultationsException) {
+            if (logRateLimiter.tryAcquire()) {
+                log.atError()
+                    .setMessage("Consultations exception: {}")
+                    .addArgument(consultationsException.getMessage())
+                    .addKeyValue("status", consultationsException.getStatus().value())
+                    .addKeyValue("suppressed", logRateLimiter.drainSuppressed())
+                    .log();
+            }
+
+            // includes the validation report of a submission that could not be evaluated
+            return write(exchange, consultationsException.getStatus(),
+                consultationMapper.mapToError(consultationsException));
+        }
+
+        if (e instanceof ErrorResponse errorResponse) {
+            exchange.getResponse().getHeaders().addAll(errorResponse.getHeaders());
+            return write(exchange, errorResponse.getStatusCode(), errorResponse.getBody(), WireFormat.JSON,
+                MediaType.APPLICATION_PROBLEM_JSON);
+        }
+
+        if (logRateLimiter.tryAcquire()) {
+            log.atError()
+                .setMessage("Unexpected exception")
+                .addKeyValue("suppressed", logRateLimiter.drainSuppressed())
+                .setCause(e)
+                .log();
+        }
+        return write(exchange, HttpStatus.INTERNAL_SERVER_ERROR, new ErrorDto().message("Unexpected error occurred"));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatusCode status, ErrorDto error) {
+        WireFormat format;
+        try {
+            format = WireFormat.preferred(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT));
+        } catch (ConsultationsException e) {
+            // the error is more use to the client than a 406 would be
+            format = WireFormat.JSON;
+        }
+        return write(exchange, status, error, format, format.mediaType());
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatusCode status, Object body, WireFormat format,
+        MediaType contentType) {
+        byte[] bytes;
+        try {
+            bytes = wireMappers.mapper(format).writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(contentType);
+        response.getHeaders().setContentLength(bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+}
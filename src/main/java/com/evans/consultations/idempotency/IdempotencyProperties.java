@@ -0,0 +1,17 @@
+package com.evans.consultations.idempotency;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maximumSize outcomes remembered at once, after which the least recently used are evicted
+ * @param ttl         how long the outcome of a submission is remembered for retries of it
+ */
+@ConfigurationProperties(prefix = "consultations.idempotency")
+public record IdempotencyProperties(
+    @DefaultValue("100000") long maximumSize,
+    @DefaultValue("24h") Duration ttl
+) {
+
+}
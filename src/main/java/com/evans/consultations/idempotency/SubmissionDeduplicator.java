@@ -0,0 +1,161 @@
+package com.evans.consultations.idempotency;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.transformer.ParsedSurveyResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the outcome of each submission made with an {@code Idempotency-Key}, so a retry is answered with the
+ * outcome of the first attempt instead of being evaluated, and counted, again.
+ * <p>
+ * Outcomes are held as futures, so a retry arriving while the first attempt is still being evaluated waits for it
+ * rather than evaluating it a second time, without evaluating inside the cache's own locks. A submission that fails is
+ * forgotten, so it can be retried. Memory is bounded by the number of outcomes held, and keys are at most 255
+ * characters.
+ * <p>
+ * Each outcome is held with a fingerprint of the answers it was submitted with, so a key reused for different answers
+ * is rejected with 422 rather than answered with another submission's outcome. The fingerprint is taken from the
+ * answers rather than the bytes of the body, so it doesn't depend on the wire format they were sent in.
+ */
+@Component
+public class SubmissionDeduplicator {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Key, Outcome> outcomes;
+
+    public SubmissionDeduplicator(IdempotencyProperties idempotencyProperties, MeterRegistry meterRegistry) {
+        this.outcomes = Caffeine.newBuilder()
+            .maximumSize(idempotencyProperties.maximumSize())
+            .expireAfterWrite(idempotencyProperties.ttl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, "idempotentSubmissions");
+    }
+
+    public ConsultationResponseDto submit(Long consultationId, String idempotencyKey, SurveyResponseDto surveyResponse,
+        Supplier<ConsultationResponseDto> submission) {
+        if (idempotencyKey == null) {
+            return submission.get();
+        }
+        return await(submitAsync(consultationId, idempotencyKey, surveyResponse,
+            () -> CompletableFuture.completedFuture(submission.get())));
+    }
+
+    /**
+     * As {@link #submit}, for a submission that completes later, so that neither it nor a retry waiting for it holds
+     * a thread meanwhile.
+     */
+    public CompletableFuture<ConsultationResponseDto> submitAsync(Long consultationId, String idempotencyKey,
+        SurveyResponseDto surveyResponse, Supplier<? extends CompletionStage<ConsultationResponseDto>> submission) {
+        if (idempotencyKey == null) {
+            return start(submission);
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.failedFuture(new ConsultationsException(HttpStatus.BAD_REQUEST,
+                "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        Key key = new Key(consultationId, idempotencyKey);
+        Outcome outcome = new Outcome(fingerprint(surveyResponse), new CompletableFuture<>());
+        Outcome existing = outcomes.asMap().putIfAbsent(key, outcome);
+        if (existing != null) {
+            if (existing.fingerprint() != outcome.fingerprint()) {
+                return CompletableFuture.failedFuture(new ConsultationsException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key has already been used for different answers"));
+            }
+            return existing.response().copy();
+        }
+
+        // anything thrown has to complete the outcome too, or retries waiting on it would wait forever
+        start(submission).whenComplete((response, failure) -> {
+            if (failure == null) {
+                outcome.response().complete(response);
+            } else {
+                outcomes.asMap().remove(key, outcome);
+                boolean wrapped = failure instanceof CompletionException && failure.getCause() != null;
+                outcome.response().completeExceptionally(wrapped ? failure.getCause() : failure);
+            }
+        });
+        return outcome.response().copy();
+    }
+
+    private static CompletableFuture<ConsultationResponseDto> start(
+        Supplier<? extends CompletionStage<ConsultationResponseDto>> submission) {
+        try {
+            return submission.get().toCompletableFuture();
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static ConsultationResponseDto await(CompletableFuture<ConsultationResponseDto> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            // the first attempt's failure, rethrown as is so it is answered the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static long fingerprint(SurveyResponseDto surveyResponse) {
+        long fingerprint = 1;
+        if (surveyResponse instanceof ParsedSurveyResponse parsed) {
+            // by question id rather than position, so it holds across versions of the consultation
+            EvaluationPlan plan = parsed.getCatalogEntry().evaluationPlan();
+            PackedAnswers answers = parsed.getPackedAnswers();
+            for (int position = 0, size = answers.size(); position < size; position++) {
+                if (answers.isAnswered(position)) {
+                    fingerprint = 31 * fingerprint + mix(plan.questionId(position));
+                    fingerprint = 31 * fingerprint + mix(answers.type(position).ordinal());
+                    fingerprint = 31 * fingerprint + mix(answers.value(position));
+                }
+            }
+            return fingerprint;
+        }
+
+        List<AnswerDto> answers = surveyResponse.getAnswers();
+        if (answers != null) {
+            for (AnswerDto answer : answers) {
+                fingerprint = 31 * fingerprint + mix(answer.hashCode());
+            }
+        }
+        return fingerprint;
+    }
+
+    // spreads each value over all 64 bits, so similar answers don't give similar fingerprints
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private record Key(Long consultationId, String idempotencyKey) {
+
+    }
+
+    private record Outcome(long fingerprint, CompletableFuture<ConsultationResponseDto> response) {
+
+    }
+}
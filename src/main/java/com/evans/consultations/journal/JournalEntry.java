@@ -0,0 +1,20 @@
+package com.evans.consultations.journal;
+
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A submission as read back from the journal.
+ */
+public record JournalEntry(
+    long sequence,
+    Instant submittedAt,
+    long consultationId,
+    long consultationVersion,
+    Status status,
+    List<Answer<?>> answers
+) {
+
+}
@@ -0,0 +1,20 @@
+package com.evans.consultations.journal;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param directory     directory journal segments are written to; when not set, submissions are not journaled
+ * @param segmentSize   size after which the journal rolls over to a new segment, at most 1GB
+ * @param queueCapacity submissions waiting to be written before submitting threads have to wait for the writer
+ */
+@ConfigurationProperties(prefix = "consultations.journal")
+public record JournalProperties(
+    Path directory,
+    @DefaultValue("64MB") DataSize segmentSize,
+    @DefaultValue("65536") int queueCapacity
+) {
+
+}
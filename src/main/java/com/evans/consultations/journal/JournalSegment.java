@@ -0,0 +1,260 @@
+package com.evans.consultations.journal;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.repository.CatalogEntry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A single journal file, named after the sequence number of its first record.
+ * <p>
+ * The file is a header followed by records, each framed as {@code [length][crc32][payload]}. Records are buffered by
+ * {@link #append} and only written and forced to disk together by {@link #commit}. A commit that fails is undone, so
+ * records committed after it are never left behind a torn one.
+ */
+@Slf4j
+final class JournalSegment implements AutoCloseable {
+
+    static final String SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x434E534A;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FRAME_SIZE = 8;
+    // sequence, submission time, consultation id and version, status and answer count
+    private static final int PAYLOAD_HEADER_SIZE = 8 + 8 + 8 + 8 + 1 + 4;
+    // question id, answer type and packed value
+    private static final int ANSWER_SIZE = 8 + 1 + 8;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final AnswerType[] ANSWER_TYPES = AnswerType.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocateDirect(64 * 1024);
+    private long size;
+    private long lastSequence;
+    private long committedSequence;
+    // set when a failed commit could not be undone, after which nothing more can be appended after it
+    private boolean torn;
+
+    private JournalSegment(Path path, FileChannel channel, long size, long lastSequence) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+        this.lastSequence = lastSequence;
+        this.committedSequence = lastSequence;
+    }
+
+    private static Path fileName(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d", firstSequence) + SUFFIX);
+    }
+
+    static JournalSegment create(Path directory, long firstSequence) throws IOException {
+        return create(directory, firstSequence, FileChannel::open);
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, ChannelOpener opener) throws IOException {
+        Path path = fileName(directory, firstSequence);
+        FileChannel channel = opener.open(path,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+        channel.force(true);
+        return new JournalSegment(path, channel, HEADER_SIZE, firstSequence - 1);
+    }
+
+    /**
+     * Opens an existing segment for appending, dropping any records torn by a crash while they were being written.
+     */
+    static JournalSegment recover(Path path, long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        long[] lastSequence = {firstSequence - 1};
+        long validSize = scan(path, channel, (buffer, payload) -> lastSequence[0] = buffer.getLong(payload));
+
+        if (validSize < fileSize) {
+            log.warn("Truncating journal segment {} from {} to {} bytes", path, fileSize, validSize);
+            channel.truncate(validSize);
+            channel.force(true);
+        }
+        return new JournalSegment(path, channel, validSize, lastSequence[0]);
+    }
+
+    static void replay(Path path, Consumer<JournalEntry> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            scan(path, channel, (buffer, payload) -> consumer.accept(decode(buffer, payload)));
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    boolean isTorn() {
+        return torn;
+    }
+
+    void append(long submittedAt, CatalogEntry entry, PackedAnswers answers, Status status) {
+        EvaluationPlan plan = entry.evaluationPlan();
+        int answerCount = plan.size();
+        int length = PAYLOAD_HEADER_SIZE + answerCount * ANSWER_SIZE;
+        ensureCapacity(FRAME_SIZE + length);
+
+        int frame = pending.position();
+        pending.position(frame + FRAME_SIZE)
+            .putLong(++lastSequence)
+            .putLong(submittedAt)
+            .putLong(entry.consultation().id())
+            .putLong(entry.version())
+            .put((byte) status.ordinal())
+            .putInt(answerCount);
+        for (int position = 0; position < answerCount; position++) {
+            pending.putLong(plan.questionId(position))
+                .put((byte) answers.type(position).ordinal())
+                .putLong(answers.value(position));
+        }
+
+        crc.reset();
+        crc.update(pending.slice(frame + FRAME_SIZE, length));
+        pending.putInt(frame, length).putInt(frame + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Writes and forces everything appended since the last commit, with one write and one fsync. On failure, whatever
+     * was written is truncated away and the records appended since the last commit are discarded.
+     */
+    void commit() throws IOException {
+        if (torn) {
+            discard();
+            throw new IOException("Journal segment " + path + " ends with a torn record");
+        }
+        pending.flip();
+        long position = size;
+        try {
+            while (pending.hasRemaining()) {
+                position += channel.write(pending, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            discard();
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                torn = true;
+            }
+            throw e;
+        } finally {
+            pending.clear();
+        }
+        size = position;
+        committedSequence = lastSequence;
+    }
+
+    // drops the records appended since the last commit, reusing their sequence numbers
+    void discard() {
+        pending.clear();
+        lastSequence = committedSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+
+    private void ensureCapacity(int required) {
+        if (pending.remaining() < required) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2, pending.position() + required));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+    }
+
+    private static JournalEntry decode(ByteBuffer buffer, int payload) {
+        int answerCount = buffer.getInt(payload + 33);
+        List<Answer<?>> answers = new ArrayList<>(answerCount);
+        int position = payload + PAYLOAD_HEADER_SIZE;
+        for (int i = 0; i < answerCount; i++, position += ANSWER_SIZE) {
+            long questionId = buffer.getLong(position);
+            long value = buffer.getLong(position + 9);
+            answers.add(Answer.unpack(ANSWER_TYPES[buffer.get(position + 8)], questionId, value));
+        }
+
+        return new JournalEntry(
+            buffer.getLong(payload),
+            Instant.ofEpochMilli(buffer.getLong(payload + 8)),
+            buffer.getLong(payload + 16),
+            buffer.getLong(payload + 24),
+            STATUSES[buffer.get(payload + 32)],
+            answers);
+    }
+
+    /**
+     * Visits each intact record in order, stopping at the first torn or corrupt one.
+     *
+     * @return the size of the file up to the end of the last intact record
+     */
+    private static long scan(Path path, FileChannel channel, RecordVisitor visitor) throws IOException {
+        long fileSize = channel.size();
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, fileSize);
+        if (fileSize < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Not a journal segment: " + path);
+        }
+
+        CRC32 crc = new CRC32();
+        int position = HEADER_SIZE;
+        while (position + FRAME_SIZE <= fileSize) {
+            int length = buffer.getInt(position);
+            if (length < PAYLOAD_HEADER_SIZE || position + FRAME_SIZE + (long) length > fileSize) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + FRAME_SIZE, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            visitor.visit(buffer, position + FRAME_SIZE);
+            position += FRAME_SIZE + length;
+        }
+        return position;
+    }
+
+    @FunctionalInterface
+    interface ChannelOpener {
+
+        FileChannel open(Path path, OpenOption... options) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+
+        void visit(ByteBuffer buffer, int payload);
+    }
+}
@@ -0,0 +1,272 @@
+package com.evans.consultations.journal;
+
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.repository.CatalogEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only journal of evaluated submissions, kept for audit.
+ * <p>
+ * Submitting threads only enqueue their submission. A single writer thread drains the queue in batches, writing each
+ * batch to the current segment with a single write and fsync, so the cost of forcing to disk is shared by everything
+ * submitted while the previous batch was being committed. A submission is acknowledged before it is on disk, so a
+ * crash loses whatever was still queued, as does a batch whose commit fails, which is undone so that later batches
+ * can still be recovered.
+ * <p>
+ * On startup, the last segment is checked and any record torn by a crash is truncated away.
+ */
+@Slf4j
+@Component
+public class ResponseJournal implements AutoCloseable {
+
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final long MAX_SEGMENT_SIZE = DataSize.ofGigabytes(1).toBytes();
+
+    // null when journaling is disabled
+    private final BlockingQueue<PendingEntry> queue;
+    private final Thread writer;
+    private final long segmentSize;
+    private final Path directory;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running = true;
+    // held to enqueue, so nothing is queued once the writer has been told to finish
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    // only used by the writer thread once started
+    private JournalSegment segment;
+
+    public ResponseJournal(JournalProperties journalProperties, MeterRegistry meterRegistry) {
+        this.directory = journalProperties.directory();
+        this.segmentSize = journalProperties.segmentSize().toBytes();
+        if (directory == null) {
+            this.queue = null;
+            this.writer = null;
+            this.commitTimer = null;
+            this.batchSizes = null;
+            return;
+        }
+
+        if (segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Journal segment size must be at most 1GB");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments(directory);
+            if (segments.isEmpty()) {
+                this.segment = JournalSegment.create(directory, 1L);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                this.segment = JournalSegment.recover(last, firstSequence(last));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open response journal: " + directory, e);
+        }
+
+        this.queue = new ArrayBlockingQueue<>(journalProperties.queueCapacity());
+        this.commitTimer = Timer.builder("consultations.journal.commit")
+            .description("Time taken to write and fsync a batch of journaled submissions")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("consultations.journal.batch")
+            .description("Submissions written per journal commit")
+            .register(meterRegistry);
+        Gauge.builder("consultations.journal.queued", queue, BlockingQueue::size)
+            .description("Submissions waiting to be journaled")
+            .register(meterRegistry);
+
+        this.writer = new Thread(this::run, "response-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reads back every intact submission in the journal, in the order they were written.
+     */
+    public static void replay(Path directory, Consumer<JournalEntry> consumer) {
+        try {
+            for (Path segment : segments(directory)) {
+                JournalSegment.replay(segment, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read response journal: " + directory, e);
+        }
+    }
+
+    /**
+     * Queues a submission to be journaled, if the queue has room for it, without ever waiting for the writer.
+     *
+     * @return false if the writer has fallen a whole queue behind, when the submission has to be
+     * {@linkplain #append appended} instead
+     * @throws IllegalStateException if the journal has been closed
+     */
+    public boolean offer(CatalogEntry entry, PackedAnswers answers, ConsultationResponse response) {
+        if (queue == null) {
+            return true;
+        }
+
+        PendingEntry pending = new PendingEntry(System.currentTimeMillis(), entry, answers, response.status());
+        closeLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Response journal has been closed");
+            }
+            return queue.offer(pending);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues a submission to be journaled, waiting for room if the writer has fallen a whole queue behind.
+     *
+     * @throws IllegalStateException if the journal has been closed
+     */
+    public void append(CatalogEntry entry, PackedAnswers answers, ConsultationResponse response) {
+        if (queue == null) {
+            return;
+        }
+
+        PendingEntry pending = new PendingEntry(System.currentTimeMillis(), entry, answers, response.status());
+        closeLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Response journal has been closed");
+            }
+            // only waits when the writer has fallen a whole queue behind
+            if (!queue.offer(pending)) {
+                queue.put(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to journal submission", e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops accepting submissions, and returns once everything already queued has been committed.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        writer.join();
+    }
+
+    private void run() {
+        List<PendingEntry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException | RuntimeException e) {
+                log.atError()
+                    .setMessage("Failed to journal submissions")
+                    .addKeyValue("segment", segment)
+                    .addKeyValue("lost", batch.size())
+                    .setCause(e)
+                    .log();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment {}", segment, e);
+        }
+    }
+
+    private void commit(List<PendingEntry> batch) throws IOException {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0, batchSize = batch.size(); i < batchSize; i++) {
+                PendingEntry pending = batch.get(i);
+                segment.append(pending.submittedAt(), pending.entry(), pending.answers(), pending.status());
+            }
+            segment.commit();
+        } catch (IOException | RuntimeException e) {
+            segment.discard();
+            // a torn record would hide everything written after it in the same segment, so carry on in a new one
+            if (segment.isTorn()) {
+                try {
+                    roll();
+                } catch (IOException rollFailure) {
+                    e.addSuppressed(rollFailure);
+                }
+            }
+            throw e;
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+
+        if (segment.size() >= segmentSize) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        JournalSegment full = segment;
+        segment = JournalSegment.create(directory, full.lastSequence() + 1);
+        full.close();
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        // zero-padded sequence numbers, so names sort in the order segments were written
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(JournalSegment.SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - JournalSegment.SUFFIX.length()));
+    }
+
+    private record PendingEntry(long submittedAt, CatalogEntry entry, PackedAnswers answers, Status status) {
+
+    }
+}
@@ -0,0 +1,51 @@
+package com.evans.consultations.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free limit on how many log lines are written per second.
+ * <p>
+ * The current second and the number of permits taken in it are packed into one long, so taking a permit is a single
+ * compare-and-set. Calls over the limit are counted, and the count is handed to the next caller that gets a permit.
+ */
+public final class LogRateLimiter {
+
+    private final int permitsPerSecond;
+    // second in the upper 32 bits, permits taken in that second in the lower 32 bits
+    private final AtomicLong window = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public boolean tryAcquire() {
+        long second = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        while (true) {
+            long current = window.get();
+            long currentSecond = current >>> 32;
+            int taken = (int) current;
+
+            long next;
+            if (currentSecond != second) {
+                next = (second << 32) | 1L;
+            } else if (taken < permitsPerSecond) {
+                next = current + 1;
+            } else {
+                suppressed.increment();
+                return false;
+            }
+
+            if (window.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // number of calls refused since the last time this was called
+    public long drainSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,31 @@
+package com.evans.consultations.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which requests get logged, per endpoint, so request logging at volume costs a fraction of the calls.
+ */
+@Component
+public class LogSampler {
+
+    public enum Endpoint {
+        GET_CONSULTATION,
+        SUBMIT_RESPONSE,
+        SUBMIT_RESPONSES
+    }
+
+    private final double[] rates = new double[Endpoint.values().length];
+
+    public LogSampler(LoggingProperties loggingProperties) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            Double rate = loggingProperties.sampling() == null ? null : loggingProperties.sampling().get(endpoint);
+            rates[endpoint.ordinal()] = rate == null ? 1.0 : rate;
+        }
+    }
+
+    public boolean sample(Endpoint endpoint) {
+        double rate = rates[endpoint.ordinal()];
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,19 @@
+package com.evans.consultations.logging;
+
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param sampling        fraction of requests logged per endpoint, from 0.0 to 1.0; endpoints not listed are always
+ *                        logged
+ * @param errorsPerSecond errors logged by the exception handler per second, further errors are counted and reported
+ *                        with the next one logged
+ */
+@ConfigurationProperties(prefix = "consultations.logging")
+public record LoggingProperties(
+    Map<LogSampler.Endpoint, Double> sampling,
+    @DefaultValue("20") int errorsPerSecond
+) {
+
+}
@@ -0,0 +1,125 @@
+package com.evans.consultations.metrics;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.repository.CatalogEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for submissions: a timer per phase of the request, outcome counters per consultation, and failure counters
+ * per question and validator.
+ * <p>
+ * Meters are looked up once per consultation version and cached, so recording on the request path does not go
+ * through the registry.
+ */
+@Component
+public class ConsultationMetrics {
+
+    public enum Phase {
+        PARSE,
+        MAP,
+        VALIDATE,
+        RESPOND
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Timer[] phaseTimers;
+    private final Map<Long, ConsultationMeters> metersByConsultationId = new ConcurrentHashMap<>();
+
+    public ConsultationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.phaseTimers = new Timer[Phase.values().length];
+        for (Phase phase : Phase.values()) {
+            phaseTimers[phase.ordinal()] = Timer.builder("consultations.submission.phase")
+                .description("Time spent in each phase of a submission")
+                .tag("phase", phase.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+    }
+
+    public void recordPhase(Phase phase, long startNanos) {
+        phaseTimers[phase.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param invalidPositions positions whose answer failed its validator, only read when the response failed
+     */
+    public void recordOutcome(CatalogEntry entry, ConsultationResponse response, BitSet invalidPositions) {
+        ConsultationMeters meters = metersFor(entry);
+
+        if (response.status() == Status.REFERRED) {
+            meters.referred.increment();
+            return;
+        }
+
+        meters.failed.increment();
+        for (int position = invalidPositions.nextSetBit(0); position >= 0;
+            position = invalidPositions.nextSetBit(position + 1)) {
+            meters.invalidAnswers(position).increment();
+        }
+    }
+
+    private ConsultationMeters metersFor(CatalogEntry entry) {
+        Long consultationId = entry.consultation().id();
+        ConsultationMeters meters = metersByConsultationId.get(consultationId);
+        if (meters != null && meters.evaluationPlan == entry.evaluationPlan()) {
+            return meters;
+        }
+
+        // first submission for this consultation version
+        return metersByConsultationId.compute(consultationId, (id, existing) ->
+            existing != null && existing.evaluationPlan == entry.evaluationPlan()
+                ? existing
+                : new ConsultationMeters(id, entry.evaluationPlan()));
+    }
+
+    private final class ConsultationMeters {
+
+        private final String consultationId;
+        private final EvaluationPlan evaluationPlan;
+        private final Counter referred;
+        private final Counter failed;
+        // created on first failure, as most questions never fail
+        private final Counter[] invalidAnswers;
+
+        private ConsultationMeters(Long consultationId, EvaluationPlan evaluationPlan) {
+            this.consultationId = String.valueOf(consultationId);
+            this.evaluationPlan = evaluationPlan;
+            this.referred = outcomeCounter(Status.REFERRED);
+            this.failed = outcomeCounter(Status.FAILED);
+            this.invalidAnswers = new Counter[evaluationPlan.size()];
+        }
+
+        private Counter outcomeCounter(Status status) {
+            return Counter.builder("consultations.submissions")
+                .description("Evaluated submissions by outcome")
+                .tag("consultation", consultationId)
+                .tag("status", status.name())
+                .register(meterRegistry);
+        }
+
+        private Counter invalidAnswers(int position) {
+            Counter counter = invalidAnswers[position];
+            if (counter == null) {
+                // the registry returns the same counter to racing threads
+                counter = Counter.builder("consultations.answers.invalid")
+                    .description("Answers rejected by their question's validator")
+                    .tag("consultation", consultationId)
+                    .tag("question", String.valueOf(evaluationPlan.questionId(position)))
+                    .tag("validator", evaluationPlan.validatorName(position))
+                    .register(meterRegistry);
+                invalidAnswers[position] = counter;
+            }
+            return counter;
+        }
+    }
+}
@@ -1,33 +1,143 @@
 package com.evans.consultations.model;
 
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
 public sealed interface Answer<T> {
 
     AnswerType type();
 
-    Long questionId();
+    long questionId();
+
+    // the value widened to a long, as held in the evaluation buffers: booleans are 0 or 1, decimals their bits, single
+    // choices the option id, multiple choices a bit per option id, and dates their epoch day
+    long packedValue();
 
-    T value();
+    // the inverse of packedValue, for answers read back from their packed form
+    static Answer<?> unpack(AnswerType type, long questionId, long packedValue) {
+        return switch (type) {
+            case BOOLEAN -> new BooleanAnswer(questionId, packedValue != 0L);
+            case INTEGER -> new IntegerAnswer(questionId, (int) packedValue);
+            case DECIMAL -> new DecimalAnswer(questionId, Double.longBitsToDouble(packedValue));
+            case SINGLE_CHOICE -> new SingleChoiceAnswer(questionId, (int) packedValue);
+            case MULTI_CHOICE -> new MultiChoiceAnswer(questionId, MultiChoiceAnswer.unpackOptionIds(packedValue));
+            case DATE -> new DateAnswer(questionId, LocalDate.ofEpochDay(packedValue));
+        };
+    }
 
     record BooleanAnswer(
-        Long questionId,
-        Boolean value
+        long questionId,
+        boolean value
     ) implements Answer<Boolean> {
 
         @Override
         public AnswerType type() {
             return AnswerType.BOOLEAN;
         }
+
+        @Override
+        public long packedValue() {
+            return value ? 1L : 0L;
+        }
     }
 
     record IntegerAnswer(
-        Long questionId,
-        Integer value
+        long questionId,
+        int value
     ) implements Answer<Integer> {
 
         @Override
         public AnswerType type() {
             return AnswerType.INTEGER;
         }
+
+        @Override
+        public long packedValue() {
+            return value;
+        }
     }
 
+    record DecimalAnswer(
+        long questionId,
+        double value
+    ) implements Answer<Double> {
+
+        @Override
+        public AnswerType type() {
+            return AnswerType.DECIMAL;
+        }
+
+        @Override
+        public long packedValue() {
+            return Double.doubleToRawLongBits(value);
+        }
+    }
+
+    // the id of the chosen option
+    record SingleChoiceAnswer(
+        long questionId,
+        int value
+    ) implements Answer<Integer> {
+
+        @Override
+        public AnswerType type() {
+            return AnswerType.SINGLE_CHOICE;
+        }
+
+        @Override
+        public long packedValue() {
+            return value;
+        }
+    }
+
+    // the ids of the chosen options
+    record MultiChoiceAnswer(
+        long questionId,
+        Set<Integer> value
+    ) implements Answer<Set<Integer>> {
+
+        public MultiChoiceAnswer {
+            value = Set.copyOf(value);
+        }
+
+        @Override
+        public AnswerType type() {
+            return AnswerType.MULTI_CHOICE;
+        }
+
+        // ids that can never be offered set the top bit, which no question's options include
+        @Override
+        public long packedValue() {
+            long packed = 0L;
+            for (int optionId : value) {
+                packed |= optionId >= 0 && optionId <= AnswerOption.MAX_ID ? 1L << optionId : Long.MIN_VALUE;
+            }
+            return packed;
+        }
+
+        static Set<Integer> unpackOptionIds(long packedValue) {
+            Set<Integer> optionIds = new HashSet<>();
+            for (long remaining = packedValue; remaining != 0L; remaining &= remaining - 1) {
+                optionIds.add(Long.numberOfTrailingZeros(remaining));
+            }
+            return optionIds;
+        }
+    }
+
+    record DateAnswer(
+        long questionId,
+        LocalDate value
+    ) implements Answer<LocalDate> {
+
+        @Override
+        public AnswerType type() {
+            return AnswerType.DATE;
+        }
+
+        @Override
+        public long packedValue() {
+            return value.toEpochDay();
+        }
+    }
 }
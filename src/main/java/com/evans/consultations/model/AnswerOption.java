@@ -0,0 +1,13 @@
+package com.evans.consultations.model;
+
+/**
+ * An option offered by a choice question. Ids run from 0 to 62, so a set of chosen options packs into a single long,
+ * with the top bit left to mark ids that can never have been offered.
+ */
+public record AnswerOption(
+    int id,
+    String text
+) {
+
+    public static final int MAX_ID = 62;
+}
@@ -1,6 +1,39 @@
 package com.evans.consultations.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stored and dispatched on by ordinal, so new answer types must only ever be appended.
+ */
 public enum AnswerType {
-    BOOLEAN,
-    INTEGER
+    BOOLEAN("BooleanAnswer"),
+    INTEGER("IntegerAnswer"),
+    DECIMAL("DecimalAnswer"),
+    SINGLE_CHOICE("SingleChoiceAnswer"),
+    MULTI_CHOICE("MultiChoiceAnswer"),
+    DATE("DateAnswer");
+
+    private static final Map<String, AnswerType> BY_DISCRIMINATOR = new HashMap<>();
+
+    static {
+        for (AnswerType type : values()) {
+            BY_DISCRIMINATOR.put(type.name(), type);
+            BY_DISCRIMINATOR.put(type.schemaName, type);
+        }
+    }
+
+    private final String schemaName;
+
+    AnswerType(String schemaName) {
+        this.schemaName = schemaName;
+    }
+
+    /**
+     * @return the answer type named by an answer's {@code type}, or null if there is none; the generated client writes
+     * the schema names, other clients the AnswerType values
+     */
+    public static AnswerType fromDiscriminator(String discriminator) {
+        return BY_DISCRIMINATOR.get(discriminator);
+    }
 }
@@ -1,37 +1,53 @@
 package com.evans.consultations.model;
 
 import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
 import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
+import java.time.LocalDate;
+import java.util.Set;
 
 sealed public interface AnswerValidator<T extends Answer<?>> {
 
-    default boolean isApplicableType(T answer) {
-        return answer.type() == applicableType();
-    }
-
+    // answers are only ever validated against the answer type of their question, which is checked once per question
     AnswerType applicableType();
 
     boolean validate(T answer);
 
+    // validates a value in its packed form, see Answer#packedValue
+    boolean validatePacked(long packedValue);
+
     sealed interface BooleanValidator extends AnswerValidator<BooleanAnswer> {
 
         default AnswerType applicableType() {
             return AnswerType.BOOLEAN;
         }
 
+        boolean validate(boolean value);
+
+        default boolean validate(BooleanAnswer answer) {
+            return validate(answer.value());
+        }
+
+        default boolean validatePacked(long packedValue) {
+            return validate(packedValue != 0L);
+        }
+
         record MustBeTrueValidator() implements BooleanValidator {
 
             @Override
-            public boolean validate(BooleanAnswer answer) {
-                return answer.value();
+            public boolean validate(boolean value) {
+                return value;
             }
         }
 
         record MustBeFalseValidator() implements BooleanValidator {
 
             @Override
-            public boolean validate(BooleanAnswer answer) {
-                return !answer.value();
+            public boolean validate(boolean value) {
+                return !value;
             }
         }
     }
@@ -42,19 +58,168 @@ sealed public interface AnswerValidator<T extends Answer<?>> {
             return AnswerType.INTEGER;
         }
 
+        boolean validate(int value);
+
+        default boolean validate(IntegerAnswer answer) {
+            return validate(answer.value());
+        }
+
+        default boolean validatePacked(long packedValue) {
+            return validate((int) packedValue);
+        }
+
         record MustBeLessThanValidator(int threshold) implements IntegerValidator {
 
             @Override
-            public boolean validate(IntegerAnswer answer) {
-                return answer.value() < threshold;
+            public boolean validate(int value) {
+                return value < threshold;
             }
         }
 
         record MustBeGreaterThanValidator(int threshold) implements IntegerValidator {
 
             @Override
-            public boolean validate(IntegerAnswer answer) {
-                return answer.value() > threshold;
+            public boolean validate(int value) {
+                return value > threshold;
+            }
+        }
+
+        // inclusive of both bounds
+        record MustBeBetweenValidator(int min, int max) implements IntegerValidator {
+
+            @Override
+            public boolean validate(int value) {
+                return value >= min && value <= max;
+            }
+        }
+
+        record MustBeOneOfValidator(Set<Integer> values) implements IntegerValidator {
+
+            public MustBeOneOfValidator {
+                values = Set.copyOf(values);
+            }
+
+            @Override
+            public boolean validate(int value) {
+                return values.contains(value);
+            }
+        }
+    }
+
+    sealed interface DecimalValidator extends AnswerValidator<DecimalAnswer> {
+
+        default AnswerType applicableType() {
+            return AnswerType.DECIMAL;
+        }
+
+        boolean validate(double value);
+
+        default boolean validate(DecimalAnswer answer) {
+            return validate(answer.value());
+        }
+
+        default boolean validatePacked(long packedValue) {
+            return validate(Double.longBitsToDouble(packedValue));
+        }
+
+        // inclusive of both bounds
+        record MustBeWithinValidator(double min, double max) implements DecimalValidator {
+
+            @Override
+            public boolean validate(double value) {
+                return value >= min && value <= max;
+            }
+        }
+    }
+
+    sealed interface SingleChoiceValidator extends AnswerValidator<SingleChoiceAnswer> {
+
+        default AnswerType applicableType() {
+            return AnswerType.SINGLE_CHOICE;
+        }
+
+        boolean validate(int optionId);
+
+        default boolean validate(SingleChoiceAnswer answer) {
+            return validate(answer.value());
+        }
+
+        default boolean validatePacked(long packedValue) {
+            return validate((int) packedValue);
+        }
+
+        record MustChooseOneOfValidator(Set<Integer> optionIds) implements SingleChoiceValidator {
+
+            public MustChooseOneOfValidator {
+                optionIds = Set.copyOf(optionIds);
+            }
+
+            @Override
+            public boolean validate(int optionId) {
+                return optionIds.contains(optionId);
+            }
+        }
+    }
+
+    sealed interface MultiChoiceValidator extends AnswerValidator<MultiChoiceAnswer> {
+
+        default AnswerType applicableType() {
+            return AnswerType.MULTI_CHOICE;
+        }
+
+        // a bit per chosen option id, see MultiChoiceAnswer#packedValue
+        boolean validatePacked(long chosen);
+
+        default boolean validate(MultiChoiceAnswer answer) {
+            return validatePacked(answer.packedValue());
+        }
+
+        record MustNotChooseAnyOfValidator(Set<Integer> optionIds) implements MultiChoiceValidator {
+
+            public MustNotChooseAnyOfValidator {
+                optionIds = Set.copyOf(optionIds);
+            }
+
+            public long mask() {
+                return new MultiChoiceAnswer(0L, optionIds).packedValue();
+            }
+
+            @Override
+            public boolean validatePacked(long chosen) {
+                return (chosen & mask()) == 0L;
+            }
+        }
+    }
+
+    sealed interface DateValidator extends AnswerValidator<DateAnswer> {
+
+        default AnswerType applicableType() {
+            return AnswerType.DATE;
+        }
+
+        boolean validate(LocalDate value);
+
+        default boolean validate(DateAnswer answer) {
+            return validate(answer.value());
+        }
+
+        default boolean validatePacked(long packedValue) {
+            return validate(LocalDate.ofEpochDay(packedValue));
+        }
+
+        record MustBeBeforeValidator(LocalDate date) implements DateValidator {
+
+            @Override
+            public boolean validate(LocalDate value) {
+                return value.isBefore(date);
+            }
+        }
+
+        record MustBeAfterValidator(LocalDate date) implements DateValidator {
+
+            @Override
+            public boolean validate(LocalDate value) {
+                return value.isAfter(date);
             }
         }
     }
@@ -0,0 +1,7 @@
+package com.evans.consultations.model;
+
+// implemented by the generated AnswerDto, whose subtypes all have a question id, so it can be read without knowing which
+public interface AnsweredQuestionDto {
+
+    Long getQuestionId();
+}
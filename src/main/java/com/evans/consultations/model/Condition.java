@@ -0,0 +1,40 @@
+package com.evans.consultations.model;
+
+import java.util.List;
+
+/**
+ * A condition on the answers to a consultation, defined as data and compiled into its evaluation plan when the
+ * consultation is saved.
+ * <p>
+ * Conditions on a single answer reuse the {@link AnswerValidator}s of questions, so "if Q2 is true then Q3 is less
+ * than 1" is {@code new Implies(new Matches(2, new MustBeTrueValidator()), new Matches(3, new
+ * MustBeLessThanValidator(1)))}.
+ */
+sealed public interface Condition {
+
+    record Matches(long questionId, AnswerValidator<?> validator) implements Condition {
+
+    }
+
+    record AllOf(List<Condition> conditions) implements Condition {
+
+        public AllOf {
+            conditions = List.copyOf(conditions);
+        }
+    }
+
+    record AnyOf(List<Condition> conditions) implements Condition {
+
+        public AnyOf {
+            conditions = List.copyOf(conditions);
+        }
+    }
+
+    record Not(Condition condition) implements Condition {
+
+    }
+
+    record Implies(Condition when, Condition then) implements Condition {
+
+    }
+}
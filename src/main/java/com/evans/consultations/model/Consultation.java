@@ -7,7 +7,10 @@ import lombok.Builder;
 public record Consultation(
     Long id,
     String title,
-    List<Question<? extends Answer<?>>> questions
+    List<Question<? extends Answer<?>>> questions,
+    // both optional
+    List<Rule> rules,
+    Scoring scoring
 ) {
 
 }
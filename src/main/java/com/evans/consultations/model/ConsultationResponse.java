@@ -1,6 +1,13 @@
 package com.evans.consultations.model;
 
-public record ConsultationResponse(Status status) {
+/**
+ * @param validation null unless the submission failed and the reasons why were asked for
+ */
+public record ConsultationResponse(Status status, ValidationReport validation) {
+
+    public ConsultationResponse(Status status) {
+        this(status, null);
+    }
 
     public enum Status {
         FAILED,
@@ -1,5 +1,6 @@
 package com.evans.consultations.model;
 
+import java.util.List;
 import lombok.Builder;
 
 @Builder
@@ -7,7 +8,9 @@ public record Question<T extends Answer<?>>(
     Long id,
     String text,
     AnswerType answerType,
-    AnswerValidator<T> answerValidator
+    AnswerValidator<T> answerValidator,
+    // only for choice questions
+    List<AnswerOption> options
 ) {
 
 }
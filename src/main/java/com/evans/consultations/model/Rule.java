@@ -0,0 +1,12 @@
+package com.evans.consultations.model;
+
+/**
+ * A condition across the answers to a consultation that must hold, in addition to each question's validator, for a
+ * submission to be referred.
+ */
+public record Rule(
+    String name,
+    Condition condition
+) {
+
+}
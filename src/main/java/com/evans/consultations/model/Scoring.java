@@ -0,0 +1,21 @@
+package com.evans.consultations.model;
+
+import java.util.List;
+
+/**
+ * Weighted scoring of a submission that has passed every validator and rule. It is only referred when the points of
+ * the conditions that hold add up to at least the referral threshold.
+ */
+public record Scoring(
+    List<Weight> weights,
+    int referralThreshold
+) {
+
+    public Scoring {
+        weights = List.copyOf(weights);
+    }
+
+    public record Weight(Condition condition, int points) {
+
+    }
+}
@@ -0,0 +1,41 @@
+package com.evans.consultations.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every problem found with a submission, so they can all be fixed before it is submitted again.
+ * <p>
+ * Rules and scoring are only checked once every question has an answer of the right type, so a submission that is
+ * incomplete never lists unmet rules or a score.
+ *
+ * @param score null unless the consultation is scored and the submission fell short of its referral threshold
+ */
+public record ValidationReport(
+    List<Long> missingQuestionIds,
+    List<Long> wrongTypeQuestionIds,
+    List<InvalidAnswer> invalidAnswers,
+    List<String> unmetRules,
+    Integer score
+) {
+
+    public boolean isComplete() {
+        return missingQuestionIds.isEmpty() && wrongTypeQuestionIds.isEmpty();
+    }
+
+    // the message a submission that could not be evaluated is rejected with
+    public String summary() {
+        List<String> problems = new ArrayList<>(2);
+        if (!missingQuestionIds.isEmpty()) {
+            problems.add("Missing answers for questions: " + missingQuestionIds);
+        }
+        if (!wrongTypeQuestionIds.isEmpty()) {
+            problems.add("Wrong answer type for following question ids: " + wrongTypeQuestionIds);
+        }
+        return String.join("; ", problems);
+    }
+
+    public record InvalidAnswer(long questionId, String validator) {
+
+    }
+}
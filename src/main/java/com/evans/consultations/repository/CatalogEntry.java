@@ -0,0 +1,20 @@
+package com.evans.consultations.repository;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Consultation;
+
+/**
+ * A consultation as published in a catalog snapshot, together with its compiled plan and the catalog version it was
+ * published in. Entries are immutable, so a request holding one sees the same consultation from start to finish.
+ */
+public record CatalogEntry(
+    Consultation consultation,
+    EvaluationPlan evaluationPlan,
+    long version,
+    EntryCache cache
+) {
+
+    public CatalogEntry(Consultation consultation, EvaluationPlan evaluationPlan, long version) {
+        this(consultation, evaluationPlan, version, new EntryCache());
+    }
+}
@@ -0,0 +1,497 @@
+package com.evans.consultations.repository;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeAfterValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
+import com.evans.consultations.model.Condition;
+import com.evans.consultations.model.Condition.AllOf;
+import com.evans.consultations.model.Condition.AnyOf;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Condition.Not;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, memory-mapped catalog of consultations.
+ * <p>
+ * The file is a header followed by records, each framed as {@code [length][crc32][payload]}. A payload starts with its
+ * kind and the catalog version it was written under; {@code PUT} records go on to hold a whole consultation, and a
+ * {@code CLEAR} record drops everything written before it. Opening the file only walks the record frames to find the
+ * latest record of each consultation; consultations are decoded from the mapping when they are first looked up.
+ * <p>
+ * Rules and scoring follow the questions of a consultation, then the options of each question. The format version in
+ * the header is raised whenever the layout of a record changes, and a file written in any other version is rejected
+ * rather than read, so it has to be removed and the catalog saved again.
+ * <p>
+ * A single mapping limits the file to 2GB, and superseded records are never compacted away.
+ */
+@Slf4j
+final class CatalogFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x434E534C;
+    // 2 added rules, scoring and question options, and dropped the boolean validators' unused parameter
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int FRAME_SIZE = 8;
+
+    private static final byte PUT = 1;
+    private static final byte CLEAR = 2;
+
+    private static final byte MUST_BE_TRUE = 1;
+    private static final byte MUST_BE_FALSE = 2;
+    private static final byte MUST_BE_LESS_THAN = 3;
+    private static final byte MUST_BE_GREATER_THAN = 4;
+    private static final byte MUST_BE_BETWEEN = 5;
+    private static final byte MUST_BE_ONE_OF = 6;
+    private static final byte MUST_BE_WITHIN = 7;
+    private static final byte MUST_CHOOSE_ONE_OF = 8;
+    private static final byte MUST_NOT_CHOOSE_ANY_OF = 9;
+    private static final byte MUST_BE_BEFORE = 10;
+    private static final byte MUST_BE_AFTER = 11;
+
+    private static final byte MATCHES = 1;
+    private static final byte ALL_OF = 2;
+    private static final byte ANY_OF = 3;
+    private static final byte NOT = 4;
+    private static final byte IMPLIES = 5;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<Long, Long> offsetsById;
+    private final long version;
+    // remapped after every append, and published to readers by the repository's snapshot
+    private volatile MappedByteBuffer mapped;
+
+    private CatalogFile(Path path, FileChannel channel, Map<Long, Long> offsetsById, long version) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.offsetsById = offsetsById;
+        this.version = version;
+        this.mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    static CatalogFile open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+                channel.force(true);
+            }
+            return scan(path, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open consultation catalog: " + path, e);
+        }
+    }
+
+    private static CatalogFile scan(Path path, FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Consultation catalog is too large to map: " + path);
+        }
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a consultation catalog: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Consultation catalog " + path + " is in format version "
+                + buffer.getInt(4) + ", but only version " + FORMAT_VERSION + " can be read");
+        }
+
+        Map<Long, Long> offsetsById = new HashMap<>();
+        long version = 0L;
+        int position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position + FRAME_SIZE <= size) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + FRAME_SIZE + (long) length > size) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + FRAME_SIZE, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            int payload = position + FRAME_SIZE;
+            version = Math.max(version, buffer.getLong(payload + 1));
+            if (buffer.get(payload) == CLEAR) {
+                offsetsById.clear();
+            } else {
+                offsetsById.put(buffer.getLong(payload + 9), (long) position);
+            }
+            position = payload + length;
+        }
+
+        // a record torn by a crash while appending was never acknowledged, so it is dropped
+        if (position < size) {
+            log.warn("Truncating consultation catalog {} from {} to {} bytes", path, size, position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+
+        return new CatalogFile(path, channel, offsetsById, version);
+    }
+
+    long version() {
+        return version;
+    }
+
+    // offsets of the latest record of each consultation, as of opening the file
+    Map<Long, Long> offsetsById() {
+        return offsetsById;
+    }
+
+    /**
+     * Appends the consultations under the given version, returning the offset of each one's record.
+     */
+    Map<Long, Long> append(long version, Collection<Consultation> consultations) {
+        List<byte[]> payloads = new ArrayList<>(consultations.size());
+        for (Consultation consultation : consultations) {
+            payloads.add(encode(version, consultation));
+        }
+        return write(payloads, consultations.stream().map(Consultation::id).toList());
+    }
+
+    void appendClear(long version) {
+        write(List.of(ByteBuffer.allocate(9).put(CLEAR).putLong(version).array()), List.of());
+    }
+
+    CatalogEntry read(long offset) {
+        // a view of its own, so concurrent readers don't share a position
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position((int) offset + FRAME_SIZE + 1);
+        long version = buffer.getLong();
+
+        long consultationId = buffer.getLong();
+        String title = readString(buffer);
+
+        int questionCount = buffer.getInt();
+        List<Question<? extends Answer<?>>> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            long questionId = buffer.getLong();
+            String text = readString(buffer);
+            AnswerType answerType = AnswerType.values()[buffer.get()];
+            questions.add(question(questionId, text, answerType, decodeValidator(buffer), null));
+        }
+
+        int ruleCount = buffer.getInt();
+        List<Rule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(new Rule(readString(buffer), decodeCondition(buffer)));
+        }
+        Scoring scoring = null;
+        if (buffer.get() == 1) {
+            int referralThreshold = buffer.getInt();
+            int weightCount = buffer.getInt();
+            List<Weight> weights = new ArrayList<>(weightCount);
+            for (int i = 0; i < weightCount; i++) {
+                weights.add(new Weight(decodeCondition(buffer), buffer.getInt()));
+            }
+            scoring = new Scoring(weights, referralThreshold);
+        }
+
+        for (int i = 0; i < questionCount; i++) {
+            int optionCount = buffer.getInt();
+            if (optionCount == 0) {
+                continue;
+            }
+            List<AnswerOption> options = new ArrayList<>(optionCount);
+            for (int j = 0; j < optionCount; j++) {
+                options.add(new AnswerOption(buffer.getInt(), readString(buffer)));
+            }
+            Question<? extends Answer<?>> question = questions.get(i);
+            questions.set(i, question(question.id(), question.text(), question.answerType(),
+                question.answerValidator(), options));
+        }
+
+        Consultation consultation = Consultation.builder()
+            .id(consultationId)
+            .title(title)
+            .questions(questions)
+            .rules(rules.isEmpty() ? null : rules)
+            .scoring(scoring)
+            .build();
+        return new CatalogEntry(consultation, EvaluationPlan.compile(consultation), version);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Map<Long, Long> write(List<byte[]> payloads, List<Long> consultationIds) {
+        try {
+            long position = channel.size();
+            int frameLength = 0;
+            for (byte[] payload : payloads) {
+                frameLength += FRAME_SIZE + payload.length;
+            }
+            if (position + frameLength > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Consultation catalog is full: " + path);
+            }
+
+            Map<Long, Long> offsetsById = new LinkedHashMap<>();
+            ByteBuffer frames = ByteBuffer.allocate(frameLength);
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < payloads.size(); i++) {
+                byte[] payload = payloads.get(i);
+                if (i < consultationIds.size()) {
+                    offsetsById.put(consultationIds.get(i), position + frames.position());
+                }
+                crc.reset();
+                crc.update(payload);
+                frames.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+
+            frames.flip();
+            while (frames.hasRemaining()) {
+                position += channel.write(frames, position);
+            }
+            channel.force(false);
+            mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return offsetsById;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to consultation catalog: " + path, e);
+        }
+    }
+
+    private static byte[] encode(long version, Consultation consultation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PUT);
+            out.writeLong(version);
+            out.writeLong(consultation.id());
+            writeString(out, consultation.title());
+            out.writeInt(consultation.questions().size());
+            for (Question<? extends Answer<?>> question : consultation.questions()) {
+                out.writeLong(question.id());
+                writeString(out, question.text());
+                // stored by ordinal, so new answer types must only ever be appended
+                out.writeByte(question.answerType().ordinal());
+                encodeValidator(out, question.answerValidator());
+            }
+
+            List<Rule> rules = consultation.rules() == null ? List.of() : consultation.rules();
+            out.writeInt(rules.size());
+            for (Rule rule : rules) {
+                writeString(out, rule.name());
+                encodeCondition(out, rule.condition());
+            }
+
+            Scoring scoring = consultation.scoring();
+            out.writeByte(scoring == null ? 0 : 1);
+            if (scoring != null) {
+                out.writeInt(scoring.referralThreshold());
+                out.writeInt(scoring.weights().size());
+                for (Weight weight : scoring.weights()) {
+                    encodeCondition(out, weight.condition());
+                    out.writeInt(weight.points());
+                }
+            }
+
+            for (Question<? extends Answer<?>> question : consultation.questions()) {
+                List<AnswerOption> options = question.options() == null ? List.of() : question.options();
+                out.writeInt(options.size());
+                for (AnswerOption option : options) {
+                    out.writeInt(option.id());
+                    writeString(out, option.text());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void encodeValidator(DataOutputStream out, AnswerValidator<?> validator) throws IOException {
+        if (validator instanceof MustBeTrueValidator) {
+            out.writeByte(MUST_BE_TRUE);
+        } else if (validator instanceof MustBeFalseValidator) {
+            out.writeByte(MUST_BE_FALSE);
+        } else if (validator instanceof MustBeLessThanValidator lessThan) {
+            out.writeByte(MUST_BE_LESS_THAN);
+            out.writeInt(lessThan.threshold());
+        } else if (validator instanceof MustBeGreaterThanValidator greaterThan) {
+            out.writeByte(MUST_BE_GREATER_THAN);
+            out.writeInt(greaterThan.threshold());
+        } else if (validator instanceof MustBeBetweenValidator between) {
+            out.writeByte(MUST_BE_BETWEEN);
+            out.writeInt(between.min());
+            out.writeInt(between.max());
+        } else if (validator instanceof MustBeOneOfValidator oneOf) {
+            out.writeByte(MUST_BE_ONE_OF);
+            encodeIntegers(out, oneOf.values());
+        } else if (validator instanceof MustBeWithinValidator within) {
+            out.writeByte(MUST_BE_WITHIN);
+            out.writeDouble(within.min());
+            out.writeDouble(within.max());
+        } else if (validator instanceof MustChooseOneOfValidator oneOf) {
+            out.writeByte(MUST_CHOOSE_ONE_OF);
+            encodeIntegers(out, oneOf.optionIds());
+        } else if (validator instanceof MustNotChooseAnyOfValidator noneOf) {
+            out.writeByte(MUST_NOT_CHOOSE_ANY_OF);
+            encodeIntegers(out, noneOf.optionIds());
+        } else if (validator instanceof MustBeBeforeValidator before) {
+            out.writeByte(MUST_BE_BEFORE);
+            out.writeLong(before.date().toEpochDay());
+        } else if (validator instanceof MustBeAfterValidator after) {
+            out.writeByte(MUST_BE_AFTER);
+            out.writeLong(after.date().toEpochDay());
+        } else {
+            throw new IllegalArgumentException("Validator cannot be stored in the catalog: " + validator);
+        }
+    }
+
+    private static AnswerValidator<?> decodeValidator(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        return switch (kind) {
+            case MUST_BE_TRUE -> new MustBeTrueValidator();
+            case MUST_BE_FALSE -> new MustBeFalseValidator();
+            case MUST_BE_LESS_THAN -> new MustBeLessThanValidator(buffer.getInt());
+            case MUST_BE_GREATER_THAN -> new MustBeGreaterThanValidator(buffer.getInt());
+            case MUST_BE_BETWEEN -> new MustBeBetweenValidator(buffer.getInt(), buffer.getInt());
+            case MUST_BE_ONE_OF -> new MustBeOneOfValidator(decodeIntegers(buffer));
+            case MUST_BE_WITHIN -> new MustBeWithinValidator(buffer.getDouble(), buffer.getDouble());
+            case MUST_CHOOSE_ONE_OF -> new MustChooseOneOfValidator(decodeIntegers(buffer));
+            case MUST_NOT_CHOOSE_ANY_OF -> new MustNotChooseAnyOfValidator(decodeIntegers(buffer));
+            case MUST_BE_BEFORE -> new MustBeBeforeValidator(LocalDate.ofEpochDay(buffer.getLong()));
+            case MUST_BE_AFTER -> new MustBeAfterValidator(LocalDate.ofEpochDay(buffer.getLong()));
+            default -> throw new IllegalStateException("Unknown validator in consultation catalog: " + kind);
+        };
+    }
+
+    private static void encodeIntegers(DataOutputStream out, Set<Integer> values) throws IOException {
+        out.writeInt(values.size());
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Set<Integer> decodeIntegers(ByteBuffer buffer) {
+        Set<Integer> values = new HashSet<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            values.add(buffer.getInt());
+        }
+        return values;
+    }
+
+    private static void encodeCondition(DataOutputStream out, Condition condition) throws IOException {
+        if (condition instanceof Matches matches) {
+            out.writeByte(MATCHES);
+            out.writeLong(matches.questionId());
+            encodeValidator(out, matches.validator());
+        } else if (condition instanceof AllOf allOf) {
+            out.writeByte(ALL_OF);
+            encodeConditions(out, allOf.conditions());
+        } else if (condition instanceof AnyOf anyOf) {
+            out.writeByte(ANY_OF);
+            encodeConditions(out, anyOf.conditions());
+        } else if (condition instanceof Not not) {
+            out.writeByte(NOT);
+            encodeCondition(out, not.condition());
+        } else if (condition instanceof Implies implies) {
+            out.writeByte(IMPLIES);
+            encodeCondition(out, implies.when());
+            encodeCondition(out, implies.then());
+        } else {
+            throw new IllegalArgumentException("Condition cannot be stored in the catalog: " + condition);
+        }
+    }
+
+    private static void encodeConditions(DataOutputStream out, List<Condition> conditions) throws IOException {
+        out.writeInt(conditions.size());
+        for (Condition condition : conditions) {
+            encodeCondition(out, condition);
+        }
+    }
+
+    private static Condition decodeCondition(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        return switch (kind) {
+            case MATCHES -> new Matches(buffer.getLong(), decodeValidator(buffer));
+            case ALL_OF -> new AllOf(decodeConditions(buffer));
+            case ANY_OF -> new AnyOf(decodeConditions(buffer));
+            case NOT -> new Not(decodeCondition(buffer));
+            case IMPLIES -> new Implies(decodeCondition(buffer), decodeCondition(buffer));
+            default -> throw new IllegalStateException("Unknown condition in consultation catalog: " + kind);
+        };
+    }
+
+    private static List<Condition> decodeConditions(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Condition> conditions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            conditions.add(decodeCondition(buffer));
+        }
+        return conditions;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Question<? extends Answer<?>> question(
+        long id,
+        String text,
+        AnswerType answerType,
+        AnswerValidator<?> validator,
+        List<AnswerOption> options
+    ) {
+        return Question.builder()
+            .id(id)
+            .text(text)
+            .answerType(answerType)
+            .answerValidator((AnswerValidator) validator)
+            .options(options)
+            .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
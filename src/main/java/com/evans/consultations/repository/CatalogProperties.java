@@ -0,0 +1,19 @@
+package com.evans.consultations.repository;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param path              file the consultation catalog is persisted to, created if missing; when not set, the
+ *                          catalog is only held in memory
+ * @param maxDecodedEntries consultations read from the file that are kept decoded at once, after which the least
+ *                          used are decoded again on their next lookup
+ */
+@ConfigurationProperties(prefix = "consultations.catalog")
+public record CatalogProperties(
+    Path path,
+    @DefaultValue("10000") int maxDecodedEntries
+) {
+
+}
@@ -1,28 +1,183 @@
 package com.evans.consultations.repository;
 
+import com.evans.consultations.cluster.ShardRouter;
+import com.evans.consultations.evaluation.EvaluationPlan;
 import com.evans.consultations.model.Consultation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongPredicate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Copy-on-write catalog of consultations.
+ * <p>
+ * Readers take the current snapshot without locking. Writers build a new snapshot and publish it atomically, so a
+ * batch of consultations saved together becomes visible at once, under a single new version.
+ * <p>
+ * When a catalog path is configured, saves are appended to a {@link CatalogFile} before being published, and the
+ * snapshot only holds the offset of each consultation's record. Entries are decoded from the file on first lookup,
+ * and at most {@link CatalogProperties#maxDecodedEntries()} are kept decoded.
+ * <p>
+ * When the catalog is sharded across nodes, only the consultations this node owns are held, and saves of any others
+ * are ignored.
+ */
 @Repository
-public class ConsultationRepository {
+public class ConsultationRepository implements AutoCloseable {
 
-    private final Map<Long, Consultation> consultationsById = new HashMap<>();
+    // null when the catalog is only held in memory
+    private final CatalogFile catalogFile;
+    // by the offset of the record they were decoded from, which is never reused, so entries never go stale
+    private final Cache<Long, CatalogEntry> decodedEntries;
+    private final LongPredicate owned;
+    private final AtomicReference<Snapshot> snapshot;
+
+    public ConsultationRepository() {
+        this(null, 0, consultationId -> true);
+    }
+
+    public ConsultationRepository(CatalogProperties catalogProperties) {
+        this(openCatalogFile(catalogProperties), catalogProperties.maxDecodedEntries(), consultationId -> true);
+    }
+
+    @Autowired
+    public ConsultationRepository(CatalogProperties catalogProperties, ShardRouter shardRouter) {
+        this(openCatalogFile(catalogProperties), catalogProperties.maxDecodedEntries(), shardRouter::owns);
+    }
+
+    private ConsultationRepository(CatalogFile catalogFile, int maxDecodedEntries, LongPredicate owned) {
+        this.catalogFile = catalogFile;
+        this.decodedEntries = catalogFile == null ? null : Caffeine.newBuilder()
+            .maximumSize(maxDecodedEntries)
+            .build();
+        this.owned = owned;
+        this.snapshot = new AtomicReference<>(catalogFile == null
+            ? new Snapshot(0L, Map.of(), Map.of())
+            : new Snapshot(catalogFile.version(), Map.of(), ownedOffsets(catalogFile.offsetsById())));
+    }
+
+    public boolean owns(long consultationId) {
+        return owned.test(consultationId);
+    }
 
     public void save(Consultation consultation) {
-        consultationsById.put(consultation.id(), consultation);
+        saveAll(List.of(consultation));
+    }
+
+    public void saveAll(Collection<Consultation> saved) {
+        List<Consultation> consultations = saved.stream().filter(consultation -> owns(consultation.id())).toList();
+        if (consultations.isEmpty()) {
+            return;
+        }
+
+        // compile before publishing, so an invalid consultation is never visible
+        Map<Long, EvaluationPlan> evaluationPlansById = new HashMap<>();
+        for (Consultation consultation : consultations) {
+            evaluationPlansById.put(consultation.id(), EvaluationPlan.compile(consultation));
+        }
+
+        if (catalogFile != null) {
+            appendAll(consultations, evaluationPlansById);
+            return;
+        }
+
+        snapshot.updateAndGet(current -> {
+            long version = current.version() + 1;
+            Map<Long, CatalogEntry> entriesById = new HashMap<>(current.entriesById());
+            for (Consultation consultation : consultations) {
+                EvaluationPlan evaluationPlan = evaluationPlansById.get(consultation.id());
+                entriesById.put(consultation.id(), new CatalogEntry(consultation, evaluationPlan, version));
+            }
+            return new Snapshot(version, Map.copyOf(entriesById), Map.of());
+        });
+    }
+
+    public CatalogEntry getEntryById(Long id) {
+        Snapshot current = snapshot.get();
+        if (catalogFile == null) {
+            return current.entriesById().get(id);
+        }
+
+        Long offset = current.offsetsById().get(id);
+        return offset == null ? null : decodedEntries.get(offset, catalogFile::read);
     }
 
     public Consultation getById(Long id) {
-        return consultationsById.get(id);
+        CatalogEntry entry = getEntryById(id);
+        return entry == null ? null : entry.consultation();
     }
 
     public boolean existsById(Long id) {
-        return consultationsById.containsKey(id);
+        Snapshot current = snapshot.get();
+        return current.entriesById().containsKey(id) || current.offsetsById().containsKey(id);
+    }
+
+    public long version() {
+        return snapshot.get().version();
     }
 
     public void deleteAll() {
-        consultationsById.clear();
+        if (catalogFile == null) {
+            snapshot.updateAndGet(current -> new Snapshot(current.version() + 1, Map.of(), Map.of()));
+            return;
+        }
+
+        synchronized (catalogFile) {
+            long version = snapshot.get().version() + 1;
+            catalogFile.appendClear(version);
+            snapshot.set(new Snapshot(version, Map.of(), Map.of()));
+            decodedEntries.invalidateAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (catalogFile != null) {
+            catalogFile.close();
+        }
+    }
+
+    // writes to the file can't be retried like an updateAndGet, so appending writers take turns
+    private void appendAll(Collection<Consultation> consultations, Map<Long, EvaluationPlan> evaluationPlansById) {
+        synchronized (catalogFile) {
+            Snapshot current = snapshot.get();
+            long version = current.version() + 1;
+            Map<Long, Long> appendedOffsetsById = catalogFile.append(version, consultations);
+
+            // the saved entries are already compiled, so they are cached rather than decoded again
+            Map<Long, Long> offsetsById = new HashMap<>(current.offsetsById());
+            for (Consultation consultation : consultations) {
+                EvaluationPlan evaluationPlan = evaluationPlansById.get(consultation.id());
+                Long offset = appendedOffsetsById.get(consultation.id());
+                decodedEntries.put(offset, new CatalogEntry(consultation, evaluationPlan, version));
+                offsetsById.put(consultation.id(), offset);
+            }
+            snapshot.set(new Snapshot(version, Map.of(), Map.copyOf(offsetsById)));
+        }
+    }
+
+    private static CatalogFile openCatalogFile(CatalogProperties catalogProperties) {
+        return catalogProperties.path() == null ? null : CatalogFile.open(catalogProperties.path());
+    }
+
+    // a catalog file written before the ring changed can hold consultations now owned by other nodes
+    private Map<Long, Long> ownedOffsets(Map<Long, Long> offsetsById) {
+        Map<Long, Long> ownedOffsetsById = new HashMap<>(offsetsById);
+        ownedOffsetsById.keySet().removeIf(consultationId -> !owns(consultationId));
+        return Map.copyOf(ownedOffsetsById);
+    }
+
+    /**
+     * @param entriesById entries by consultation id, when the catalog is only held in memory
+     * @param offsetsById offsets of each consultation's latest record, when the catalog is backed by a file
+     */
+    private record Snapshot(long version, Map<Long, CatalogEntry> entriesById, Map<Long, Long> offsetsById) {
+
     }
 }
@@ -0,0 +1,25 @@
+package com.evans.consultations.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Values derived from a single catalog entry, such as its serialized representations.
+ * <p>
+ * Each save publishes new entries with empty caches, so anything cached here is invalidated with the entry it was
+ * derived from.
+ */
+public final class EntryCache {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String key, Supplier<T> supplier) {
+        Object value = values.get(key);
+        if (value == null) {
+            value = values.computeIfAbsent(key, ignored -> supplier.get());
+        }
+        return (T) value;
+    }
+}
@@ -3,22 +3,28 @@ package com.evans.consultations.repository;
 import com.evans.consultations.model.Question;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class QuestionRepository {
 
-    private final Map<Long, Question> questionsById = new HashMap<>();
+    // copy-on-write, so readers never block on a save
+    private final AtomicReference<Map<Long, Question>> questionsById = new AtomicReference<>(Map.of());
 
     public void save(Question question) {
-        questionsById.put(question.id(), question);
+        questionsById.updateAndGet(current -> {
+            Map<Long, Question> updated = new HashMap<>(current);
+            updated.put(question.id(), question);
+            return Map.copyOf(updated);
+        });
     }
 
     public Question getById(Long id) {
-        return questionsById.get(id);
+        return questionsById.get().get(id);
     }
 
     public boolean existsById(Long id) {
-        return questionsById.containsKey(id);
+        return questionsById.get().containsKey(id);
     }
 }
@@ -0,0 +1,136 @@
+package com.evans.consultations.session;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.exception.InvalidSubmissionException;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.model.ValidationReport.InvalidAnswer;
+import com.evans.consultations.repository.CatalogEntry;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A response to a consultation answered a page at a time, against the catalog entry current when it was started.
+ * <p>
+ * Answers are kept packed by question position, alongside which of them failed their validator when they arrived, so
+ * finishing only has to check that every question has been answered.
+ */
+public final class ResponseSession {
+
+    private final String id;
+    private final CatalogEntry entry;
+    private final PackedAnswers answers;
+    // positions whose latest answer failed its validator
+    private final BitSet invalid = new BitSet();
+    // set once finished
+    private ConsultationResponse outcome;
+
+    ResponseSession(String id, CatalogEntry entry) {
+        this.id = id;
+        this.entry = entry;
+        this.answers = entry.evaluationPlan().newAnswers();
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public CatalogEntry entry() {
+        return entry;
+    }
+
+    int size() {
+        return answers.size();
+    }
+
+    /**
+     * Validates and keeps a page of answers, replacing any earlier answers to the same questions. A page with an
+     * unknown question or an answer of the wrong type is rejected as a whole.
+     *
+     * @return the page's answers that failed their validator
+     */
+    public synchronized ValidationReport answer(List<Answer<?>> page) {
+        if (outcome != null) {
+            throw new ConsultationsException(HttpStatus.CONFLICT, "Session has already been finished");
+        }
+
+        EvaluationPlan evaluationPlan = entry.evaluationPlan();
+        int[] positions = new int[page.size()];
+        BitSet seen = new BitSet();
+        List<Long> wrongType = new ArrayList<>();
+        for (int i = 0; i < positions.length; i++) {
+            Answer<?> answer = page.get(i);
+            int position = evaluationPlan.positionOf(answer.questionId());
+            if (position < 0) {
+                throw new ConsultationsException(HttpStatus.BAD_REQUEST,
+                    "Unknown question id: " + answer.questionId());
+            }
+            if (seen.get(position)) {
+                throw new ConsultationsException(HttpStatus.BAD_REQUEST,
+                    "Duplicate answer for question: " + answer.questionId());
+            }
+            if (answer.type() != evaluationPlan.answerType(position)) {
+                wrongType.add(answer.questionId());
+            }
+            seen.set(position);
+            positions[i] = position;
+        }
+        if (!wrongType.isEmpty()) {
+            throw new InvalidSubmissionException(
+                new ValidationReport(List.of(), wrongType, List.of(), List.of(), null));
+        }
+
+        List<InvalidAnswer> invalidAnswers = new ArrayList<>();
+        for (int i = 0; i < positions.length; i++) {
+            Answer<?> answer = page.get(i);
+            int position = positions[i];
+            answers.replace(position, answer.type(), answer.packedValue());
+
+            boolean valid = evaluationPlan.isValid(answers, position);
+            invalid.set(position, !valid);
+            if (!valid) {
+                invalidAnswers.add(new InvalidAnswer(answer.questionId(), evaluationPlan.validatorName(position)));
+            }
+        }
+        return new ValidationReport(List.of(), List.of(), invalidAnswers, List.of(), null);
+    }
+
+    /**
+     * Evaluates the session once every question has been answered. Finishing again returns the same outcome, without
+     * evaluating or recording it again.
+     *
+     * @param recorder records the answers and outcome the first time the session finishes, returning the outcome to
+     *                 answer with
+     */
+    public synchronized ConsultationResponse finish(
+        BiFunction<PackedAnswers, ConsultationResponse, ConsultationResponse> recorder) {
+        if (outcome != null) {
+            return outcome;
+        }
+
+        EvaluationPlan evaluationPlan = entry.evaluationPlan();
+        if (answers.answeredCount() != evaluationPlan.size()) {
+            List<Long> missing = new ArrayList<>();
+            for (int position = 0; position < evaluationPlan.size(); position++) {
+                if (!answers.isAnswered(position)) {
+                    missing.add(evaluationPlan.questionId(position));
+                }
+            }
+            throw new InvalidSubmissionException(new ValidationReport(missing, List.of(), List.of(), List.of(), null));
+        }
+
+        outcome = recorder.apply(answers, evaluationPlan.evaluateValidated(answers, invalid.isEmpty()));
+        return outcome;
+    }
+
+    public synchronized SessionProgress progress(ValidationReport validation) {
+        return new SessionProgress(id, entry.consultation().id(), entry.version(), answers.answeredCount(),
+            answers.size(), validation);
+    }
+}
@@ -0,0 +1,17 @@
+package com.evans.consultations.session;
+
+import com.evans.consultations.model.ValidationReport;
+
+/**
+ * @param validation the answers of the latest page that failed their validator, null when starting a session
+ */
+public record SessionProgress(
+    String sessionId,
+    long consultationId,
+    long version,
+    int answered,
+    int questions,
+    ValidationReport validation
+) {
+
+}
@@ -0,0 +1,18 @@
+package com.evans.consultations.session;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maximumQuestions questions across all open sessions, after which the least recently used sessions are evicted;
+ *                         each question takes about 17 bytes of session state
+ * @param idleTimeout      how long a session is kept without being used
+ */
+@ConfigurationProperties(prefix = "consultations.sessions")
+public record SessionProperties(
+    @DefaultValue("1000000") long maximumQuestions,
+    @DefaultValue("30m") Duration idleTimeout
+) {
+
+}
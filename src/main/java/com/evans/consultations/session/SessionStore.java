@@ -0,0 +1,46 @@
+package com.evans.consultations.session;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.repository.CatalogEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Open response sessions, bounded by the total number of questions they hold and evicted once left idle.
+ * <p>
+ * Finished sessions are kept until they are evicted too, so a retried finish is answered with the same outcome.
+ */
+@Component
+public class SessionStore {
+
+    private final Cache<String, ResponseSession> sessions;
+
+    public SessionStore(SessionProperties sessionProperties, MeterRegistry meterRegistry) {
+        this.sessions = Caffeine.newBuilder()
+            .maximumWeight(sessionProperties.maximumQuestions())
+            .weigher((String id, ResponseSession session) -> session.size())
+            .expireAfterAccess(sessionProperties.idleTimeout())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "responseSessions");
+    }
+
+    public ResponseSession start(CatalogEntry entry) {
+        ResponseSession session = new ResponseSession(UUID.randomUUID().toString(), entry);
+        sessions.put(session.id(), session);
+        return session;
+    }
+
+    public ResponseSession get(Long consultationId, String sessionId) {
+        ResponseSession session = sessions.getIfPresent(sessionId);
+        if (session == null || !session.entry().consultation().id().equals(consultationId)) {
+            throw new ConsultationsException(HttpStatus.NOT_FOUND, "Session not found");
+        }
+        return session;
+    }
+}
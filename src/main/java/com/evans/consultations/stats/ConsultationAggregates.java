@@ -0,0 +1,95 @@
+package com.evans.consultations.stats;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.stats.ConsultationStats.QuestionStats;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for the submissions to a single catalog entry, indexed by question position like its
+ * {@link EvaluationPlan}.
+ */
+final class ConsultationAggregates {
+
+    private final CatalogEntry entry;
+    private final LongAdder submissions = new LongAdder();
+    private final LongAdder referred = new LongAdder();
+    private final LongAdder[] failures;
+    // null where the question does not take integer answers
+    private final IntegerHistogram[] distributions;
+    private final int[] integerPositions;
+
+    ConsultationAggregates(CatalogEntry entry) {
+        this.entry = entry;
+        EvaluationPlan plan = entry.evaluationPlan();
+        int size = plan.size();
+        this.failures = new LongAdder[size];
+        this.distributions = new IntegerHistogram[size];
+
+        int integerCount = 0;
+        int[] integerPositions = new int[size];
+        for (int position = 0; position < size; position++) {
+            failures[position] = new LongAdder();
+            if (plan.answerType(position) == AnswerType.INTEGER) {
+                distributions[position] = new IntegerHistogram();
+                integerPositions[integerCount++] = position;
+            }
+        }
+        this.integerPositions = Arrays.copyOf(integerPositions, integerCount);
+    }
+
+    long version() {
+        return entry.version();
+    }
+
+    // answers have already been evaluated, so every question is answered with the right type
+    void record(PackedAnswers answers, ConsultationResponse response, BitSet invalidPositions) {
+        submissions.increment();
+
+        if (response.status() == Status.REFERRED) {
+            referred.increment();
+        } else {
+            for (int position = invalidPositions.nextSetBit(0); position >= 0;
+                position = invalidPositions.nextSetBit(position + 1)) {
+                failures[position].increment();
+            }
+        }
+
+        for (int position : integerPositions) {
+            distributions[position].record((int) answers.value(position));
+        }
+    }
+
+    ConsultationStats snapshot() {
+        EvaluationPlan plan = entry.evaluationPlan();
+        long submissionCount = submissions.sum();
+
+        List<QuestionStats> questions = new ArrayList<>(plan.size());
+        for (int position = 0; position < plan.size(); position++) {
+            long failureCount = failures[position].sum();
+            IntegerHistogram distribution = distributions[position];
+            questions.add(new QuestionStats(
+                plan.questionId(position),
+                plan.validatorName(position),
+                failureCount,
+                rate(failureCount, submissionCount),
+                distribution == null ? null : distribution.snapshot()));
+        }
+
+        long referredCount = referred.sum();
+        return new ConsultationStats(entry.consultation().id(), entry.version(), submissionCount, referredCount,
+            rate(referredCount, submissionCount), questions);
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+}
@@ -0,0 +1,41 @@
+package com.evans.consultations.stats;
+
+import java.util.List;
+
+/**
+ * Point-in-time view of the submissions to one version of a consultation.
+ */
+public record ConsultationStats(
+    long consultationId,
+    long version,
+    long submissions,
+    long referred,
+    double referralRate,
+    List<QuestionStats> questions
+) {
+
+    /**
+     * @param distribution null unless the question takes integer answers
+     */
+    public record QuestionStats(
+        long questionId,
+        String validator,
+        long failures,
+        double failureRate,
+        IntegerDistribution distribution
+    ) {
+
+    }
+
+    /**
+     * @param min null when nothing has been recorded
+     * @param max null when nothing has been recorded
+     */
+    public record IntegerDistribution(long count, Integer min, Integer max, double mean, List<HistogramBucket> buckets) {
+
+    }
+
+    public record HistogramBucket(int upperBound, long count) {
+
+    }
+}
@@ -0,0 +1,53 @@
+package com.evans.consultations.stats;
+
+import com.evans.consultations.stats.ConsultationStats.HistogramBucket;
+import com.evans.consultations.stats.ConsultationStats.IntegerDistribution;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of integer answers over fixed buckets, recorded without locking.
+ */
+final class IntegerHistogram {
+
+    // inclusive upper bound of each bucket, everything below zero lands in the first one
+    private static final int[] UPPER_BOUNDS = {0, 1, 2, 3, 4, 5, 10, 20, 50, 100, 1_000, 10_000, Integer.MAX_VALUE};
+
+    private final LongAdder[] counts = new LongAdder[UPPER_BOUNDS.length];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    IntegerHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void record(int value) {
+        int bucket = Arrays.binarySearch(UPPER_BOUNDS, value);
+        counts[bucket >= 0 ? bucket : -bucket - 1].increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    // not an atomic snapshot, buckets may be ahead of or behind each other by submissions in flight
+    IntegerDistribution snapshot() {
+        long count = 0;
+        List<HistogramBucket> buckets = new ArrayList<>(UPPER_BOUNDS.length);
+        for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+            long bucketCount = counts[i].sum();
+            count += bucketCount;
+            buckets.add(new HistogramBucket(UPPER_BOUNDS[i], bucketCount));
+        }
+
+        if (count == 0) {
+            return new IntegerDistribution(0L, null, null, 0.0, buckets);
+        }
+        return new IntegerDistribution(count, (int) min.get(), (int) max.get(), (double) sum.sum() / count, buckets);
+    }
+}
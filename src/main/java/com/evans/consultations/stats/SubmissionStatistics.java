@@ -0,0 +1,49 @@
+package com.evans.consultations.stats;
+
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.repository.CatalogEntry;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Live aggregates of submission outcomes per consultation, kept up to date as submissions are evaluated.
+ * <p>
+ * Aggregates cover the current version of each consultation only, and start again from zero when a new version is
+ * published. Recording only increments striped counters, so submissions never contend on a lock.
+ */
+@Component
+public class SubmissionStatistics {
+
+    private final Map<Long, ConsultationAggregates> aggregatesByConsultationId = new ConcurrentHashMap<>();
+
+    /**
+     * @param invalidPositions positions whose answer failed its validator, only read when the response failed
+     */
+    public void record(CatalogEntry entry, PackedAnswers answers, ConsultationResponse response,
+        BitSet invalidPositions) {
+        ConsultationAggregates aggregates = aggregatesFor(entry);
+        // submissions still in flight against a superseded version are not counted towards the new one
+        if (aggregates.version() == entry.version()) {
+            aggregates.record(answers, response, invalidPositions);
+        }
+    }
+
+    public ConsultationStats statsFor(CatalogEntry entry) {
+        return aggregatesFor(entry).snapshot();
+    }
+
+    private ConsultationAggregates aggregatesFor(CatalogEntry entry) {
+        ConsultationAggregates aggregates = aggregatesByConsultationId.get(entry.consultation().id());
+        if (aggregates != null && aggregates.version() >= entry.version()) {
+            return aggregates;
+        }
+
+        return aggregatesByConsultationId.compute(entry.consultation().id(),
+            (id, current) -> current == null || current.version() < entry.version()
+                ? new ConsultationAggregates(entry)
+                : current);
+    }
+}
@@ -0,0 +1,85 @@
+package com.evans.consultations.transformer;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.DateAnswerDto;
+import com.evans.consultations.model.DecimalAnswerDto;
+import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.MultiChoiceAnswerDto;
+import com.evans.consultations.model.SingleChoiceAnswerDto;
+
+/**
+ * Dispatch from an answer DTO to its mapping, through tables indexed by answer type ordinal. The ordinal is that of the
+ * answer type of the DTO's question, already known to the evaluation plan, so an answer of the right type is mapped
+ * after a single comparison of its class. Only answers to unknown questions, or of the wrong type, which are about to
+ * be rejected, look their class up among the rest.
+ */
+final class AnswerDtoTypes {
+
+    // both indexed by AnswerType ordinal
+    private static final Class<?>[] DTO_CLASSES = new Class<?>[AnswerType.values().length];
+    private static final AnswerMapping[] MAPPINGS = new AnswerMapping[AnswerType.values().length];
+
+    static {
+        for (AnswerType type : AnswerType.values()) {
+            DTO_CLASSES[type.ordinal()] = dtoClass(type);
+            MAPPINGS[type.ordinal()] = mapping(type);
+        }
+    }
+
+    private AnswerDtoTypes() {
+    }
+
+    static Answer<?> map(ConsultationMapper mapper, AnswerDto answerDto, EvaluationPlan evaluationPlan) {
+        Long questionId = answerDto.getQuestionId();
+        int position = questionId != null ? evaluationPlan.positionOf(questionId) : -1;
+        if (position >= 0) {
+            int ordinal = evaluationPlan.answerType(position).ordinal();
+            if (DTO_CLASSES[ordinal] == answerDto.getClass()) {
+                return MAPPINGS[ordinal].map(mapper, answerDto);
+            }
+        }
+        return mapByClass(mapper, answerDto);
+    }
+
+    private static Answer<?> mapByClass(ConsultationMapper mapper, AnswerDto answerDto) {
+        Class<?> dtoClass = answerDto.getClass();
+        for (int ordinal = 0; ordinal < DTO_CLASSES.length; ordinal++) {
+            if (DTO_CLASSES[ordinal] == dtoClass) {
+                return MAPPINGS[ordinal].map(mapper, answerDto);
+            }
+        }
+        return null;
+    }
+
+    private static Class<? extends AnswerDto> dtoClass(AnswerType type) {
+        return switch (type) {
+            case BOOLEAN -> BooleanAnswerDto.class;
+            case INTEGER -> IntegerAnswerDto.class;
+            case DECIMAL -> DecimalAnswerDto.class;
+            case SINGLE_CHOICE -> SingleChoiceAnswerDto.class;
+            case MULTI_CHOICE -> MultiChoiceAnswerDto.class;
+            case DATE -> DateAnswerDto.class;
+        };
+    }
+
+    private static AnswerMapping mapping(AnswerType type) {
+        return switch (type) {
+            case BOOLEAN -> (mapper, answer) -> mapper.mapToBooleanAnswer((BooleanAnswerDto) answer);
+            case INTEGER -> (mapper, answer) -> mapper.mapToIntegerAnswer((IntegerAnswerDto) answer);
+            case DECIMAL -> (mapper, answer) -> mapper.mapToDecimalAnswer((DecimalAnswerDto) answer);
+            case SINGLE_CHOICE -> (mapper, answer) -> mapper.mapToSingleChoiceAnswer((SingleChoiceAnswerDto) answer);
+            case MULTI_CHOICE -> (mapper, answer) -> mapper.mapToMultiChoiceAnswer((MultiChoiceAnswerDto) answer);
+            case DATE -> (mapper, answer) -> mapper.mapToDateAnswer((DateAnswerDto) answer);
+        };
+    }
+
+    @FunctionalInterface
+    private interface AnswerMapping {
+
+        Answer<?> map(ConsultationMapper mapper, AnswerDto answer);
+    }
+}
@@ -1,16 +1,35 @@
 package com.evans.consultations.transformer;
 
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.exception.InvalidSubmissionException;
 import com.evans.consultations.model.Answer;
 import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
 import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
 import com.evans.consultations.model.AnswerDto;
 import com.evans.consultations.model.BooleanAnswerDto;
 import com.evans.consultations.model.Consultation;
 import com.evans.consultations.model.ConsultationDto;
 import com.evans.consultations.model.ConsultationResponse;
 import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.DateAnswerDto;
+import com.evans.consultations.model.DecimalAnswerDto;
+import com.evans.consultations.model.ErrorDto;
 import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.MultiChoiceAnswerDto;
+import com.evans.consultations.model.SessionProgressDto;
+import com.evans.consultations.model.SingleChoiceAnswerDto;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.model.ValidationReportDto;
+import com.evans.consultations.session.SessionProgress;
+import com.evans.consultations.stats.ConsultationStats;
 import java.util.List;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
@@ -18,24 +37,38 @@ public interface ConsultationMapper {
 
     ConsultationDto mapToConsultation(Consultation consultation);
 
-    List<Answer<?>> mapToAnswers(List<AnswerDto> answers);
+    // mapped against the plan of the consultation they answer, which knows each question's answer type
+    List<Answer<?>> mapToAnswers(List<AnswerDto> answers, @Context EvaluationPlan evaluationPlan);
 
-    default Answer<?> mapToAnswer(AnswerDto answerDto) {
-        // would use switch pattern matching here in newer versions of java
-        if (answerDto instanceof BooleanAnswerDto booleanAnswerDto) {
-            return mapToBooleanAnswer(booleanAnswerDto);
-        }
-
-        if (answerDto instanceof IntegerAnswerDto integerAnswerDto) {
-            return mapToIntegerAnswer(integerAnswerDto);
-        }
-
-        return null;
+    default Answer<?> mapToAnswer(AnswerDto answerDto, @Context EvaluationPlan evaluationPlan) {
+        return AnswerDtoTypes.map(this, answerDto, evaluationPlan);
     }
 
     BooleanAnswer mapToBooleanAnswer(BooleanAnswerDto answer);
 
     IntegerAnswer mapToIntegerAnswer(IntegerAnswerDto answer);
 
+    DecimalAnswer mapToDecimalAnswer(DecimalAnswerDto answer);
+
+    SingleChoiceAnswer mapToSingleChoiceAnswer(SingleChoiceAnswerDto answer);
+
+    MultiChoiceAnswer mapToMultiChoiceAnswer(MultiChoiceAnswerDto answer);
+
+    DateAnswer mapToDateAnswer(DateAnswerDto answer);
+
     ConsultationResponseDto mapToConsultationResponse(ConsultationResponse response);
+
+    ConsultationStatsDto mapToConsultationStats(ConsultationStats stats);
+
+    ValidationReportDto mapToValidationReport(ValidationReport report);
+
+    SessionProgressDto mapToSessionProgress(SessionProgress progress);
+
+    default ErrorDto mapToError(ConsultationsException e) {
+        ErrorDto errorDto = new ErrorDto().message(e.getMessage());
+        if (e instanceof InvalidSubmissionException invalidSubmissionException) {
+            errorDto.validation(mapToValidationReport(invalidSubmissionException.getValidationReport()));
+        }
+        return errorDto;
+    }
 }
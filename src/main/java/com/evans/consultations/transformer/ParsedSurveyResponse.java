@@ -0,0 +1,30 @@
+package com.evans.consultations.transformer;
+
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import lombok.Getter;
+
+/**
+ * A SurveyResponse that has already been read into the packed answers of a specific catalog entry, so the controller
+ * evaluates it against the exact consultation version it was parsed with.
+ */
+@Getter
+public class ParsedSurveyResponse extends SurveyResponseDto {
+
+    private final CatalogEntry catalogEntry;
+    private final PackedAnswers packedAnswers;
+
+    public ParsedSurveyResponse(CatalogEntry catalogEntry, PackedAnswers packedAnswers) {
+        this.catalogEntry = catalogEntry;
+        this.packedAnswers = packedAnswers;
+        setAnswers(null);
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedSurveyResponse { consultation: " + catalogEntry.consultation().id()
+            + ", version: " + catalogEntry.version()
+            + ", answered: " + packedAnswers.answeredCount() + " }";
+    }
+}
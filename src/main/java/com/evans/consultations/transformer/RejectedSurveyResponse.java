@@ -0,0 +1,25 @@
+package com.evans.consultations.transformer;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.model.SurveyResponseDto;
+import lombok.Getter;
+
+/**
+ * A SurveyResponse within a batch that was rejected while being read, kept in place so the rest of the batch can
+ * still be evaluated and the rejection reported against its position.
+ */
+@Getter
+public class RejectedSurveyResponse extends SurveyResponseDto {
+
+    private final ConsultationsException rejection;
+
+    public RejectedSurveyResponse(ConsultationsException rejection) {
+        this.rejection = rejection;
+        setAnswers(null);
+    }
+
+    @Override
+    public String toString() {
+        return "RejectedSurveyResponse { rejection: " + rejection.getMessage() + " }";
+    }
+}
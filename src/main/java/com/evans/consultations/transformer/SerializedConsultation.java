@@ -0,0 +1,24 @@
+package com.evans.consultations.transformer;
+
+import com.evans.consultations.converter.ContentCoding;
+import com.evans.consultations.model.ConsultationDto;
+import lombok.Getter;
+
+/**
+ * A Consultation response body serialized once per catalog entry, wire format and content coding, written to
+ * responses as-is.
+ */
+@Getter
+public class SerializedConsultation extends ConsultationDto {
+
+    private final byte[] body;
+    private final ContentCoding contentCoding;
+    // strong validator: a digest of the encoded bytes, so it only changes when the content does
+    private final String eTag;
+
+    public SerializedConsultation(byte[] body, ContentCoding contentCoding, String eTag) {
+        this.body = body;
+        this.contentCoding = contentCoding;
+        this.eTag = eTag;
+    }
+}
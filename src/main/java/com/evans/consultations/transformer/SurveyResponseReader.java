@@ -0,0 +1,320 @@
+package com.evans.consultations.transformer;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.evaluation.PackedAnswers;
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.CatalogEntry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a SurveyResponse token by token, straight into the {@link PackedAnswers} of the consultation being answered.
+ * <p>
+ * Each answer is checked against the consultation as soon as its object is closed, so an unknown question fails the
+ * request before the rest of the payload is read. Answers of the wrong type are kept, to be reported along with
+ * everything else wrong with the submission when it is evaluated.
+ * <p>
+ * Values are read by readers looked up by the ordinal of the answer's type, so adding answer types doesn't add checks
+ * to reading the existing ones. Booleans and integers are read as scalars, which can be kept until the answer's type is
+ * known without copying them, so clients are free to write the value before the type.
+ */
+@Component
+public class SurveyResponseReader {
+
+    // both indexed by AnswerType ordinal
+    private static final ScalarReader[] SCALAR_READERS = new ScalarReader[AnswerType.values().length];
+    private static final ValueReader[] VALUE_READERS = new ValueReader[AnswerType.values().length];
+
+    static {
+        for (AnswerType type : AnswerType.values()) {
+            SCALAR_READERS[type.ordinal()] = scalarReader(type);
+            VALUE_READERS[type.ordinal()] = valueReader(type);
+        }
+    }
+
+    public PackedAnswers read(JsonParser parser, EvaluationPlan evaluationPlan) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        return readResponse(parser, evaluationPlan);
+    }
+
+    /**
+     * Reads a JSON array of SurveyResponses, all against the one consultation version.
+     * <p>
+     * A response rejected while being read is replaced by a {@link RejectedSurveyResponse} and the parser skips to the
+     * next one, so a single bad item does not fail the batch. A batch of more than {@code maxBatchSize} responses is
+     * rejected with 413 as soon as the first response over the limit is reached.
+     */
+    public List<SurveyResponseDto> readBatch(JsonParser parser, CatalogEntry catalogEntry, int maxBatchSize)
+        throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Malformed survey response batch");
+        }
+
+        JsonStreamContext batchContext = parser.getParsingContext();
+        List<SurveyResponseDto> surveyResponses = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (surveyResponses.size() == maxBatchSize) {
+                throw new ConsultationsException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Survey response batch is larger than " + maxBatchSize + " responses");
+            }
+            try {
+                surveyResponses.add(new ParsedSurveyResponse(catalogEntry,
+                    readResponse(parser, catalogEntry.evaluationPlan())));
+            } catch (ConsultationsException e) {
+                surveyResponses.add(new RejectedSurveyResponse(e));
+                skipRestOfResponse(parser, batchContext);
+            }
+        }
+
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Malformed survey response batch");
+        }
+        return surveyResponses;
+    }
+
+    private static void skipRestOfResponse(JsonParser parser, JsonStreamContext batchContext) throws IOException {
+        while (parser.getParsingContext() != batchContext) {
+            if (parser.nextToken() == null) {
+                return;
+            }
+        }
+    }
+
+    // reads the SurveyResponse object whose start the parser is positioned on
+    public PackedAnswers readResponse(JsonParser parser, EvaluationPlan evaluationPlan) throws IOException {
+        PackedAnswers answers = evaluationPlan.newAnswers();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            if ("answers".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readAnswer(parser, evaluationPlan, answers);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return answers;
+    }
+
+    private void readAnswer(JsonParser parser, EvaluationPlan evaluationPlan, PackedAnswers answers) throws IOException {
+        Long questionId = null;
+        AnswerType type = null;
+        long value = 0L;
+        boolean hasValue = false;
+        boolean validValue = false;
+        // a scalar value that came before the type
+        JsonToken scalarToken = null;
+        long scalar = 0L;
+        // any other value that came before the type, which is rare enough to afford copying it
+        TokenBuffer bufferedValue = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case "questionId" -> {
+                    expect(token, JsonToken.VALUE_NUMBER_INT);
+                    questionId = parser.getLongValue();
+                }
+                case "type" -> {
+                    expect(token, JsonToken.VALUE_STRING);
+                    type = answerType(parser.getText());
+                }
+                case "value" -> {
+                    hasValue = true;
+                    if (type != null) {
+                        try {
+                            value = readValue(parser, token, type);
+                            validValue = true;
+                        } catch (InvalidValueException e) {
+                            parser.skipChildren();
+                        }
+                    } else if (isScalar(parser, token)) {
+                        scalarToken = token;
+                        scalar = scalar(parser, token);
+                    } else {
+                        bufferedValue = new TokenBuffer(parser.getCodec(), false);
+                        bufferedValue.copyCurrentStructure(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (questionId == null || type == null) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Answers must have a questionId and a type");
+        }
+
+        if (evaluationPlan.positionOf(questionId) < 0) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Unknown question id: " + questionId);
+        }
+
+        try {
+            if (scalarToken != null) {
+                value = SCALAR_READERS[type.ordinal()].read(scalarToken, scalar);
+                validValue = true;
+            } else if (bufferedValue != null) {
+                try (JsonParser buffered = bufferedValue.asParser()) {
+                    value = readValue(buffered, buffered.nextToken(), type);
+                    validValue = true;
+                }
+            }
+        } catch (InvalidValueException e) {
+            validValue = false;
+        }
+
+        if (!hasValue || !validValue) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Invalid value for question: " + questionId);
+        }
+
+        answers.put(questionId, type, value);
+    }
+
+    private static AnswerType answerType(String discriminator) {
+        AnswerType type = AnswerType.fromDiscriminator(discriminator);
+        if (type == null) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Unknown answer type: " + discriminator);
+        }
+        return type;
+    }
+
+    private static long readValue(JsonParser parser, JsonToken token, AnswerType type) throws IOException {
+        return isScalar(parser, token)
+            ? SCALAR_READERS[type.ordinal()].read(token, scalar(parser, token))
+            : VALUE_READERS[type.ordinal()].read(parser, token);
+    }
+
+    // true, false, or an integer that fits in a long
+    private static boolean isScalar(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE
+            || token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != NumberType.BIG_INTEGER;
+    }
+
+    private static long scalar(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : 0L;
+    }
+
+    private static ScalarReader scalarReader(AnswerType type) {
+        return switch (type) {
+            case BOOLEAN -> (token, scalar) -> switch (token) {
+                case VALUE_TRUE -> 1L;
+                case VALUE_FALSE -> 0L;
+                default -> throw InvalidValueException.INSTANCE;
+            };
+            case INTEGER -> (token, scalar) -> {
+                expectValue(token == JsonToken.VALUE_NUMBER_INT && scalar == (int) scalar);
+                return scalar;
+            };
+            case DECIMAL -> (token, scalar) -> {
+                expectValue(token == JsonToken.VALUE_NUMBER_INT);
+                return Double.doubleToRawLongBits(scalar);
+            };
+            case SINGLE_CHOICE -> (token, scalar) -> {
+                expectValue(token == JsonToken.VALUE_NUMBER_INT && isOptionId(scalar));
+                return scalar;
+            };
+            case MULTI_CHOICE, DATE -> (token, scalar) -> {
+                throw InvalidValueException.INSTANCE;
+            };
+        };
+    }
+
+    private static ValueReader valueReader(AnswerType type) {
+        return switch (type) {
+            case BOOLEAN, INTEGER, SINGLE_CHOICE -> (parser, token) -> {
+                throw InvalidValueException.INSTANCE;
+            };
+            case DECIMAL -> (parser, token) -> {
+                expectValue(token == JsonToken.VALUE_NUMBER_FLOAT);
+                double value = parser.getDoubleValue();
+                expectValue(Double.isFinite(value));
+                return Double.doubleToRawLongBits(value);
+            };
+            case MULTI_CHOICE -> (parser, token) -> {
+                expectValue(token == JsonToken.START_ARRAY);
+                long chosen = 0L;
+                boolean valid = true;
+                for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY;
+                    element = parser.nextToken()) {
+                    try {
+                        expectValue(isScalar(parser, element) && isOptionId(scalar(parser, element)));
+                        chosen |= 1L << parser.getLongValue();
+                    } catch (InvalidValueException e) {
+                        // read on to the end of the array, so the rest of the answer can still be read
+                        valid = false;
+                        parser.skipChildren();
+                    }
+                }
+                expectValue(valid);
+                return chosen;
+            };
+            case DATE -> (parser, token) -> {
+                expectValue(token == JsonToken.VALUE_STRING);
+                try {
+                    return LocalDate.parse(parser.getText()).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    throw InvalidValueException.INSTANCE;
+                }
+            };
+        };
+    }
+
+    private static boolean isOptionId(long scalar) {
+        return scalar >= 0 && scalar <= AnswerOption.MAX_ID;
+    }
+
+    private static void expectValue(boolean valid) {
+        if (!valid) {
+            throw InvalidValueException.INSTANCE;
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Malformed survey response");
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScalarReader {
+
+        // reads a scalar value, packed as in Answer#packedValue; integers are given as a long
+        long read(JsonToken token, long scalar);
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+
+        // reads any other value the parser is positioned on, packed as in Answer#packedValue
+        long read(JsonParser parser, JsonToken token) throws IOException;
+    }
+
+    // one shared instance without a stack trace, as an invalid value is reported by question rather than thrown on
+    private static final class InvalidValueException extends RuntimeException {
+
+        private static final InvalidValueException INSTANCE = new InvalidValueException();
+
+        private InvalidValueException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.evans.consultations.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.evans.consultations.cluster.ClusterProperties;
+import com.evans.consultations.cluster.ConsultationForwarder;
+import com.evans.consultations.cluster.ShardRouter;
+import com.evans.consultations.exception.TooManyRequestsException;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.repository.ConsultationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerMapping;
+
+class AdmissionInterceptorTest {
+
+    private final ConsultationRepository consultationRepository = new ConsultationRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        consultationRepository.save(consultation(1L));
+        consultationRepository.save(consultation(2L));
+    }
+
+    @Test
+    void shouldShedClientOverItsBurst() {
+        AdmissionInterceptor interceptor = interceptor(1, 2, 1000, 1000, 100);
+
+        admit(interceptor, "client-a", 1L);
+        admit(interceptor, "client-a", 1L);
+
+        assertThatThrownBy(() -> admit(interceptor, "client-a", 1L))
+            .isInstanceOfSatisfying(TooManyRequestsException.class, e -> {
+                assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                assertThat(e.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1));
+                assertThat(e.getStackTrace()).isEmpty();
+            });
+        admit(interceptor, "client-b", 1L);
+        assertThat(rejected("client")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldShedConsultationOverItsBurst() {
+        AdmissionInterceptor interceptor = interceptor(1000, 1000, 1, 2, 100);
+
+        admit(interceptor, "client-a", 1L);
+        admit(interceptor, "client-b", 1L);
+
+        assertThatThrownBy(() -> admit(interceptor, "client-c", 1L))
+            .isInstanceOf(TooManyRequestsException.class)
+            .hasMessage("Too many requests for consultation: 1");
+        admit(interceptor, "client-c", 2L);
+        assertThat(rejected("consultation")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldShedRequestsOverConcurrencyLimitUntilOneCompletes() {
+        AdmissionInterceptor interceptor = interceptor(1000, 1000, 1000, 1000, 2);
+
+        MockHttpServletRequest first = admit(interceptor, "client-a", 1L);
+        admit(interceptor, "client-a", 1L);
+
+        assertThatThrownBy(() -> admit(interceptor, "client-a", 1L))
+            .isInstanceOf(TooManyRequestsException.class)
+            .hasMessage("Too many requests in flight");
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), new Object(), null);
+        admit(interceptor, "client-a", 1L);
+        assertThat(rejected("concurrency")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldLowerConcurrencyLimitOnceForABurstOfSlowRequests() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        ConcurrencyLimit limit = new ConcurrencyLimit(20, 2, 40, target, 0);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        for (int i = 0; i < 10; i++) {
+            limit.release(10, 10 + 2 * target);
+        }
+
+        assertThat(limit.limit()).isEqualTo(18);
+    }
+
+    @Test
+    void shouldRaiseConcurrencyLimitWhileFastRequestsUseMostOfIt() {
+        long target = TimeUnit.MILLISECONDS.toNanos(100);
+        ConcurrencyLimit limit = new ConcurrencyLimit(4, 2, 40, target, 0);
+
+        for (int round = 0; round < 20; round++) {
+            int admitted = 0;
+            while (limit.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limit.release(0, target / 2);
+            }
+        }
+
+        assertThat(limit.limit()).isGreaterThan(10);
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    @Test
+    void shouldIgnoreForwardedForFromClients() {
+        AdmissionInterceptor interceptor = interceptor(null, 1, 1, unclustered());
+
+        admitForwarded(interceptor, "client-a", null);
+
+        assertThatThrownBy(() -> admitForwarded(interceptor, "client-b", null))
+            .isInstanceOf(TooManyRequestsException.class)
+            .hasMessage("Too many requests from this client");
+        assertThatThrownBy(() -> admitForwarded(interceptor, "client-c", "not-the-secret"))
+            .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void shouldAdmitRequestForwardedByPeerAsItsClient() {
+        ShardRouter shardRouter = new ShardRouter(new ClusterProperties("http://node-a", List.of("http://node-a",
+            "http://node-b"), "secret", 128, Duration.ofSeconds(2), DataSize.ofMegabytes(16), Duration.ofSeconds(30)));
+        AdmissionInterceptor interceptor = interceptor(null, 1, 1, shardRouter);
+
+        admitForwarded(interceptor, "client-a", "secret");
+        admitForwarded(interceptor, "client-b", "secret");
+
+        assertThatThrownBy(() -> admitForwarded(interceptor, "client-a", "secret"))
+            .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    private AdmissionInterceptor interceptor(int clientRate, int clientBurst, int consultationRate,
+        int consultationBurst, int concurrency) {
+        AdmissionProperties admissionProperties = new AdmissionProperties(true, "X-Client-Id", clientRate, clientBurst,
+            consultationRate, consultationBurst, 100, concurrency, 1, concurrency, Duration.ofSeconds(10));
+        return new AdmissionInterceptor(admissionProperties, consultationRepository, unclustered(), meterRegistry);
+    }
+
+    private AdmissionInterceptor interceptor(String clientIdHeader, int clientRate, int clientBurst,
+        ShardRouter shardRouter) {
+        AdmissionProperties admissionProperties = new AdmissionProperties(true, clientIdHeader, clientRate,
+            clientBurst, 1000, 1000, 100, 100, 1, 100, Duration.ofSeconds(10));
+        return new AdmissionInterceptor(admissionProperties, consultationRepository, shardRouter, meterRegistry);
+    }
+
+    private static ShardRouter unclustered() {
+        return new ShardRouter(new ClusterProperties(null, List.of(), null, 128, Duration.ofSeconds(2),
+            DataSize.ofMegabytes(16), Duration.ofSeconds(30)));
+    }
+
+    // every request from the same address, claiming to be forwarded for a different client
+    private static void admitForwarded(AdmissionInterceptor interceptor, String forwardedFor, String secret) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/consultations/1/responses");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader(ConsultationForwarder.FORWARDED_FOR, forwardedFor);
+        if (secret != null) {
+            request.addHeader("Consultations-Cluster-Secret", secret);
+        }
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "1"));
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+    }
+
+    private static MockHttpServletRequest admit(AdmissionInterceptor interceptor, String clientId, Long consultationId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/consultations/" + consultationId
+            + "/responses");
+        request.addHeader("X-Client-Id", clientId);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", consultationId.toString()));
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), new Object())).isTrue();
+        return request;
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("consultations.admission.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static Consultation consultation(Long id) {
+        Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+            .id(1L)
+            .text("Are you over 18?")
+            .answerType(AnswerType.BOOLEAN)
+            .answerValidator(new MustBeTrueValidator())
+            .build();
+
+        return Consultation.builder()
+            .id(id)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(ageCheck))
+            .build();
+    }
+}
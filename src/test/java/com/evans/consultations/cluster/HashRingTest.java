@@ -0,0 +1,52 @@
+package com.evans.consultations.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080");
+
+    @Test
+    void shouldSpreadConsultationsEvenlyAcrossNodes() {
+        HashRing ring = new HashRing(NODES, 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (long consultationId = 1; consultationId <= 30_000; consultationId++) {
+            owned.merge(ring.owner(consultationId), 1, Integer::sum);
+        }
+
+        assertThat(owned).containsOnlyKeys(NODES);
+        assertThat(owned.values()).allSatisfy(count -> assertThat(count).isBetween(8_000, 12_000));
+    }
+
+    @Test
+    void shouldAgreeOnOwnersRegardlessOfNodeOrder() {
+        HashRing ring = new HashRing(NODES, 128);
+        HashRing reordered = new HashRing(List.of(NODES.get(2), NODES.get(0), NODES.get(1)), 128);
+
+        for (long consultationId = 1; consultationId <= 1_000; consultationId++) {
+            assertThat(reordered.owner(consultationId)).isEqualTo(ring.owner(consultationId));
+        }
+    }
+
+    @Test
+    void shouldOnlyMoveConsultationsToAddedNode() {
+        HashRing ring = new HashRing(NODES.subList(0, 2), 128);
+        HashRing grown = new HashRing(NODES, 128);
+
+        int moved = 0;
+        for (long consultationId = 1; consultationId <= 30_000; consultationId++) {
+            String owner = grown.owner(consultationId);
+            if (!owner.equals(ring.owner(consultationId))) {
+                assertThat(owner).isEqualTo(NODES.get(2));
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(8_000, 12_000);
+    }
+}
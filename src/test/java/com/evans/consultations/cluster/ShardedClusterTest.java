@@ -0,0 +1,244 @@
+package com.evans.consultations.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.evans.consultations.SurveysApplication;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.ConsultationResponseDto.StatusEnum;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.ConsultationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// three nodes in this JVM, each owning part of the catalog, the last one serving the reactive handlers
+class ShardedClusterTest {
+
+    private static final TestRestTemplate restTemplate = new TestRestTemplate();
+    private static final String SECRET = "cluster-secret";
+
+    private static Node nodeA;
+    private static Node nodeB;
+    private static Node nodeC;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        int portC = freePort();
+        String nodes = "http://localhost:" + portA + ",http://localhost:" + portB + ",http://localhost:" + portC;
+        nodeA = Node.start(portA, nodes);
+        nodeB = Node.start(portB, nodes);
+        nodeC = Node.start(portC, nodes, "reactive");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.context().close();
+        nodeB.context().close();
+        nodeC.context().close();
+    }
+
+    @Test
+    void shouldOnlyHoldOwnedConsultations() {
+        long consultationId = ownedBy(nodeA, 1000);
+
+        nodeA.repository().save(consultation(consultationId));
+        nodeB.repository().save(consultation(consultationId));
+
+        assertThat(nodeA.repository().existsById(consultationId)).isTrue();
+        assertThat(nodeB.repository().existsById(consultationId)).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldForwardRequestsToOwner(boolean reactive) {
+        long consultationId = ownedBy(nodeA, reactive ? 2500 : 2000);
+        nodeA.repository().save(consultation(consultationId));
+
+        ResponseEntity<ConsultationDto> consultation = restTemplate.getForEntity(
+            forwarder(reactive).url() + "/consultations/{id}", ConsultationDto.class, consultationId);
+        assertThat(consultation.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+        assertThat(consultation.getBody().getTitle()).isEqualTo("Sharded Consultation");
+
+        ResponseEntity<ConsultationResponseDto> response = restTemplate.postForEntity(
+            forwarder(reactive).url() + "/consultations/{id}/responses", surveyResponse(),
+            ConsultationResponseDto.class, consultationId);
+        assertThat(response.getBody().getStatus()).isEqualTo(StatusEnum.REFERRED);
+
+        ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+            nodeA.url() + "/consultations/{id}/stats", ConsultationStatsDto.class, consultationId);
+        assertThat(stats.getBody().getSubmissions()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldForwardRequestsToReactiveOwner() {
+        long consultationId = ownedBy(nodeC, 2800);
+        nodeC.repository().save(consultation(consultationId));
+
+        ResponseEntity<ConsultationResponseDto> response = restTemplate.postForEntity(
+            nodeB.url() + "/consultations/{id}/responses", surveyResponse(), ConsultationResponseDto.class,
+            consultationId);
+        assertThat(response.getBody().getStatus()).isEqualTo(StatusEnum.REFERRED);
+
+        ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+            nodeC.url() + "/consultations/{id}/stats", ConsultationStatsDto.class, consultationId);
+        assertThat(stats.getBody().getSubmissions()).isEqualTo(1L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldReadConsultationsOwnedByOtherNodesThroughNearCache(boolean reactive) {
+        long consultationId = ownedBy(nodeA, reactive ? 3500 : 3000);
+        nodeA.repository().save(consultation(consultationId));
+        Node forwarder = forwarder(reactive);
+        double forwardedBefore = forwarder.meterRegistry().counter("consultations.cluster.forwarded").count();
+
+        ResponseEntity<ConsultationDto> first = restTemplate.getForEntity(
+            forwarder.url() + "/consultations/{id}", ConsultationDto.class, consultationId);
+        ResponseEntity<ConsultationDto> second = restTemplate.getForEntity(
+            forwarder.url() + "/consultations/{id}", ConsultationDto.class, consultationId);
+
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+        assertThat(forwarder.meterRegistry().counter("consultations.cluster.forwarded").count())
+            .isEqualTo(forwardedBefore + 1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldReturn404FromOwnerWhenConsultationNotFound(boolean reactive) {
+        long consultationId = ownedBy(nodeA, reactive ? 4500 : 4000);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+            forwarder(reactive).url() + "/consultations/{id}", String.class, consultationId);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldRouteClientsClaimingToBeForwarded(boolean reactive) {
+        long consultationId = ownedBy(nodeA, reactive ? 5500 : 5000);
+        nodeA.repository().save(consultation(consultationId));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ConsultationForwarder.FORWARDED_BY, nodeA.url());
+        headers.set(ConsultationForwarder.FORWARDED_FOR, "10.0.0.1");
+        headers.set(ConsultationForwarder.CLUSTER_SECRET, "not-the-secret");
+        ResponseEntity<ConsultationDto> consultation = restTemplate.exchange(
+            forwarder(reactive).url() + "/consultations/{id}", HttpMethod.GET, new HttpEntity<>(headers),
+            ConsultationDto.class, consultationId);
+
+        assertThat(consultation.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+        assertThat(consultation.getBody().getTitle()).isEqualTo("Sharded Consultation");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldRejectOversizedBodyBeforeForwarding(boolean reactive) {
+        long consultationId = ownedBy(nodeA, reactive ? 6500 : 6000);
+        nodeA.repository().save(consultation(consultationId));
+        Node forwarder = forwarder(reactive);
+        double forwardedBefore = forwarder.meterRegistry().counter("consultations.cluster.forwarded").count();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response = restTemplate.postForEntity(
+            forwarder.url() + "/consultations/{id}/responses",
+            new HttpEntity<>(" ".repeat(32 * 1024) + "{}", headers), String.class, consultationId);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(forwarder.meterRegistry().counter("consultations.cluster.forwarded").count())
+            .isEqualTo(forwardedBefore);
+    }
+
+    // a node that doesn't own a consultation of node A's, served by the servlet or the reactive handlers
+    private static Node forwarder(boolean reactive) {
+        return reactive ? nodeC : nodeB;
+    }
+
+    private static long ownedBy(Node node, long from) {
+        ShardRouter shardRouter = node.context().getBean(ShardRouter.class);
+        long consultationId = from;
+        while (!shardRouter.owns(consultationId)) {
+            consultationId++;
+        }
+        return consultationId;
+    }
+
+    private static SurveyResponseDto surveyResponse() {
+        return SurveyResponseDto.builder()
+            .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+            .build();
+    }
+
+    private static Consultation consultation(long consultationId) {
+        Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+            .id(1L)
+            .text("Are you over 18?")
+            .answerValidator(new MustBeTrueValidator())
+            .answerType(AnswerType.BOOLEAN)
+            .build();
+
+        return Consultation.builder()
+            .id(consultationId)
+            .title("Sharded Consultation")
+            .questions(List.of(ageCheck))
+            .build();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Node(ConfigurableApplicationContext context, String url) {
+
+        static Node start(int port, String nodes, String... profiles) {
+            String url = "http://localhost:" + port;
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SurveysApplication.class)
+                .properties(
+                    "server.port=" + port,
+                    "consultations.cluster.self=" + url,
+                    "consultations.cluster.nodes=" + nodes,
+                    "consultations.cluster.secret=" + SECRET,
+                    "consultations.requests.max-body-size=16KB")
+                .profiles(profiles)
+                .run();
+            return new Node(context, url);
+        }
+
+        ConsultationRepository repository() {
+            return context.getBean(ConsultationRepository.class);
+        }
+
+        MeterRegistry meterRegistry() {
+            return context.getBean(MeterRegistry.class);
+        }
+    }
+}
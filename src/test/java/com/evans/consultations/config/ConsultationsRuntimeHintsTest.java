@@ -0,0 +1,42 @@
+package com.evans.consultations.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.evans.consultations.definitions.ConsultationDefinition.QuestionDefinition;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.SurveyResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+class ConsultationsRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void shouldRegisterGeneratedModels() {
+        new ConsultationsRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ConsultationDto.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(SurveyResponseDto.class)).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterEverySubtypeOfPolymorphicModels() {
+        new ConsultationsRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(AnswerDto.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(BooleanAnswerDto.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(IntegerAnswerDto.class)).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterConsultationDefinitions() {
+        new ConsultationsRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(QuestionDefinition.class)).accepts(hints);
+    }
+}
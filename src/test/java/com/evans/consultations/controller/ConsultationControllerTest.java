@@ -1,35 +1,82 @@
 package com.evans.consultations.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import com.evans.consultations.config.RequestProperties;
 import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
+import com.evans.consultations.model.AnswerOption;
 import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
 import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
 import com.evans.consultations.model.Consultation;
 import com.evans.consultations.model.ErrorDto;
 import com.evans.consultations.model.Question;
 import com.evans.consultations.repository.ConsultationRepository;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.AnswerOptionDto;
 import com.evans.consultations.model.AnswerTypeDto;
+import com.evans.consultations.model.BatchSubmissionResponseDto;
+import com.evans.consultations.model.BatchSubmissionResultDto;
 import com.evans.consultations.model.BooleanAnswerDto;
 import com.evans.consultations.model.ConsultationDto;
 import com.evans.consultations.model.ConsultationResponseDto;
 import com.evans.consultations.model.ConsultationResponseDto.StatusEnum;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.DateAnswerDto;
+import com.evans.consultations.model.DecimalAnswerDto;
+import com.evans.consultations.model.HistogramBucketDto;
 import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.IntegerDistributionDto;
+import com.evans.consultations.model.InvalidAnswerDto;
+import com.evans.consultations.model.MultiChoiceAnswerDto;
 import com.evans.consultations.model.QuestionDto;
+import com.evans.consultations.model.QuestionStatsDto;
+import com.evans.consultations.model.SessionPageDto;
+import com.evans.consultations.model.SessionProgressDto;
+import com.evans.consultations.model.SingleChoiceAnswerDto;
 import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.model.ValidationReportDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+// the JDK client, which leaves compressed bodies as they are sent, rather than Reactor Netty's, detected ahead of it
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "spring.http.client.factory=jdk")
+@AutoConfigureObservability(tracing = false)
 class ConsultationControllerTest {
 
     @LocalServerPort
@@ -41,6 +88,9 @@ class ConsultationControllerTest {
     @Autowired
     private ConsultationRepository consultationRepository;
 
+    @Autowired
+    private RequestProperties requestProperties;
+
     @BeforeEach
     void clearDatabase() {
         consultationRepository.deleteAll();
@@ -86,6 +136,52 @@ class ConsultationControllerTest {
             assertThat(questionDto.getAnswerType()).isEqualTo(AnswerTypeDto.BOOLEAN);
         }
 
+        @Test
+        void shouldReturn304WhenConsultationNotModified() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(10L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(99L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build());
+
+            String url = "http://localhost:" + port + "/consultations/{id}";
+            ResponseEntity<ConsultationDto> consultationById = restTemplate.getForEntity(url, ConsultationDto.class, 99L);
+
+            String eTag = consultationById.getHeaders().getETag();
+            assertThat(eTag).isNotNull();
+            assertThat(consultationById.getHeaders().getCacheControl()).contains("max-age");
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setIfNoneMatch(eTag);
+            ResponseEntity<ConsultationDto> notModified =
+                restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), ConsultationDto.class, 99L);
+
+            assertThat(notModified.getStatusCode().value()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+            assertThat(notModified.getBody()).isNull();
+
+            // saving a changed consultation invalidates the cached representation
+            consultationRepository.save(Consultation.builder()
+                .id(99L)
+                .title("Genovian Pear Allergy (revised)")
+                .questions(List.of(ageCheck))
+                .build());
+
+            ResponseEntity<ConsultationDto> modified =
+                restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), ConsultationDto.class, 99L);
+
+            assertThat(modified.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(modified.getHeaders().getETag()).isNotEqualTo(eTag);
+            assertThat(modified.getBody()).isNotNull();
+            assertThat(modified.getBody().getTitle()).isEqualTo("Genovian Pear Allergy (revised)");
+        }
+
         @Test
         void shouldReturn404WhenConsultationNotFound() {
             ResponseEntity<ErrorDto> consultationById =
@@ -208,10 +304,17 @@ class ConsultationControllerTest {
                 .answerType(AnswerType.BOOLEAN)
                 .build();
 
+            Question<BooleanAnswer> previousReactionCheck = Question.<BooleanAnswer>builder()
+                .id(2L)
+                .text("Have you had a reaction to this medicine before?")
+                .answerValidator(new MustBeFalseValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
             Consultation consultation = Consultation.builder()
                 .id(1L)
                 .title("Genovian Pear Allergy")
-                .questions(List.of(ageCheck))
+                .questions(List.of(ageCheck, previousReactionCheck))
                 .build();
 
             consultationRepository.save(consultation);
@@ -272,6 +375,850 @@ class ConsultationControllerTest {
             assertThat(errorDetails).isNotNull();
             assertThat(errorDetails.getMessage()).isEqualTo("Wrong answer type for following question ids: [1]");
         }
+
+        @Test
+        void shouldReportEveryProblemWithSubmission() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Question<BooleanAnswer> previousReactionCheck = Question.<BooleanAnswer>builder()
+                .id(2L)
+                .text("Have you had a reaction to this medicine before?")
+                .answerValidator(new MustBeFalseValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+                .id(3L)
+                .text("How many times have you taken this medicine?")
+                .answerValidator(new MustBeLessThanValidator(3))
+                .answerType(AnswerType.INTEGER)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(1L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck, previousReactionCheck, previousMedicineCount))
+                .build());
+
+            String url = "http://localhost:" + port + "/consultations/{consultationId}/responses";
+            SurveyResponseDto incomplete = SurveyResponseDto.builder()
+                .answers(List.of(
+                    IntegerAnswerDto.builder().questionId(1L).value(1).build(),
+                    BooleanAnswerDto.builder().questionId(2L).value(true).build()))
+                .build();
+            SurveyResponseDto invalid = SurveyResponseDto.builder()
+                .answers(List.of(
+                    BooleanAnswerDto.builder().questionId(1L).value(false).build(),
+                    BooleanAnswerDto.builder().questionId(2L).value(false).build(),
+                    IntegerAnswerDto.builder().questionId(3L).value(5).build()))
+                .build();
+
+            ResponseEntity<ErrorDto> rejected = restTemplate.postForEntity(url, incomplete, ErrorDto.class, 1);
+            ResponseEntity<ConsultationResponseDto> failed =
+                restTemplate.postForEntity(url, invalid, ConsultationResponseDto.class, 1);
+
+            assertThat(rejected.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            ValidationReportDto rejection = rejected.getBody().getValidation();
+            assertThat(rejection.getMissingQuestionIds()).containsExactly(3L);
+            assertThat(rejection.getWrongTypeQuestionIds()).containsExactly(1L);
+            assertThat(rejection.getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId, InvalidAnswerDto::getValidator)
+                .containsExactly(tuple(2L, "MustBeFalseValidator"));
+
+            assertThat(failed.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(failed.getBody().getStatus()).isEqualTo(StatusEnum.FAILED);
+            assertThat(failed.getBody().getValidation().getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId)
+                .containsExactly(1L, 3L);
+        }
+
+        @Test
+        void shouldReturn400WhenAnswerIsForUnknownQuestion() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Consultation consultation = Consultation.builder()
+                .id(1L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build();
+
+            consultationRepository.save(consultation);
+
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(
+                    BooleanAnswerDto.builder().questionId(1L).value(true).build(),
+                    BooleanAnswerDto.builder().questionId(7L).value(true).build()
+                ))
+                .build();
+
+            ResponseEntity<ErrorDto> responseEntity =
+                restTemplate.postForEntity(
+                    "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                    request,
+                    ErrorDto.class,
+                    1
+                );
+
+            assertThat(responseEntity).isNotNull();
+            assertThat(responseEntity.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+
+            ErrorDto errorDetails = responseEntity.getBody();
+            assertThat(errorDetails).isNotNull();
+            assertThat(errorDetails.getMessage()).isEqualTo("Unknown question id: 7");
+        }
+    }
+
+    @Nested
+    class SubmitBatchOfAnswersForConsultation {
+
+        @Test
+        void shouldReturnResultForEachResponseInOrder() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Consultation consultation = Consultation.builder()
+                .id(1L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build();
+
+            consultationRepository.save(consultation);
+
+            List<SurveyResponseDto> request = List.of(
+                SurveyResponseDto.builder()
+                    .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+                    .build(),
+                SurveyResponseDto.builder()
+                    .answers(List.of(
+                        BooleanAnswerDto.builder().questionId(7L).value(true).build(),
+                        BooleanAnswerDto.builder().questionId(1L).value(true).build()
+                    ))
+                    .build(),
+                SurveyResponseDto.builder()
+                    .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(false).build()))
+                    .build(),
+                SurveyResponseDto.builder()
+                    .answers(List.of())
+                    .build()
+            );
+
+            ResponseEntity<BatchSubmissionResponseDto> responseEntity =
+                restTemplate.postForEntity(
+                    "http://localhost:" + port + "/consultations/{consultationId}/responses/batch",
+                    request,
+                    BatchSubmissionResponseDto.class,
+                    1
+                );
+
+            assertThat(responseEntity).isNotNull();
+            assertThat(responseEntity.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+
+            BatchSubmissionResponseDto responseBody = responseEntity.getBody();
+            assertThat(responseBody).isNotNull();
+
+            List<BatchSubmissionResultDto> results = responseBody.getResults();
+            assertThat(results).extracting(BatchSubmissionResultDto::getIndex).containsExactly(0, 1, 2, 3);
+            assertThat(results.get(0).getResponse().getStatus()).isEqualTo(StatusEnum.REFERRED);
+            assertThat(results.get(1).getError().getMessage()).isEqualTo("Unknown question id: 7");
+            assertThat(results.get(2).getResponse().getStatus()).isEqualTo(StatusEnum.FAILED);
+            assertThat(results.get(3).getError().getMessage()).isEqualTo("Missing answers for questions: [1]");
+        }
+
+        @Test
+        void shouldReturn404WhenConsultationNotFound() {
+            List<SurveyResponseDto> request = List.of(SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+                .build());
+
+            ResponseEntity<ErrorDto> responseEntity =
+                restTemplate.postForEntity(
+                    "http://localhost:" + port + "/consultations/{consultationId}/responses/batch",
+                    request,
+                    ErrorDto.class,
+                    1
+                );
+
+            assertThat(responseEntity).isNotNull();
+            assertThat(responseEntity.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+
+            ErrorDto errorDetails = responseEntity.getBody();
+            assertThat(errorDetails).isNotNull();
+            assertThat(errorDetails.getMessage()).isEqualTo("Consultation not found");
+        }
+
+        @Test
+        void shouldReturn413WhenBatchIsTooLarge() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+            consultationRepository.save(Consultation.builder()
+                .id(1L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build());
+
+            SurveyResponseDto surveyResponse = SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+                .build();
+            List<SurveyResponseDto> request = Collections.nCopies(requestProperties.maxBatchSize() + 1, surveyResponse);
+
+            ResponseEntity<ErrorDto> responseEntity =
+                restTemplate.postForEntity(
+                    "http://localhost:" + port + "/consultations/{consultationId}/responses/batch",
+                    request,
+                    ErrorDto.class,
+                    1
+                );
+
+            assertThat(responseEntity.getStatusCode().value()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            assertThat(responseEntity.getBody().getMessage())
+                .isEqualTo("Survey response batch is larger than " + requestProperties.maxBatchSize() + " responses");
+        }
+    }
+
+    @Nested
+    class SubmissionMetrics {
+
+        @Test
+        void shouldExposeOutcomeAndInvalidAnswerCountersForScraping() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Consultation consultation = Consultation.builder()
+                .id(42L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build();
+
+            consultationRepository.save(consultation);
+
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(false).build()))
+                .build();
+
+            restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                request,
+                ConsultationResponseDto.class,
+                42
+            );
+
+            ResponseEntity<String> scrape =
+                restTemplate.getForEntity("http://localhost:" + port + "/actuator/prometheus", String.class);
+
+            assertThat(scrape.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(scrape.getBody())
+                .contains("consultations_submissions_total{consultation=\"42\",status=\"FAILED\"} 1.0")
+                .contains("consultations_answers_invalid_total{consultation=\"42\",question=\"1\",validator=\"MustBeTrueValidator\"} 1.0")
+                .contains("consultations_submission_phase_seconds_count{phase=\"parse\"}")
+                .contains("consultations_submission_phase_seconds_count{phase=\"validate\"}");
+        }
+    }
+
+    @Nested
+    class SubmissionStats {
+
+        @Test
+        void shouldAggregateOutcomesOfSubmissions() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+                .id(2L)
+                .text("How many times have you taken this medicine?")
+                .answerValidator(new MustBeLessThanValidator(3))
+                .answerType(AnswerType.INTEGER)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(43L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck, previousMedicineCount))
+                .build());
+
+            submit(true, 1);
+            submit(true, 2);
+            submit(false, 7);
+            submit(true, 5);
+
+            ResponseEntity<ConsultationStatsDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 43);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            ConsultationStatsDto stats = response.getBody();
+            assertThat(stats).isNotNull();
+            assertThat(stats.getSubmissions()).isEqualTo(4L);
+            assertThat(stats.getReferred()).isEqualTo(2L);
+            assertThat(stats.getReferralRate()).isEqualTo(0.5);
+
+            QuestionStatsDto ageStats = stats.getQuestions().get(0);
+            assertThat(ageStats.getQuestionId()).isEqualTo(1L);
+            assertThat(ageStats.getValidator()).isEqualTo("MustBeTrueValidator");
+            assertThat(ageStats.getFailures()).isEqualTo(1L);
+            assertThat(ageStats.getDistribution()).isNull();
+
+            QuestionStatsDto countStats = stats.getQuestions().get(1);
+            assertThat(countStats.getFailures()).isEqualTo(2L);
+            assertThat(countStats.getFailureRate()).isEqualTo(0.5);
+
+            IntegerDistributionDto distribution = countStats.getDistribution();
+            assertThat(distribution.getCount()).isEqualTo(4L);
+            assertThat(distribution.getMin()).isEqualTo(1);
+            assertThat(distribution.getMax()).isEqualTo(7);
+            assertThat(distribution.getMean()).isEqualTo(3.75);
+            assertThat(distribution.getBuckets())
+                .filteredOn(bucket -> bucket.getCount() > 0)
+                .extracting(HistogramBucketDto::getUpperBound, HistogramBucketDto::getCount)
+                .containsExactly(tuple(1, 1L), tuple(2, 1L), tuple(5, 1L), tuple(10, 1L));
+        }
+
+        @Test
+        void shouldReturn404WhenConsultationNotFound() {
+            ResponseEntity<ErrorDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ErrorDto.class, 100);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        }
+
+        private void submit(boolean overEighteen, int previousMedicineCount) {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(
+                    BooleanAnswerDto.builder().questionId(1L).value(overEighteen).build(),
+                    IntegerAnswerDto.builder().questionId(2L).value(previousMedicineCount).build()))
+                .build();
+
+            restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                request,
+                ConsultationResponseDto.class,
+                43
+            );
+        }
+    }
+
+    @Nested
+    class IdempotentSubmissions {
+
+        @BeforeEach
+        void saveConsultation() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(44L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck))
+                .build());
+        }
+
+        @Test
+        void shouldAnswerRetriesWithOutcomeOfFirstSubmission() {
+            ResponseEntity<ConsultationResponseDto> first = submit("retry-key", true, ConsultationResponseDto.class);
+            ResponseEntity<ConsultationResponseDto> retry = submit("retry-key", true, ConsultationResponseDto.class);
+            submit("another-key", true, ConsultationResponseDto.class);
+
+            assertThat(first.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(retry.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(retry.getBody()).isEqualTo(first.getBody());
+            assertThat(retry.getBody().getStatus()).isEqualTo(StatusEnum.REFERRED);
+
+            ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 44);
+            assertThat(stats.getBody().getSubmissions()).isEqualTo(2L);
+        }
+
+        @Test
+        void shouldReturn422WhenIdempotencyKeyIsReusedForDifferentAnswers() {
+            submit("reused-key", true, ConsultationResponseDto.class);
+
+            ResponseEntity<ErrorDto> response = submit("reused-key", false, ErrorDto.class);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            assertThat(response.getBody().getMessage())
+                .isEqualTo("Idempotency-Key has already been used for different answers");
+        }
+
+        @Test
+        void shouldReturn400WhenIdempotencyKeyIsTooLong() {
+            ResponseEntity<ErrorDto> response = submit("k".repeat(256), true, ErrorDto.class);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            assertThat(response.getBody().getMessage())
+                .isEqualTo("Idempotency-Key must be between 1 and 255 characters");
+        }
+
+        private <T> ResponseEntity<T> submit(String idempotencyKey, boolean overEighteen, Class<T> responseType) {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(overEighteen).build()))
+                .build();
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Idempotency-Key", idempotencyKey);
+
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(request, headers),
+                responseType,
+                44
+            );
+        }
+    }
+
+    @Nested
+    class ResponseSessions {
+
+        @BeforeEach
+        void saveConsultation() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+                .id(2L)
+                .text("How many times have you taken this medicine?")
+                .answerValidator(new MustBeLessThanValidator(3))
+                .answerType(AnswerType.INTEGER)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(45L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck, previousMedicineCount))
+                .build());
+        }
+
+        @Test
+        void shouldValidateEachPageAndEvaluateOnFinish() {
+            SessionProgressDto started = start();
+            String sessionId = started.getSessionId();
+            assertThat(started.getAnswered()).isZero();
+            assertThat(started.getQuestions()).isEqualTo(2);
+
+            SessionProgressDto invalidPage =
+                submitPage(sessionId, IntegerAnswerDto.builder().questionId(2L).value(7).build());
+            assertThat(invalidPage.getAnswered()).isEqualTo(1);
+            assertThat(invalidPage.getValidation().getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId)
+                .containsExactly(2L);
+
+            // answering again replaces the invalid answer
+            SessionProgressDto correctedPage =
+                submitPage(sessionId, IntegerAnswerDto.builder().questionId(2L).value(1).build());
+            assertThat(correctedPage.getValidation().getInvalidAnswers()).isEmpty();
+            submitPage(sessionId, BooleanAnswerDto.builder().questionId(1L).value(true).build());
+
+            ResponseEntity<ConsultationResponseDto> finished = finish(sessionId, ConsultationResponseDto.class);
+            ResponseEntity<ConsultationResponseDto> finishedAgain = finish(sessionId, ConsultationResponseDto.class);
+
+            assertThat(finished.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(finished.getBody().getStatus()).isEqualTo(StatusEnum.REFERRED);
+            assertThat(finishedAgain.getBody()).isEqualTo(finished.getBody());
+
+            ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 45);
+            assertThat(stats.getBody().getSubmissions()).isEqualTo(1L);
+        }
+
+        @Test
+        void shouldReturn400WhenFinishingWithUnansweredQuestions() {
+            String sessionId = start().getSessionId();
+            submitPage(sessionId, BooleanAnswerDto.builder().questionId(1L).value(true).build());
+
+            ResponseEntity<ErrorDto> response = finish(sessionId, ErrorDto.class);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Missing answers for questions: [2]");
+            assertThat(response.getBody().getValidation().getMissingQuestionIds()).containsExactly(2L);
+        }
+
+        @Test
+        void shouldReturn404WhenSessionNotFound() {
+            ResponseEntity<ErrorDto> response = finish("unknown", ErrorDto.class);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Session not found");
+        }
+
+        private SessionProgressDto start() {
+            ResponseEntity<SessionProgressDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions", null, SessionProgressDto.class, 45);
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.CREATED.value());
+            return response.getBody();
+        }
+
+        private SessionProgressDto submitPage(String sessionId, AnswerDto answer) {
+            SessionPageDto page = SessionPageDto.builder().answers(List.of(answer)).build();
+            ResponseEntity<SessionProgressDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions/{sessionId}/answers",
+                page,
+                SessionProgressDto.class,
+                45,
+                sessionId
+            );
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            return response.getBody();
+        }
+
+        private <T> ResponseEntity<T> finish(String sessionId, Class<T> responseType) {
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions/{sessionId}/finish",
+                null,
+                responseType,
+                45,
+                sessionId
+            );
+        }
+    }
+
+    @Nested
+    class ChoiceAndDateAnswers {
+
+        @BeforeEach
+        void saveConsultation() {
+            List<AnswerOption> symptoms = List.of(new AnswerOption(0, "Rash"), new AnswerOption(1, "Swelling"));
+
+            consultationRepository.save(Consultation.builder()
+                .id(46L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(
+                    Question.<DecimalAnswer>builder()
+                        .id(1L)
+                        .text("What is your temperature?")
+                        .answerValidator(new MustBeWithinValidator(35.5, 37.5))
+                        .answerType(AnswerType.DECIMAL)
+                        .build(),
+                    Question.<SingleChoiceAnswer>builder()
+                        .id(2L)
+                        .text("Which symptom is worst?")
+                        .answerValidator(new MustChooseOneOfValidator(Set.of(0)))
+                        .answerType(AnswerType.SINGLE_CHOICE)
+                        .options(symptoms)
+                        .build(),
+                    Question.<MultiChoiceAnswer>builder()
+                        .id(3L)
+                        .text("Which symptoms do you have?")
+                        .answerValidator(new MustNotChooseAnyOfValidator(Set.of(1)))
+                        .answerType(AnswerType.MULTI_CHOICE)
+                        .options(symptoms)
+                        .build(),
+                    Question.<DateAnswer>builder()
+                        .id(4L)
+                        .text("When were you born?")
+                        .answerValidator(new MustBeBeforeValidator(LocalDate.of(2008, 1, 1)))
+                        .answerType(AnswerType.DATE)
+                        .build()))
+                .build());
+        }
+
+        @Test
+        void shouldFetchOptionsOfChoiceQuestions() {
+            ResponseEntity<ConsultationDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}", ConsultationDto.class, 46);
+
+            assertThat(response.getBody().getQuestions())
+                .extracting(QuestionDto::getAnswerType)
+                .containsExactly(AnswerTypeDto.DECIMAL, AnswerTypeDto.SINGLE_CHOICE, AnswerTypeDto.MULTI_CHOICE,
+                    AnswerTypeDto.DATE);
+            assertThat(response.getBody().getQuestions().get(2).getOptions())
+                .extracting(AnswerOptionDto::getId, AnswerOptionDto::getText)
+                .containsExactly(tuple(0, "Rash"), tuple(1, "Swelling"));
+        }
+
+        @Test
+        void shouldEvaluateEachAnswerType() {
+            assertThat(submit(37.0, 0, List.of(0), LocalDate.of(1960, 5, 1)).getStatus())
+                .isEqualTo(StatusEnum.REFERRED);
+            assertThat(submit(37.0, 0, List.of(0, 1), LocalDate.of(1960, 5, 1)).getStatus())
+                .isEqualTo(StatusEnum.FAILED);
+            assertThat(submit(37.0, 0, List.of(), LocalDate.of(2010, 5, 1)).getStatus())
+                .isEqualTo(StatusEnum.FAILED);
+        }
+
+        @Test
+        void shouldValidateEachAnswerTypeInSessions() {
+            ResponseEntity<SessionProgressDto> started = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions", null, SessionProgressDto.class, 46);
+            SessionPageDto page = SessionPageDto.builder()
+                .answers(List.of(
+                    DecimalAnswerDto.builder().questionId(1L).value(39.2).build(),
+                    SingleChoiceAnswerDto.builder().questionId(2L).value(1).build(),
+                    MultiChoiceAnswerDto.builder().questionId(3L).value(List.of(0)).build(),
+                    DateAnswerDto.builder().questionId(4L).value(LocalDate.of(1960, 5, 1)).build()))
+                .build();
+
+            ResponseEntity<SessionProgressDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions/{sessionId}/answers",
+                page,
+                SessionProgressDto.class,
+                46,
+                started.getBody().getSessionId()
+            );
+
+            assertThat(response.getBody().getAnswered()).isEqualTo(4);
+            assertThat(response.getBody().getValidation().getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId)
+                .containsExactly(1L, 2L);
+        }
+
+        @Test
+        void shouldReturn400WhenChoiceIsNotAnOptionId() {
+            String request = """
+                {"answers": [
+                  {"type": "DECIMAL", "questionId": 1, "value": 37.0},
+                  {"type": "SINGLE_CHOICE", "questionId": 2, "value": 0},
+                  {"type": "MULTI_CHOICE", "questionId": 3, "value": [0, 64]},
+                  {"type": "DATE", "questionId": 4, "value": "1960-05-01"}
+                ]}""";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ResponseEntity<ErrorDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(request, headers),
+                ErrorDto.class,
+                46
+            );
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Invalid value for question: 3");
+        }
+
+        private ConsultationResponseDto submit(double temperature, int worstSymptom, List<Integer> symptoms,
+            LocalDate born) {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(
+                    DecimalAnswerDto.builder().questionId(1L).value(temperature).build(),
+                    SingleChoiceAnswerDto.builder().questionId(2L).value(worstSymptom).build(),
+                    MultiChoiceAnswerDto.builder().questionId(3L).value(symptoms).build(),
+                    DateAnswerDto.builder().questionId(4L).value(born).build()))
+                .build();
+
+            ResponseEntity<ConsultationResponseDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                request,
+                ConsultationResponseDto.class,
+                46
+            );
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            return response.getBody();
+        }
     }
 
-}
\ No newline at end of file
+    @Nested
+    class CborWireFormat {
+
+        private final CBORMapper cborMapper = new CBORMapper();
+
+        @BeforeEach
+        void saveConsultation() {
+            Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+                .id(1L)
+                .text("Are you over 18?")
+                .answerValidator(new MustBeTrueValidator())
+                .answerType(AnswerType.BOOLEAN)
+                .build();
+
+            Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+                .id(2L)
+                .text("How many times have you taken this medicine?")
+                .answerValidator(new MustBeLessThanValidator(3))
+                .answerType(AnswerType.INTEGER)
+                .build();
+
+            consultationRepository.save(Consultation.builder()
+                .id(47L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of(ageCheck, previousMedicineCount))
+                .build());
+        }
+
+        @Test
+        void shouldFetchConsultationAsCborWhenAccepted() throws IOException {
+            ResponseEntity<byte[]> cbor = get("application/cbor");
+            ResponseEntity<byte[]> json = get("application/json");
+
+            assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cbor.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+            assertThat(cbor.getHeaders().getETag()).isNotEqualTo(json.getHeaders().getETag());
+            assertThat(cbor.getBody().length).isLessThan(json.getBody().length);
+            assertThat(cborMapper.readValue(cbor.getBody(), ConsultationDto.class))
+                .isEqualTo(new ObjectMapper().readValue(json.getBody(), ConsultationDto.class));
+        }
+
+        @Test
+        void shouldRefuseConsultationInUnacceptableFormat() {
+            assertThat(get("text/plain").getStatusCode().value()).isEqualTo(HttpStatus.NOT_ACCEPTABLE.value());
+        }
+
+        @Test
+        void shouldEvaluateCborSubmission() throws IOException {
+            ResponseEntity<byte[]> referred = submit(Map.of("answers", List.of(
+                Map.of("type", "BOOLEAN", "questionId", 1, "value", true),
+                Map.of("type", "INTEGER", "questionId", 2, "value", 1))));
+            ResponseEntity<byte[]> failed = submit(Map.of("answers", List.of(
+                Map.of("value", true, "questionId", 1, "type", "BOOLEAN"),
+                Map.of("value", 5, "questionId", 2, "type", "INTEGER"))));
+
+            assertThat(referred.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(referred.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cborMapper.readValue(referred.getBody(), ConsultationResponseDto.class).getStatus())
+                .isEqualTo(StatusEnum.REFERRED);
+            assertThat(cborMapper.readValue(failed.getBody(), ConsultationResponseDto.class).getStatus())
+                .isEqualTo(StatusEnum.FAILED);
+        }
+
+        @Test
+        void shouldReturnCborErrorForInvalidCborSubmission() throws IOException {
+            ResponseEntity<byte[]> response = submit(Map.of("answers", List.of(
+                Map.of("type", "BOOLEAN", "questionId", 1, "value", true))));
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cborMapper.readValue(response.getBody(), ErrorDto.class).getMessage())
+                .isEqualTo("Missing answers for questions: [2]");
+        }
+
+        private ResponseEntity<byte[]> get(String accept) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.ACCEPT, accept);
+
+            return restTemplate.exchange(
+                "http://localhost:" + port + "/consultations/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class,
+                47
+            );
+        }
+
+        private ResponseEntity<byte[]> submit(Map<String, Object> surveyResponse) throws IOException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_CBOR);
+            headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(cborMapper.writeValueAsBytes(surveyResponse), headers),
+                byte[].class,
+                47
+            );
+        }
+    }
+
+    @Nested
+    class CompressedConsultation {
+
+        @BeforeEach
+        void saveConsultation() {
+            List<Question<?>> questions = new ArrayList<>();
+            for (long id = 1; id <= 40; id++) {
+                questions.add(Question.<BooleanAnswer>builder()
+                    .id(id)
+                    .text("Have you had a reaction to Genovian pears in the last " + id + " days?")
+                    .answerValidator(new MustBeFalseValidator())
+                    .answerType(AnswerType.BOOLEAN)
+                    .build());
+            }
+
+            consultationRepository.save(Consultation.builder()
+                .id(48L)
+                .title("Genovian Pear Allergy")
+                .questions(questions)
+                .build());
+        }
+
+        @Test
+        void shouldCompressConsultationWhenGzipIsAccepted() throws IOException {
+            ResponseEntity<byte[]> gzipped = get(48, "gzip, deflate");
+            ResponseEntity<byte[]> identity = get(48, null);
+
+            assertThat(gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(gzipped.getHeaders().getVary()).contains(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            assertThat(gzipped.getHeaders().getETag()).isNotEqualTo(identity.getHeaders().getETag());
+            assertThat(gzipped.getBody().length).isLessThan(identity.getBody().length / 4);
+            try (GZIPInputStream decoded = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+                assertThat(decoded.readAllBytes()).isEqualTo(identity.getBody());
+            }
+
+            assertThat(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        }
+
+        @Test
+        void shouldAnswerCompressedConsultationNotModified() {
+            String eTag = get(48, "gzip").getHeaders().getETag();
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            headers.setIfNoneMatch(eTag);
+            ResponseEntity<byte[]> response = restTemplate.exchange(
+                "http://localhost:" + port + "/consultations/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class,
+                48
+            );
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        }
+
+        @Test
+        void shouldNotCompressSmallConsultation() {
+            consultationRepository.save(Consultation.builder()
+                .id(49L)
+                .title("Genovian Pear Allergy")
+                .questions(List.of())
+                .build());
+
+            ResponseEntity<byte[]> response = get(49, "gzip");
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        }
+
+        private ResponseEntity<byte[]> get(long id, String acceptEncoding) {
+            HttpHeaders headers = new HttpHeaders();
+            if (acceptEncoding != null) {
+                headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+            }
+
+            return restTemplate.exchange(
+                "http://localhost:" + port + "/consultations/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class,
+                id
+            );
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.evans.consultations.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.AnswerDto;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeFalseValidator;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.BatchSubmissionResponseDto;
+import com.evans.consultations.model.BatchSubmissionResultDto;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationDto;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.ConsultationResponseDto.StatusEnum;
+import com.evans.consultations.model.ConsultationStatsDto;
+import com.evans.consultations.model.ErrorDto;
+import com.evans.consultations.model.IntegerAnswerDto;
+import com.evans.consultations.model.InvalidAnswerDto;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.SessionPageDto;
+import com.evans.consultations.model.SessionProgressDto;
+import com.evans.consultations.model.SurveyResponseDto;
+import com.evans.consultations.repository.ConsultationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+// the same API served by the reactive handlers
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+    "consultations.requests.max-body-size=16KB",
+    "consultations.requests.max-batch-size=3"
+})
+@ActiveProfiles("reactive")
+@AutoConfigureObservability(tracing = false)
+class ReactiveConsultationControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @BeforeEach
+    void saveConsultation() {
+        consultationRepository.deleteAll();
+
+        Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+            .id(1L)
+            .text("Are you over 18?")
+            .answerValidator(new MustBeTrueValidator())
+            .answerType(AnswerType.BOOLEAN)
+            .build();
+
+        Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+            .id(2L)
+            .text("How many times have you taken this medicine?")
+            .answerValidator(new MustBeLessThanValidator(3))
+            .answerType(AnswerType.INTEGER)
+            .build();
+
+        consultationRepository.save(Consultation.builder()
+            .id(50L)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(ageCheck, previousMedicineCount))
+            .build());
+    }
+
+    @Test
+    void shouldServeFromNetty() {
+        assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Nested
+    class GetConsultation {
+
+        @Test
+        void shouldFetchQuestionsAndAnswerNotModified() {
+            String url = "http://localhost:" + port + "/consultations/{id}";
+            ResponseEntity<ConsultationDto> consultation = restTemplate.getForEntity(url, ConsultationDto.class, 50L);
+
+            assertThat(consultation.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(consultation.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            assertThat(consultation.getHeaders().getCacheControl()).contains("max-age");
+            assertThat(consultation.getBody().getTitle()).isEqualTo("Genovian Pear Allergy");
+            assertThat(consultation.getBody().getQuestions()).hasSize(2);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setIfNoneMatch(consultation.getHeaders().getETag());
+            ResponseEntity<ConsultationDto> notModified =
+                restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), ConsultationDto.class, 50L);
+
+            assertThat(notModified.getStatusCode().value()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+            assertThat(notModified.getBody()).isNull();
+        }
+
+        @Test
+        void shouldFetchConsultationAsCborWhenAccepted() throws IOException {
+            ResponseEntity<byte[]> cbor = get("application/cbor", null);
+            ResponseEntity<byte[]> json = get("application/json", null);
+
+            assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cbor.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+            assertThat(new CBORMapper().readValue(cbor.getBody(), ConsultationDto.class))
+                .isEqualTo(new ObjectMapper().readValue(json.getBody(), ConsultationDto.class));
+        }
+
+        @Test
+        void shouldCompressConsultationWhenGzipIsAccepted() throws IOException, InterruptedException {
+            List<Question<?>> questions = new ArrayList<>();
+            for (long id = 1; id <= 40; id++) {
+                questions.add(Question.<BooleanAnswer>builder()
+                    .id(id)
+                    .text("Have you had a reaction to Genovian pears in the last " + id + " days?")
+                    .answerValidator(new MustBeFalseValidator())
+                    .answerType(AnswerType.BOOLEAN)
+                    .build());
+            }
+            consultationRepository.save(Consultation.builder()
+                .id(50L)
+                .title("Genovian Pear Allergy")
+                .questions(questions)
+                .build());
+
+            // a reactive application has no rest template builder to pin the client to the JDK one, and Reactor Netty's
+            // would decompress the body itself
+            HttpResponse<byte[]> gzipped = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/consultations/50"))
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .build(),
+                BodyHandlers.ofByteArray());
+            ResponseEntity<byte[]> identity = get("application/json", null);
+
+            assertThat(gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+            try (GZIPInputStream decoded = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+                assertThat(decoded.readAllBytes()).isEqualTo(identity.getBody());
+            }
+        }
+
+        @Test
+        void shouldReturn404WhenConsultationNotFound() {
+            ResponseEntity<ErrorDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}", ErrorDto.class, 100);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Consultation not found");
+        }
+
+        @Test
+        void shouldRefuseConsultationInUnacceptableFormat() {
+            assertThat(get("text/plain", null).getStatusCode().value()).isEqualTo(HttpStatus.NOT_ACCEPTABLE.value());
+        }
+
+        private ResponseEntity<byte[]> get(String accept, String acceptEncoding) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.ACCEPT, accept);
+            if (acceptEncoding != null) {
+                headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+            }
+
+            return restTemplate.exchange(
+                "http://localhost:" + port + "/consultations/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class,
+                50
+            );
+        }
+    }
+
+    @Nested
+    class SubmitAnswersForConsultation {
+
+        @Test
+        void shouldEvaluateAndRecordSubmissions() {
+            ResponseEntity<ConsultationResponseDto> referred = submit(true, 1, ConsultationResponseDto.class);
+            ResponseEntity<ConsultationResponseDto> failed = submit(true, 5, ConsultationResponseDto.class);
+
+            assertThat(referred.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(referred.getBody().getStatus()).isEqualTo(StatusEnum.REFERRED);
+            assertThat(failed.getBody().getStatus()).isEqualTo(StatusEnum.FAILED);
+            assertThat(failed.getBody().getValidation().getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId)
+                .containsExactly(2L);
+
+            ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 50);
+            assertThat(stats.getBody().getSubmissions()).isEqualTo(2L);
+        }
+
+        @Test
+        void shouldReturn400WhenAnswersAreMissing() {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+                .build();
+
+            ResponseEntity<ErrorDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses", request, ErrorDto.class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Missing answers for questions: [2]");
+            assertThat(response.getBody().getValidation().getMissingQuestionIds()).containsExactly(2L);
+        }
+
+        @Test
+        void shouldReturn404WhenConsultationNotFound() {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(true).build()))
+                .build();
+
+            ResponseEntity<ErrorDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses", request, ErrorDto.class, 1);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Consultation not found");
+        }
+
+        @Test
+        void shouldReturn400WhenBodyIsMalformed() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ResponseEntity<String> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>("{\"answers\": [", headers), String.class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        }
+
+        @Test
+        void shouldReturn413WhenBodyIsTooLarge() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ResponseEntity<ErrorDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(" ".repeat(32 * 1024) + "{}", headers), ErrorDto.class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Request body is too large");
+        }
+
+        @Test
+        void shouldEvaluateCborSubmission() throws IOException {
+            CBORMapper cborMapper = new CBORMapper();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_CBOR);
+            headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+            byte[] surveyResponse = cborMapper.writeValueAsBytes(Map.of("answers", List.of(
+                Map.of("type", "BOOLEAN", "questionId", 1, "value", true),
+                Map.of("type", "INTEGER", "questionId", 2, "value", 1))));
+
+            ResponseEntity<byte[]> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(surveyResponse, headers), byte[].class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+            assertThat(cborMapper.readValue(response.getBody(), ConsultationResponseDto.class).getStatus())
+                .isEqualTo(StatusEnum.REFERRED);
+        }
+
+        @Test
+        void shouldAnswerRetriesWithOutcomeOfFirstSubmission() {
+            ResponseEntity<ConsultationResponseDto> first = submit("retry-key", true, ConsultationResponseDto.class);
+            ResponseEntity<ConsultationResponseDto> retry = submit("retry-key", true, ConsultationResponseDto.class);
+            ResponseEntity<ErrorDto> reused = submit("retry-key", false, ErrorDto.class);
+
+            assertThat(retry.getBody()).isEqualTo(first.getBody());
+            assertThat(reused.getStatusCode().value()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY.value());
+
+            ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 50);
+            assertThat(stats.getBody().getSubmissions()).isEqualTo(1L);
+        }
+
+        private <T> ResponseEntity<T> submit(boolean overEighteen, int previousCount, Class<T> responseType) {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(
+                    BooleanAnswerDto.builder().questionId(1L).value(overEighteen).build(),
+                    IntegerAnswerDto.builder().questionId(2L).value(previousCount).build()))
+                .build();
+
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses", request, responseType, 50);
+        }
+
+        private <T> ResponseEntity<T> submit(String idempotencyKey, boolean overEighteen, Class<T> responseType) {
+            SurveyResponseDto request = SurveyResponseDto.builder()
+                .answers(List.of(
+                    BooleanAnswerDto.builder().questionId(1L).value(overEighteen).build(),
+                    IntegerAnswerDto.builder().questionId(2L).value(1).build()))
+                .build();
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Idempotency-Key", idempotencyKey);
+
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses",
+                new HttpEntity<>(request, headers), responseType, 50);
+        }
+    }
+
+    @Nested
+    class SubmitBatchOfAnswersForConsultation {
+
+        @Test
+        void shouldReturnResultForEachResponseInOrder() {
+            List<SurveyResponseDto> request = List.of(
+                surveyResponse(BooleanAnswerDto.builder().questionId(1L).value(true).build(),
+                    IntegerAnswerDto.builder().questionId(2L).value(1).build()),
+                surveyResponse(BooleanAnswerDto.builder().questionId(7L).value(true).build()),
+                surveyResponse(BooleanAnswerDto.builder().questionId(1L).value(true).build())
+            );
+
+            ResponseEntity<BatchSubmissionResponseDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses/batch",
+                request, BatchSubmissionResponseDto.class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            List<BatchSubmissionResultDto> results = response.getBody().getResults();
+            assertThat(results).extracting(BatchSubmissionResultDto::getIndex).containsExactly(0, 1, 2);
+            assertThat(results.get(0).getResponse().getStatus()).isEqualTo(StatusEnum.REFERRED);
+            assertThat(results.get(1).getError().getMessage()).isEqualTo("Unknown question id: 7");
+            assertThat(results.get(2).getError().getMessage()).isEqualTo("Missing answers for questions: [2]");
+        }
+
+        @Test
+        void shouldReturn413WhenBatchIsTooLarge() {
+            List<SurveyResponseDto> request = Collections.nCopies(4,
+                surveyResponse(BooleanAnswerDto.builder().questionId(1L).value(true).build()));
+
+            ResponseEntity<ErrorDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{consultationId}/responses/batch",
+                request, ErrorDto.class, 50);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Survey response batch is larger than 3 responses");
+        }
+
+        private SurveyResponseDto surveyResponse(AnswerDto... answers) {
+            return SurveyResponseDto.builder().answers(List.of(answers)).build();
+        }
+    }
+
+    @Nested
+    class ResponseSessions {
+
+        @Test
+        void shouldValidateEachPageAndEvaluateOnFinish() {
+            ResponseEntity<SessionProgressDto> started = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions", null, SessionProgressDto.class, 50);
+            assertThat(started.getStatusCode().value()).isEqualTo(HttpStatus.CREATED.value());
+            String sessionId = started.getBody().getSessionId();
+
+            SessionProgressDto invalidPage = submitPage(sessionId, List.of(
+                BooleanAnswerDto.builder().questionId(1L).value(true).build(),
+                IntegerAnswerDto.builder().questionId(2L).value(7).build()));
+            assertThat(invalidPage.getAnswered()).isEqualTo(2);
+            assertThat(invalidPage.getValidation().getInvalidAnswers())
+                .extracting(InvalidAnswerDto::getQuestionId)
+                .containsExactly(2L);
+
+            ResponseEntity<ConsultationResponseDto> finished = finish(sessionId, ConsultationResponseDto.class);
+            ResponseEntity<ConsultationResponseDto> finishedAgain = finish(sessionId, ConsultationResponseDto.class);
+
+            assertThat(finished.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            assertThat(finished.getBody().getStatus()).isEqualTo(StatusEnum.FAILED);
+            assertThat(finishedAgain.getBody()).isEqualTo(finished.getBody());
+
+            ResponseEntity<ConsultationStatsDto> stats = restTemplate.getForEntity(
+                "http://localhost:" + port + "/consultations/{id}/stats", ConsultationStatsDto.class, 50);
+            assertThat(stats.getBody().getSubmissions()).isEqualTo(1L);
+        }
+
+        @Test
+        void shouldReturn404WhenSessionNotFound() {
+            ResponseEntity<ErrorDto> response = finish("unknown", ErrorDto.class);
+
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.NOT_FOUND.value());
+            assertThat(response.getBody().getMessage()).isEqualTo("Session not found");
+        }
+
+        private SessionProgressDto submitPage(String sessionId, List<AnswerDto> answers) {
+            ResponseEntity<SessionProgressDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions/{sessionId}/answers",
+                SessionPageDto.builder().answers(answers).build(), SessionProgressDto.class, 50, sessionId);
+            assertThat(response.getStatusCode().value()).isEqualTo(HttpStatus.OK.value());
+            return response.getBody();
+        }
+
+        private <T> ResponseEntity<T> finish(String sessionId, Class<T> responseType) {
+            return restTemplate.postForEntity(
+                "http://localhost:" + port + "/consultations/{id}/sessions/{sessionId}/finish",
+                null, responseType, 50, sessionId);
+        }
+    }
+}
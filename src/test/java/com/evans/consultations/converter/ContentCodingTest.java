@@ -0,0 +1,39 @@
+package com.evans.consultations.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class ContentCodingTest {
+
+    @Test
+    void shouldCompressOnlyWhenGzipIsAccepted() {
+        assertThat(ContentCoding.preferred(null)).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.preferred("")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.preferred("br, deflate")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.preferred("gzip;q=0, *")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.preferred("*;q=0")).isEqualTo(ContentCoding.IDENTITY);
+
+        assertThat(ContentCoding.preferred("gzip, deflate, br")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.preferred("identity, GZIP;q=0.5")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.preferred("x-gzip")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.preferred("*")).isEqualTo(ContentCoding.GZIP);
+    }
+
+    @Test
+    void shouldEncodeReadableGzip() throws IOException {
+        byte[] body = "{\"title\":\"Genovian Pear Allergy\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = ContentCoding.GZIP.encode(body);
+
+        assertThat(encoded.length).isLessThan(body.length / 10);
+        try (GZIPInputStream decoded = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(decoded.readAllBytes()).isEqualTo(body);
+        }
+        assertThat(ContentCoding.IDENTITY.encode(body)).isSameAs(body);
+    }
+}
@@ -0,0 +1,37 @@
+package com.evans.consultations.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.evans.consultations.exception.ConsultationsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class WireFormatTest {
+
+    @Test
+    void shouldPreferJsonUnlessCborIsAskedFor() {
+        assertThat(WireFormat.preferred(null)).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.preferred("")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.preferred("*/*")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.preferred("application/*")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.preferred("application/json, application/cbor")).isEqualTo(WireFormat.JSON);
+    }
+
+    @Test
+    void shouldAnswerCborWhenPreferredByQualityOrSpecificity() {
+        assertThat(WireFormat.preferred("application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.preferred("*/*, application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.preferred("application/json;q=0.5, application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.preferred("application/json;q=0, */*")).isEqualTo(WireFormat.CBOR);
+    }
+
+    @Test
+    void shouldRefuseWhenNeitherFormatIsAccepted() {
+        assertThatThrownBy(() -> WireFormat.preferred("text/plain"))
+            .isInstanceOfSatisfying(ConsultationsException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.NOT_ACCEPTABLE));
+        assertThatThrownBy(() -> WireFormat.preferred("application/json;q=0, application/cbor;q=0, */*"))
+            .isInstanceOf(ConsultationsException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.evans.consultations.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+// through the application's own structured, asynchronous console logging
+@Slf4j
+@SpringBootTest
+@ExtendWith(OutputCaptureExtension.class)
+class DefinitionWatcherLoggingTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private static Path directory;
+
+    @DynamicPropertySource
+    static void definitionsDirectory(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("definitions");
+        registry.add("consultations.definitions.directory", directory::toString);
+        registry.add("consultations.definitions.settle-delay", () -> "50ms");
+    }
+
+    @AfterAll
+    static void deleteDirectory() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void shouldKeepLoggingAfterInvalidDefinition(CapturedOutput output) throws IOException, InterruptedException {
+        Files.writeString(directory.resolve("broken.yaml"), "id: [not a number");
+        await(() -> output.getOut().contains("Invalid consultation definition"));
+
+        log.info("Logged after an invalid definition");
+
+        await(() -> output.getOut().contains("Logged after an invalid definition"));
+        assertThat(output.getOut()).contains("broken.yaml");
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.get() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.get()).isTrue();
+    }
+}
@@ -0,0 +1,180 @@
+package com.evans.consultations.definitions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.repository.CatalogEntry;
+import com.evans.consultations.repository.ConsultationRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DefinitionWatcherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @TempDir
+    private Path directory;
+
+    private final ConsultationRepository consultationRepository = new ConsultationRepository();
+    private DefinitionWatcher definitionWatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        write("pear-allergy.yaml", definition(3));
+        Files.writeString(directory.resolve("notes.txt"), "not a definition");
+        definitionWatcher = new DefinitionWatcher(
+            new DefinitionProperties(directory, Duration.ofMillis(50)), consultationRepository);
+        definitionWatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        definitionWatcher.stop();
+    }
+
+    @Test
+    void shouldLoadDefinitionsOnStart() {
+        Question<?> question = consultationRepository.getById(1L).questions().get(0);
+
+        assertThat(consultationRepository.getById(1L).title()).isEqualTo("Genovian Pear Allergy");
+        assertThat(question.answerType()).isEqualTo(AnswerType.INTEGER);
+        assertThat(question.answerValidator()).isEqualTo(new MustBeLessThanValidator(3));
+    }
+
+    @Test
+    void shouldPublishChangedDefinitionsAsANewVersion() throws IOException, InterruptedException {
+        CatalogEntry before = consultationRepository.getEntryById(1L);
+
+        write("pear-allergy.yaml", definition(5));
+        write("pear-intolerance.json", """
+            {"id": 2, "title": "Genovian Pear Intolerance", "questions": [
+              {"id": 1, "text": "Are you over 18 years old?", "answerType": "BOOLEAN",
+               "validator": {"type": "MustBeTrue"}}
+            ]}
+            """);
+        awaitVersionAfter(before.version());
+        awaitConsultation(2L);
+
+        assertThat(consultationRepository.getById(1L).questions().get(0).answerValidator())
+            .isEqualTo(new MustBeLessThanValidator(5));
+        assertThat(consultationRepository.getById(2L).title()).isEqualTo("Genovian Pear Intolerance");
+        // a submission already holding the previous entry carries on evaluating against it
+        assertThat(before.consultation().questions().get(0).answerValidator())
+            .isEqualTo(new MustBeLessThanValidator(3));
+    }
+
+    @Test
+    void shouldLoadChoiceOptionsAndDecimalAndDateValidators() throws InterruptedException, IOException {
+        write("pear-symptoms.yaml", """
+            id: 4
+            questions:
+              - id: 1
+                answerType: MULTI_CHOICE
+                options: [ { id: 0, text: Rash }, { id: 1, text: Swelling } ]
+                validator: { type: MustNotChooseAnyOf, values: [ 1 ] }
+              - { id: 2, answerType: DECIMAL, validator: { type: MustBeWithin, min: 35.5, max: 37.5 } }
+              - { id: 3, answerType: DATE, validator: { type: MustBeBefore, date: 2008-01-01 } }
+            """);
+        awaitConsultation(4L);
+
+        List<Question<? extends Answer<?>>> questions = consultationRepository.getById(4L).questions();
+        assertThat(questions.get(0).options())
+            .containsExactly(new AnswerOption(0, "Rash"), new AnswerOption(1, "Swelling"));
+        assertThat(questions.get(0).answerValidator()).isEqualTo(new MustNotChooseAnyOfValidator(Set.of(1)));
+        assertThat(questions.get(1).answerValidator()).isEqualTo(new MustBeWithinValidator(35.5, 37.5));
+        assertThat(questions.get(2).answerValidator()).isEqualTo(new MustBeBeforeValidator(LocalDate.of(2008, 1, 1)));
+    }
+
+    @Test
+    void shouldLoadRulesBetweenQuestions() throws InterruptedException, IOException {
+        write("pear-allergy-rules.yaml", """
+            id: 5
+            title: Genovian Pear Allergy
+            questions:
+              - id: 3
+                text: How many times have you taken this medicine?
+                answerType: INTEGER
+                validator: { type: MustBeLessThan, threshold: 3 }
+              - id: 4
+                text: How old are you?
+                answerType: INTEGER
+                validator: { type: MustBeGreaterThan, threshold: 17 }
+              - id: 5
+                text: Which of these symptoms do you have?
+                answerType: MULTI_CHOICE
+                options: [ { id: 0, text: Rash }, { id: 1, text: Swelling } ]
+                validator: { type: MustNotChooseAnyOf, values: [ 1 ] }
+            rules:
+              - name: Under 65 after previous use
+                condition:
+                  when: { questionId: 3, validator: { type: MustBeGreaterThan, threshold: 0 } }
+                  then: { questionId: 4, validator: { type: MustBeLessThan, threshold: 65 } }
+            """);
+        awaitConsultation(5L);
+
+        assertThat(consultationRepository.getById(5L).rules())
+            .singleElement()
+            .extracting(Rule::name)
+            .isEqualTo("Under 65 after previous use");
+    }
+
+    @Test
+    void shouldKeepPublishedVersionWhenDefinitionIsInvalid() throws IOException, InterruptedException {
+        long version = consultationRepository.version();
+
+        write("pear-allergy.yaml", definition(3).replace("MustBeLessThan", "MustBeTrue"));
+        write("canary.yaml", "id: 3\nquestions:\n  - { id: 1, answerType: BOOLEAN, validator: { type: MustBeTrue } }\n");
+        awaitConsultation(3L);
+
+        assertThat(consultationRepository.getEntryById(1L).version()).isEqualTo(version);
+        assertThat(consultationRepository.getById(1L).questions().get(0).answerValidator())
+            .isEqualTo(new MustBeLessThanValidator(3));
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Files.writeString(directory.resolve(fileName), content);
+    }
+
+    private static String definition(int threshold) {
+        return """
+            id: 1
+            title: Genovian Pear Allergy
+            questions:
+              - id: 3
+                text: How many times have you taken this medicine?
+                answerType: INTEGER
+                validator: { type: MustBeLessThan, threshold: %d }
+            """.formatted(threshold);
+    }
+
+    private void awaitVersionAfter(long version) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (consultationRepository.getEntryById(1L).version() == version && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private void awaitConsultation(long id) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!consultationRepository.existsById(id) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.evans.consultations.evaluation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.exception.InvalidSubmissionException;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeAfterValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeGreaterThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
+import com.evans.consultations.model.Condition.AllOf;
+import com.evans.consultations.model.Condition.AnyOf;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Condition.Not;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import com.evans.consultations.model.ValidationReport;
+import com.evans.consultations.model.ValidationReport.InvalidAnswer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EvaluationPlanTest {
+
+    private final EvaluationPlan evaluationPlan = EvaluationPlan.compile(Consultation.builder()
+        .id(1L)
+        .title("Genovian Pear Allergy")
+        .questions(List.of(
+            Question.<IntegerAnswer>builder()
+                .id(30L)
+                .answerType(AnswerType.INTEGER)
+                .answerValidator(new MustBeLessThanValidator(3))
+                .build(),
+            Question.<BooleanAnswer>builder()
+                .id(10L)
+                .answerType(AnswerType.BOOLEAN)
+                .answerValidator(new MustBeTrueValidator())
+                .build()
+        ))
+        .build());
+
+    @Test
+    void shouldReferWhenAllAnswersAreValid() {
+        List<Answer<?>> answers = List.of(new BooleanAnswer(10L, true), new IntegerAnswer(30L, 1));
+
+        assertThat(evaluationPlan.evaluate(answers).status()).isEqualTo(Status.REFERRED);
+    }
+
+    @Test
+    void shouldFailWhenAnyAnswerIsInvalid() {
+        List<Answer<?>> answers = List.of(new BooleanAnswer(10L, true), new IntegerAnswer(30L, 5));
+
+        assertThat(evaluationPlan.evaluate(answers).status()).isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void shouldReportMissingAnswersInQuestionOrder() {
+        assertThatThrownBy(() -> evaluationPlan.evaluate(List.of()))
+            .isInstanceOf(ConsultationsException.class)
+            .hasMessage("Missing answers for questions: [30, 10]");
+    }
+
+    @Test
+    void shouldReportMissingAndMistypedAnswersTogether() {
+        List<Answer<?>> answers = List.of(new IntegerAnswer(10L, 1));
+
+        assertThatThrownBy(() -> evaluationPlan.evaluate(answers))
+            .isInstanceOfSatisfying(InvalidSubmissionException.class, e -> {
+                assertThat(e.getMessage()).isEqualTo(
+                    "Missing answers for questions: [30]; Wrong answer type for following question ids: [10]");
+                assertThat(e.getValidationReport().missingQuestionIds()).containsExactly(30L);
+                assertThat(e.getValidationReport().wrongTypeQuestionIds()).containsExactly(10L);
+                assertThat(e.getStackTrace()).isEmpty();
+            });
+    }
+
+    @Test
+    void shouldReportEveryInvalidAnswerUnmetRuleAndShortfallInScore() {
+        Rule rule = new Rule("Low score after previous use", new Implies(
+            new Matches(30L, new MustBeGreaterThanValidator(0)),
+            new Matches(40L, new MustBeLessThanValidator(50))));
+        Scoring scoring = new Scoring(List.of(new Weight(new Matches(40L, new MustBeLessThanValidator(10)), 1)), 1);
+        EvaluationPlan plan = EvaluationPlan.compile(consultation(List.of(rule), scoring));
+        List<Answer<?>> answers = List.of(
+            new BooleanAnswer(10L, false), new IntegerAnswer(30L, 5), new IntegerAnswer(40L, 80));
+
+        PackedAnswers packedAnswers = plan.pack(answers);
+        BitSet invalidPositions = plan.invalidPositions(packedAnswers);
+        ValidationReport report = plan.validate(packedAnswers, invalidPositions);
+
+        assertThat(invalidPositions.stream()).containsExactly(plan.positionOf(10L), plan.positionOf(30L));
+        assertThat(plan.validate(packedAnswers)).isEqualTo(report);
+        assertThat(report.isComplete()).isTrue();
+        assertThat(report.invalidAnswers()).containsExactly(
+            new InvalidAnswer(10L, "MustBeTrueValidator"), new InvalidAnswer(30L, "MustBeLessThanValidator"));
+        assertThat(report.unmetRules()).containsExactly("Low score after previous use");
+        assertThat(report.score()).isZero();
+        assertThat(plan.validate(plan.pack(answers(0, 5)))).isEqualTo(
+            new ValidationReport(List.of(), List.of(), List.of(), List.of(), null));
+    }
+
+    @Test
+    void shouldRejectDuplicateAnswers() {
+        List<Answer<?>> answers = List.of(new BooleanAnswer(10L, true), new BooleanAnswer(10L, true));
+
+        assertThatThrownBy(() -> evaluationPlan.evaluate(answers))
+            .isInstanceOf(ConsultationsException.class)
+            .hasMessage("Duplicate answer for question: 10");
+    }
+
+    @Test
+    void shouldLocateAnswersInLargeConsultation() {
+        List<Question<? extends Answer<?>>> questions = new ArrayList<>();
+        List<Answer<?>> answers = new ArrayList<>();
+        for (long id = 1000; id < 1500; id++) {
+            questions.add(Question.<IntegerAnswer>builder()
+                .id(id)
+                .answerType(AnswerType.INTEGER)
+                .answerValidator(new MustBeLessThanValidator(3))
+                .build());
+            answers.add(new IntegerAnswer(id, 1));
+        }
+        EvaluationPlan largePlan = EvaluationPlan.compile(Consultation.builder().id(3L).questions(questions).build());
+
+        assertThat(largePlan.evaluate(answers).status()).isEqualTo(Status.REFERRED);
+        assertThat(largePlan.positionOf(1499L)).isEqualTo(499);
+        assertThat(largePlan.positionOf(1500L)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldRejectValidatorForDifferentAnswerType() {
+        Consultation consultation = Consultation.builder()
+            .id(2L)
+            .questions(List.of(Question.<BooleanAnswer>builder()
+                .id(1L)
+                .answerType(AnswerType.INTEGER)
+                .answerValidator(new MustBeTrueValidator())
+                .build()))
+            .build();
+
+        assertThatThrownBy(() -> EvaluationPlan.compile(consultation))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldApplyRangeAndSetValidators() {
+        EvaluationPlan plan = EvaluationPlan.compile(Consultation.builder()
+            .id(4L)
+            .questions(List.of(
+                Question.<IntegerAnswer>builder()
+                    .id(1L)
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new MustBeBetweenValidator(18, 65))
+                    .build(),
+                Question.<IntegerAnswer>builder()
+                    .id(2L)
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new MustBeOneOfValidator(Set.of(1, 2, 4)))
+                    .build()))
+            .build());
+
+        assertThat(plan.evaluate(List.of(new IntegerAnswer(1L, 65), new IntegerAnswer(2L, 4))).status())
+            .isEqualTo(Status.REFERRED);
+        assertThat(plan.evaluate(List.of(new IntegerAnswer(1L, 66), new IntegerAnswer(2L, 4))).status())
+            .isEqualTo(Status.FAILED);
+        assertThat(plan.evaluate(List.of(new IntegerAnswer(1L, 18), new IntegerAnswer(2L, 3))).status())
+            .isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void shouldApplyDecimalChoiceAndDateValidators() {
+        List<AnswerOption> symptoms = List.of(
+            new AnswerOption(0, "Rash"), new AnswerOption(1, "Swelling"), new AnswerOption(2, "Headache"));
+        EvaluationPlan plan = EvaluationPlan.compile(Consultation.builder()
+            .id(6L)
+            .questions(List.of(
+                Question.<DecimalAnswer>builder()
+                    .id(1L)
+                    .answerType(AnswerType.DECIMAL)
+                    .answerValidator(new MustBeWithinValidator(35.5, 37.5))
+                    .build(),
+                Question.<SingleChoiceAnswer>builder()
+                    .id(2L)
+                    .answerType(AnswerType.SINGLE_CHOICE)
+                    .answerValidator(new MustChooseOneOfValidator(Set.of(0, 2)))
+                    .options(symptoms)
+                    .build(),
+                Question.<MultiChoiceAnswer>builder()
+                    .id(3L)
+                    .answerType(AnswerType.MULTI_CHOICE)
+                    .answerValidator(new MustNotChooseAnyOfValidator(Set.of(1)))
+                    .options(symptoms)
+                    .build(),
+                Question.<DateAnswer>builder()
+                    .id(4L)
+                    .answerType(AnswerType.DATE)
+                    .answerValidator(new MustBeBeforeValidator(LocalDate.of(2008, 1, 1)))
+                    .build()))
+            .rules(List.of(new Rule("No headache after 1970", new Implies(
+                new Matches(4L, new MustBeAfterValidator(LocalDate.of(1970, 1, 1))),
+                new Matches(3L, new MustNotChooseAnyOfValidator(Set.of(2)))))))
+            .build());
+
+        assertThat(plan.evaluate(choices(37.0, 0, Set.of(0, 2), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.REFERRED);
+        assertThat(plan.evaluate(choices(37.0, 2, Set.of(), LocalDate.of(1990, 5, 1))).status())
+            .isEqualTo(Status.REFERRED);
+        assertThat(plan.evaluate(choices(38.0, 0, Set.of(), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+        assertThat(plan.evaluate(choices(37.0, 1, Set.of(), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+        assertThat(plan.evaluate(choices(37.0, 0, Set.of(0, 1), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+        assertThat(plan.evaluate(choices(37.0, 0, Set.of(2), LocalDate.of(1990, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+        // options that aren't offered are never valid, even where the validator would allow them
+        assertThat(plan.evaluate(choices(37.0, 5, Set.of(), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+        assertThat(plan.evaluate(choices(37.0, 0, Set.of(99), LocalDate.of(1960, 5, 1))).status())
+            .isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void shouldRejectChoiceValidatorForOptionsNotOffered() {
+        Consultation consultation = Consultation.builder()
+            .id(7L)
+            .questions(List.of(Question.<SingleChoiceAnswer>builder()
+                .id(1L)
+                .answerType(AnswerType.SINGLE_CHOICE)
+                .answerValidator(new MustChooseOneOfValidator(Set.of(3)))
+                .options(List.of(new AnswerOption(0, "Yes"), new AnswerOption(1, "No")))
+                .build()))
+            .build();
+
+        assertThatThrownBy(() -> EvaluationPlan.compile(consultation))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Validator refers to options not offered by question: 1");
+    }
+
+    @Test
+    void shouldRejectChoiceQuestionWithoutOptions() {
+        Consultation consultation = Consultation.builder()
+            .id(8L)
+            .questions(List.of(Question.<MultiChoiceAnswer>builder()
+                .id(1L)
+                .answerType(AnswerType.MULTI_CHOICE)
+                .answerValidator(new MustNotChooseAnyOfValidator(Set.of(0)))
+                .build()))
+            .build();
+
+        assertThatThrownBy(() -> EvaluationPlan.compile(consultation))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Choice question must offer options: 1");
+    }
+
+    @Test
+    void shouldFailWhenCrossQuestionRuleIsNotMet() {
+        // anyone who has taken the medicine before must have a score below 50
+        Rule rule = new Rule("Low score after previous use", new Implies(
+            new Matches(30L, new MustBeGreaterThanValidator(0)),
+            new Matches(40L, new MustBeLessThanValidator(50))));
+        EvaluationPlan plan = EvaluationPlan.compile(consultation(List.of(rule), null));
+
+        assertThat(plan.evaluate(answers(0, 80)).status()).isEqualTo(Status.REFERRED);
+        assertThat(plan.evaluate(answers(1, 20)).status()).isEqualTo(Status.REFERRED);
+        assertThat(plan.evaluate(answers(1, 80)).status()).isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void shouldReferOnlyWhenScoreReachesThreshold() {
+        Scoring scoring = new Scoring(List.of(
+            new Weight(new Matches(40L, new MustBeGreaterThanValidator(60)), 2),
+            new Weight(new AllOf(List.of(
+                new Matches(30L, new MustBeGreaterThanValidator(0)),
+                new Not(new Matches(30L, new MustBeGreaterThanValidator(1))))), 1),
+            new Weight(new AnyOf(List.of(
+                new Matches(30L, new MustBeOneOfValidator(Set.of(0))),
+                new Matches(40L, new MustBeBetweenValidator(90, 100)))), 1)
+        ), 3);
+        EvaluationPlan plan = EvaluationPlan.compile(consultation(null, scoring));
+
+        // 2 + 1 + 1
+        assertThat(plan.evaluate(answers(1, 95)).status()).isEqualTo(Status.REFERRED);
+        // 0 + 1 + 0
+        assertThat(plan.evaluate(answers(1, 10)).status()).isEqualTo(Status.FAILED);
+    }
+
+    @Test
+    void shouldRejectConditionForDifferentAnswerType() {
+        Rule rule = new Rule("Mismatched", new Matches(10L, new MustBeLessThanValidator(1)));
+
+        assertThatThrownBy(() -> EvaluationPlan.compile(consultation(List.of(rule), null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Condition is not of the correct answerType for question: 10");
+    }
+
+    @Test
+    void shouldRejectConditionOnUnknownQuestion() {
+        Rule rule = new Rule("Unknown", new Matches(99L, new MustBeTrueValidator()));
+
+        assertThatThrownBy(() -> EvaluationPlan.compile(consultation(List.of(rule), null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Condition refers to unknown question: 99");
+    }
+
+    private static Consultation consultation(List<Rule> rules, Scoring scoring) {
+        return Consultation.builder()
+            .id(5L)
+            .questions(List.of(
+                Question.<BooleanAnswer>builder()
+                    .id(10L)
+                    .answerType(AnswerType.BOOLEAN)
+                    .answerValidator(new MustBeTrueValidator())
+                    .build(),
+                Question.<IntegerAnswer>builder()
+                    .id(30L)
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new MustBeLessThanValidator(3))
+                    .build(),
+                Question.<IntegerAnswer>builder()
+                    .id(40L)
+                    .answerType(AnswerType.INTEGER)
+                    .answerValidator(new MustBeBetweenValidator(0, 100))
+                    .build()))
+            .rules(rules)
+            .scoring(scoring)
+            .build();
+    }
+
+    private static List<Answer<?>> choices(double temperature, int symptom, Set<Integer> symptoms, LocalDate born) {
+        return List.of(new DecimalAnswer(1L, temperature), new SingleChoiceAnswer(2L, symptom),
+            new MultiChoiceAnswer(3L, symptoms), new DateAnswer(4L, born));
+    }
+
+    private static List<Answer<?>> answers(int previousUses, int score) {
+        return List.of(new BooleanAnswer(10L, true), new IntegerAnswer(30L, previousUses), new IntegerAnswer(40L, score));
+    }
+}
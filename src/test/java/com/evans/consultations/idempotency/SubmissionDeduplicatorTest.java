@@ -0,0 +1,147 @@
+package com.evans.consultations.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.evans.consultations.exception.ConsultationsException;
+import com.evans.consultations.model.ConsultationResponseDto;
+import com.evans.consultations.model.BooleanAnswerDto;
+import com.evans.consultations.model.ConsultationResponseDto.StatusEnum;
+import com.evans.consultations.model.SurveyResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class SubmissionDeduplicatorTest {
+
+    private static final ConsultationResponseDto REFERRED = ConsultationResponseDto.builder()
+        .status(StatusEnum.REFERRED)
+        .build();
+    private static final SurveyResponseDto OVER_EIGHTEEN = surveyResponse(true);
+
+    private final SubmissionDeduplicator deduplicator = new SubmissionDeduplicator(
+        new IdempotencyProperties(100, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @Test
+    void shouldEvaluateConcurrentDuplicatesOnce() throws Exception {
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ConsultationResponseDto> first = executor.submit(() ->
+                deduplicator.submit(1L, "key", OVER_EIGHTEEN, () -> {
+                    evaluating.countDown();
+                    await(release);
+                    return evaluate();
+                }));
+            assertThat(evaluating.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<ConsultationResponseDto> duplicate = executor.submit(() ->
+                deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate));
+
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(REFERRED);
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(REFERRED);
+            assertThat(evaluations).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldScopeKeysToConsultation() {
+        deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate);
+        deduplicator.submit(2L, "key", OVER_EIGHTEEN, this::evaluate);
+        deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate);
+
+        assertThat(evaluations).hasValue(2);
+    }
+
+    @Test
+    void shouldEvaluateAgainAfterFailedSubmission() {
+        assertThatThrownBy(() -> deduplicator.submit(1L, "key", OVER_EIGHTEEN, () -> {
+            throw new ConsultationsException(HttpStatus.BAD_REQUEST, "Answers missing");
+        })).isInstanceOf(ConsultationsException.class);
+
+        assertThat(deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate)).isSameAs(REFERRED);
+        assertThat(evaluations).hasValue(1);
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentAnswers() {
+        deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate);
+
+        assertThatThrownBy(() -> deduplicator.submit(1L, "key", surveyResponse(false), this::evaluate))
+            .isInstanceOfSatisfying(ConsultationsException.class, e ->
+                assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(deduplicator.submit(1L, "key", surveyResponse(true), this::evaluate)).isSameAs(REFERRED);
+        assertThat(evaluations).hasValue(1);
+    }
+
+    @Test
+    void shouldReleaseWaitingDuplicateWhenSubmissionThrowsError() throws Exception {
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ConsultationResponseDto> first = executor.submit(() ->
+                deduplicator.submit(1L, "key", OVER_EIGHTEEN, () -> {
+                    evaluating.countDown();
+                    await(release);
+                    throw new StackOverflowError();
+                }));
+            assertThat(evaluating.await(5, TimeUnit.SECONDS)).isTrue();
+            AtomicReference<Throwable> duplicateFailure = new AtomicReference<>();
+            Thread duplicate = new Thread(() -> {
+                try {
+                    deduplicator.submit(1L, "key", OVER_EIGHTEEN, this::evaluate);
+                } catch (Throwable e) {
+                    duplicateFailure.set(e);
+                }
+            });
+            duplicate.start();
+            // only parked once it is waiting on the first attempt's outcome
+            while (duplicate.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+            duplicate.join(5000);
+            assertThat(duplicateFailure.get()).isInstanceOf(StackOverflowError.class);
+            assertThat(evaluations).hasValue(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SurveyResponseDto surveyResponse(boolean overEighteen) {
+        return SurveyResponseDto.builder()
+            .answers(List.of(BooleanAnswerDto.builder().questionId(1L).value(overEighteen).build()))
+            .build();
+    }
+
+    private ConsultationResponseDto evaluate() {
+        evaluations.incrementAndGet();
+        return REFERRED;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.evans.consultations.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.evans.consultations.evaluation.EvaluationPlan;
+import com.evans.consultations.model.Answer;
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.repository.CatalogEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ResponseJournalTest {
+
+    private static final CatalogEntry ENTRY = catalogEntry();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReplaySubmissionsInOrderAcrossSegments() throws InterruptedException, IOException {
+        try (ResponseJournal journal = journal(DataSize.ofKilobytes(1))) {
+            for (int i = 0; i < 200; i++) {
+                append(journal, i);
+            }
+        }
+
+        List<JournalEntry> entries = replay();
+
+        assertThat(segmentCount()).isGreaterThan(1);
+        assertThat(entries).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            JournalEntry entry = entries.get(i);
+            assertThat(entry.sequence()).isEqualTo(i + 1);
+            assertThat(entry.consultationId()).isEqualTo(1L);
+            assertThat(entry.consultationVersion()).isEqualTo(7L);
+            assertThat(entry.status()).isEqualTo(i < 3 ? Status.REFERRED : Status.FAILED);
+            assertThat(entry.answers()).containsExactly(new BooleanAnswer(1L, true), new IntegerAnswer(2L, i));
+        }
+    }
+
+    @Test
+    void shouldDropTornRecordAndCarryOnFromLastIntactOne() throws InterruptedException, IOException {
+        try (ResponseJournal journal = journal(DataSize.ofMegabytes(1))) {
+            append(journal, 0);
+            append(journal, 1);
+        }
+        Path segment = directory.resolve(String.format("%020d", 1) + ".journal");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        try (ResponseJournal journal = journal(DataSize.ofMegabytes(1))) {
+            append(journal, 2);
+        }
+
+        assertThat(replay())
+            .extracting(JournalEntry::sequence, entry -> entry.answers().get(1))
+            .containsExactly(
+                tuple(1L, new IntegerAnswer(2L, 0)),
+                tuple(2L, new IntegerAnswer(2L, 2)));
+    }
+
+    @Test
+    void shouldUndoFailedCommitSoLaterRecordsAreRecovered() throws IOException {
+        FailingChannel[] channel = new FailingChannel[1];
+        try (JournalSegment segment = JournalSegment.create(directory, 1L, (path, options) ->
+            channel[0] = new FailingChannel(FileChannel.open(path, options)))) {
+            append(segment, 0);
+            segment.commit();
+
+            append(segment, 1);
+            append(segment, 2);
+            channel[0].failNextWrite = true;
+            assertThatThrownBy(segment::commit).isInstanceOf(IOException.class);
+
+            append(segment, 3);
+            segment.commit();
+        }
+
+        assertThat(replay())
+            .extracting(JournalEntry::sequence, entry -> entry.answers().get(1))
+            .containsExactly(
+                tuple(1L, new IntegerAnswer(2L, 0)),
+                tuple(2L, new IntegerAnswer(2L, 3)));
+
+        try (JournalSegment recovered = JournalSegment.recover(
+            directory.resolve(String.format("%020d", 1) + ".journal"), 1L)) {
+            assertThat(recovered.lastSequence()).isEqualTo(2L);
+        }
+    }
+
+    @Test
+    void shouldRejectSubmissionsOnceClosed() throws InterruptedException {
+        ResponseJournal journal = journal(DataSize.ofMegabytes(1));
+        append(journal, 0);
+        journal.close();
+
+        assertThatThrownBy(() -> append(journal, 1))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Response journal has been closed");
+        assertThat(replay()).hasSize(1);
+    }
+
+    private ResponseJournal journal(DataSize segmentSize) {
+        return new ResponseJournal(new JournalProperties(directory, segmentSize, 16), new SimpleMeterRegistry());
+    }
+
+    private static void append(ResponseJournal journal, int medicineCount) {
+        List<Answer<?>> answers = List.of(new BooleanAnswer(1L, true), new IntegerAnswer(2L, medicineCount));
+        EvaluationPlan plan = ENTRY.evaluationPlan();
+        ConsultationResponse response = plan.evaluate(answers);
+        journal.append(ENTRY, plan.pack(answers), response);
+    }
+
+    private static void append(JournalSegment segment, int medicineCount) {
+        List<Answer<?>> answers = List.of(new BooleanAnswer(1L, true), new IntegerAnswer(2L, medicineCount));
+        EvaluationPlan plan = ENTRY.evaluationPlan();
+        segment.append(0L, ENTRY, plan.pack(answers), plan.evaluate(answers).status());
+    }
+
+    private List<JournalEntry> replay() {
+        List<JournalEntry> entries = new ArrayList<>();
+        ResponseJournal.replay(directory, entries::add);
+        return entries;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static CatalogEntry catalogEntry() {
+        Question<BooleanAnswer> ageCheck = Question.<BooleanAnswer>builder()
+            .id(1L)
+            .text("Are you over 18?")
+            .answerType(AnswerType.BOOLEAN)
+            .answerValidator(new MustBeTrueValidator())
+            .build();
+        Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+            .id(2L)
+            .text("How many times have you taken this medicine?")
+            .answerType(AnswerType.INTEGER)
+            .answerValidator(new MustBeLessThanValidator(3))
+            .build();
+
+        Consultation consultation = Consultation.builder()
+            .id(1L)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(ageCheck, previousMedicineCount))
+            .build();
+        return new CatalogEntry(consultation, EvaluationPlan.compile(consultation), 7L);
+    }
+
+    // writes half of the next buffer it's given and then fails, as a full disk would
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private boolean failNextWrite;
+
+        private FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                delegate.write(source.slice(source.position(), source.remaining() / 2), position);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(source, position);
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            return delegate.read(destination);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            return delegate.read(destinations, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            return delegate.write(source);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return delegate.write(sources, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            return delegate.transferFrom(source, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            return delegate.read(destination, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
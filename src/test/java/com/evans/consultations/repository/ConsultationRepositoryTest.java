@@ -0,0 +1,258 @@
+package com.evans.consultations.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.evans.consultations.model.Answer.BooleanAnswer;
+import com.evans.consultations.model.Answer.DateAnswer;
+import com.evans.consultations.model.Answer.DecimalAnswer;
+import com.evans.consultations.model.Answer.IntegerAnswer;
+import com.evans.consultations.model.Answer.MultiChoiceAnswer;
+import com.evans.consultations.model.Answer.SingleChoiceAnswer;
+import com.evans.consultations.model.AnswerOption;
+import com.evans.consultations.model.AnswerType;
+import com.evans.consultations.model.AnswerValidator.BooleanValidator.MustBeTrueValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeAfterValidator;
+import com.evans.consultations.model.AnswerValidator.DateValidator.MustBeBeforeValidator;
+import com.evans.consultations.model.AnswerValidator.DecimalValidator.MustBeWithinValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeBetweenValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeLessThanValidator;
+import com.evans.consultations.model.AnswerValidator.IntegerValidator.MustBeOneOfValidator;
+import com.evans.consultations.model.AnswerValidator.MultiChoiceValidator.MustNotChooseAnyOfValidator;
+import com.evans.consultations.model.AnswerValidator.SingleChoiceValidator.MustChooseOneOfValidator;
+import com.evans.consultations.model.Condition.Implies;
+import com.evans.consultations.model.Condition.Matches;
+import com.evans.consultations.model.Consultation;
+import com.evans.consultations.model.ConsultationResponse;
+import com.evans.consultations.model.ConsultationResponse.Status;
+import com.evans.consultations.model.Question;
+import com.evans.consultations.model.Rule;
+import com.evans.consultations.model.Scoring;
+import com.evans.consultations.model.Scoring.Weight;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConsultationRepositoryTest {
+
+    private final ConsultationRepository consultationRepository = new ConsultationRepository();
+
+    @Test
+    void shouldPublishConsultationsSavedTogetherUnderOneVersion() {
+        consultationRepository.saveAll(List.of(consultation(1L, AnswerType.BOOLEAN), consultation(2L, AnswerType.BOOLEAN)));
+
+        CatalogEntry first = consultationRepository.getEntryById(1L);
+        CatalogEntry second = consultationRepository.getEntryById(2L);
+
+        assertThat(first.version()).isEqualTo(consultationRepository.version());
+        assertThat(second.version()).isEqualTo(first.version());
+    }
+
+    @Test
+    void shouldKeepPreviouslyReadEntryUnchangedAfterUpdate() {
+        Consultation original = consultation(1L, AnswerType.BOOLEAN);
+        consultationRepository.save(original);
+        CatalogEntry before = consultationRepository.getEntryById(1L);
+
+        consultationRepository.save(consultation(1L, AnswerType.BOOLEAN));
+        CatalogEntry after = consultationRepository.getEntryById(1L);
+
+        assertThat(before.consultation()).isSameAs(original);
+        assertThat(after.version()).isGreaterThan(before.version());
+    }
+
+    @Test
+    void shouldNotPublishAnythingWhenOneConsultationIsInvalid() {
+        long version = consultationRepository.version();
+
+        assertThatThrownBy(() -> consultationRepository.saveAll(
+            List.of(consultation(1L, AnswerType.BOOLEAN), consultation(2L, AnswerType.INTEGER))))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(consultationRepository.existsById(1L)).isFalse();
+        assertThat(consultationRepository.version()).isEqualTo(version);
+    }
+
+    @Test
+    void shouldReadConsultationsBackFromCatalogFile(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        Question<IntegerAnswer> previousMedicineCount = Question.<IntegerAnswer>builder()
+            .id(2L)
+            .text("How many times have you taken this medicine?")
+            .answerType(AnswerType.INTEGER)
+            .answerValidator(new MustBeLessThanValidator(3))
+            .build();
+        Consultation consultation = Consultation.builder()
+            .id(1L)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(consultation(1L, AnswerType.BOOLEAN).questions().get(0), previousMedicineCount))
+            .rules(List.of(new Rule("Adults only", new Implies(
+                new Matches(1L, new MustBeTrueValidator()),
+                new Matches(2L, new MustBeOneOfValidator(Set.of(0, 1, 2)))))))
+            .scoring(new Scoring(List.of(new Weight(new Matches(2L, new MustBeBetweenValidator(0, 1)), 1)), 1))
+            .build();
+
+        long version;
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.saveAll(List.of(consultation, consultation(2L, AnswerType.BOOLEAN)));
+            version = repository.version();
+        }
+
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            assertThat(repository.version()).isEqualTo(version);
+            assertThat(repository.existsById(2L)).isTrue();
+
+            CatalogEntry entry = repository.getEntryById(1L);
+            assertThat(entry.consultation()).isEqualTo(consultation);
+            assertThat(entry.version()).isEqualTo(version);
+            assertThat(entry.evaluationPlan().evaluate(List.of(new BooleanAnswer(1L, true), new IntegerAnswer(2L, 3))))
+                .isEqualTo(new ConsultationResponse(Status.FAILED));
+            assertThat(repository.getEntryById(1L)).isSameAs(entry);
+        }
+    }
+
+    @Test
+    void shouldReadChoiceOptionsAndValidatorsBackFromCatalogFile(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        List<AnswerOption> symptoms = List.of(new AnswerOption(0, "Rash"), new AnswerOption(62, "Swelling"));
+        Consultation consultation = Consultation.builder()
+            .id(1L)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(
+                Question.<DecimalAnswer>builder()
+                    .id(1L)
+                    .text("What is your temperature?")
+                    .answerType(AnswerType.DECIMAL)
+                    .answerValidator(new MustBeWithinValidator(35.5, 37.5))
+                    .build(),
+                Question.<SingleChoiceAnswer>builder()
+                    .id(2L)
+                    .text("Which symptom is worst?")
+                    .answerType(AnswerType.SINGLE_CHOICE)
+                    .answerValidator(new MustChooseOneOfValidator(Set.of(0)))
+                    .options(symptoms)
+                    .build(),
+                Question.<MultiChoiceAnswer>builder()
+                    .id(3L)
+                    .text("Which symptoms do you have?")
+                    .answerType(AnswerType.MULTI_CHOICE)
+                    .answerValidator(new MustNotChooseAnyOfValidator(Set.of(62)))
+                    .options(symptoms)
+                    .build(),
+                Question.<DateAnswer>builder()
+                    .id(4L)
+                    .text("When were you born?")
+                    .answerType(AnswerType.DATE)
+                    .answerValidator(new MustBeBeforeValidator(LocalDate.of(2008, 1, 1)))
+                    .build()))
+            .rules(List.of(new Rule("Born after 1900",
+                new Matches(4L, new MustBeAfterValidator(LocalDate.of(1900, 1, 1))))))
+            .build();
+
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.save(consultation);
+        }
+
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            assertThat(repository.getEntryById(1L).consultation()).isEqualTo(consultation);
+        }
+    }
+
+    @Test
+    void shouldNotReadConsultationsBackAfterDeleteAll(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.save(consultation(1L, AnswerType.BOOLEAN));
+            repository.deleteAll();
+            repository.save(consultation(2L, AnswerType.BOOLEAN));
+        }
+
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            assertThat(repository.existsById(1L)).isFalse();
+            assertThat(repository.getEntryById(2L)).isNotNull();
+            assertThat(repository.version()).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    void shouldDropRecordTornWhileAppending(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.save(consultation(1L, AnswerType.BOOLEAN));
+        }
+        long intactSize = Files.size(catalogPath);
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.save(consultation(2L, AnswerType.BOOLEAN));
+        }
+        try (FileChannel channel = FileChannel.open(catalogPath, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(catalogPath) - 5);
+        }
+
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            assertThat(repository.existsById(1L)).isTrue();
+            assertThat(repository.existsById(2L)).isFalse();
+            assertThat(Files.size(catalogPath)).isEqualTo(intactSize);
+        }
+    }
+
+    @Test
+    void shouldDecodeEntriesAgainOnceEvicted(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            for (long id = 1; id <= 10; id++) {
+                repository.save(consultation(id, AnswerType.BOOLEAN));
+            }
+        }
+
+        try (ConsultationRepository repository = new ConsultationRepository(new CatalogProperties(catalogPath, 2))) {
+            for (int pass = 0; pass < 2; pass++) {
+                for (long id = 1; id <= 10; id++) {
+                    assertThat(repository.getById(id)).isEqualTo(consultation(id, AnswerType.BOOLEAN));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectCatalogFileInAnotherFormatVersion(@TempDir Path directory) throws IOException {
+        Path catalogPath = directory.resolve("catalog.bin");
+        try (ConsultationRepository repository = repository(catalogPath)) {
+            repository.save(consultation(1L, AnswerType.BOOLEAN));
+        }
+        try (FileChannel channel = FileChannel.open(catalogPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(1).flip(), 4);
+        }
+
+        assertThatThrownBy(() -> repository(catalogPath))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Consultation catalog " + catalogPath
+                + " is in format version 1, but only version 2 can be read");
+    }
+
+    private static ConsultationRepository repository(Path catalogPath) {
+        return new ConsultationRepository(new CatalogProperties(catalogPath, 100));
+    }
+
+    private static Consultation consultation(Long id, AnswerType answerType) {
+        Question<BooleanAnswer> question = Question.<BooleanAnswer>builder()
+            .id(1L)
+            .text("Are you over 18?")
+            .answerType(answerType)
+            .answerValidator(new MustBeTrueValidator())
+            .build();
+
+        return Consultation.builder()
+            .id(id)
+            .title("Genovian Pear Allergy")
+            .questions(List.of(question))
+            .build();
+    }
+}